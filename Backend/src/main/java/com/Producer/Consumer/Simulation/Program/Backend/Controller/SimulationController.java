@@ -4,17 +4,26 @@ import com.Producer.Consumer.Simulation.Program.Backend.Models.Connection;
 import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
 import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
 import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.SimulationSnapshot;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.SnapshotInfo;
+import com.Producer.Consumer.Simulation.Program.Backend.Service.BatchSimulationService;
 import com.Producer.Consumer.Simulation.Program.Backend.Service.SimulationService;
 import com.Producer.Consumer.Simulation.Program.Backend.Service.SimulationStatistics;
+import com.Producer.Consumer.Simulation.Program.Backend.Websocket.SseStreamHub;
+import com.Producer.Consumer.Simulation.Program.Backend.Websocket.StateFrameCache;
 import com.Producer.Consumer.Simulation.Program.Backend.Websocket.WebSocketBroadcaster;
 import com.Producer.Consumer.Simulation.Program.Backend.dto.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/simulation")
@@ -22,9 +31,15 @@ import java.util.Map;
 public class SimulationController {
 
     private final SimulationService simulationService;
+    private final BatchSimulationService batchSimulationService;
+    private final SseStreamHub sseStreamHub;
 
-    public SimulationController(SimulationService simulationService) {
+    public SimulationController(SimulationService simulationService,
+                                BatchSimulationService batchSimulationService,
+                                SseStreamHub sseStreamHub) {
         this.simulationService = simulationService;
+        this.batchSimulationService = batchSimulationService;
+        this.sseStreamHub = sseStreamHub;
     }
 
     @PostMapping("/start")
@@ -34,6 +49,18 @@ public class SimulationController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    // Time-scale factor for the live simulation, changeable while it runs (e.g. 10 or 100)
+    @PostMapping("/speed")
+    public ResponseEntity<Map<String, Object>> setSpeed(@RequestParam double value) {
+        simulationService.setSimulationSpeed(value);
+        return ResponseEntity.ok(Map.of("simulationSpeed", simulationService.getSimulationSpeed()));
+    }
+
+    @GetMapping("/speed")
+    public ResponseEntity<Map<String, Object>> getSpeed() {
+        return ResponseEntity.ok(Map.of("simulationSpeed", simulationService.getSimulationSpeed()));
+    }
+
     @PostMapping("/stop")
     public ResponseEntity<String> stopSimulation() {
         simulationService.stopSimulation();
@@ -52,9 +79,88 @@ public class SimulationController {
         return ResponseEntity.ok("");
     }
 
+    // Runs the current topology on the discrete-event engine (virtual time) and returns the results
+    @PostMapping("/discrete/run")
+    public ResponseEntity<Map<String, Object>> runDiscreteEvent(
+            @RequestParam(defaultValue = "2000") int productionRate,
+            @RequestParam(defaultValue = "480") double durationMinutes,
+            @RequestParam(required = false) Long seed) {
+        long durationMillis = (long) (durationMinutes * 60_000);
+        long runSeed = seed != null ? seed : System.nanoTime();
+        return ResponseEntity.ok(simulationService.runDiscreteEvent(productionRate, durationMillis, runSeed));
+    }
+
+    // Headless capacity-planning run: no broadcasts, no snapshots, stops on products or simulated time
+    @PostMapping("/batch")
+    public ResponseEntity<BatchRunResultDTO> runBatch(@RequestBody BatchRunRequestDTO request) {
+        return ResponseEntity.ok(batchSimulationService.run(request));
+    }
+
+    // Parameter sweep: streams one "result" event per run as it finishes, then "complete"
+    @PostMapping("/sweep")
+    public SseEmitter runSweep(@RequestBody SweepRequestDTO request) {
+        SseEmitter emitter = new SseEmitter(0L);
+        CompletableFuture<Void> sweep = batchSimulationService.sweep(request, result -> {
+            try {
+                emitter.send(SseEmitter.event().name("result").data(result));
+            } catch (IOException e) {
+                // Client went away; the emitter's error callback cancels the rest
+            }
+        });
+        // Runs that haven't started are dropped once nobody is listening; a no-op after a normal finish
+        emitter.onCompletion(() -> sweep.cancel(false));
+        emitter.onTimeout(() -> sweep.cancel(false));
+        emitter.onError(error -> sweep.cancel(false));
+        sweep.whenComplete((ignored, error) -> {
+            if (sweep.isCancelled()) {
+                return;
+            }
+            if (error != null) {
+                emitter.completeWithError(error);
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name("complete").data(Map.of("status", "done")));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    // Monte Carlo replications with 95% confidence intervals, optionally until a target precision
+    @PostMapping("/replications")
+    public ResponseEntity<ReplicationResultDTO> runReplications(@RequestBody ReplicationRequestDTO request) {
+        return ResponseEntity.ok(batchSimulationService.replicate(request));
+    }
+
+    // Pollers send back the ETag; an unchanged state answers 304 without encoding anything
     @GetMapping("/state")
-    public ResponseEntity<Map<String, Object>> getState() {
-        return ResponseEntity.ok(simulationService.getCurrentState());
+    public ResponseEntity<String> getState(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = simulationService.getStateEtag();
+        if (ifNoneMatch != null && matchesEtag(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        StateFrameCache.StateFrame frame = simulationService.getStateFrame();
+        return ResponseEntity.ok()
+                .eTag(frame.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(frame.json());
+    }
+
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals("*")) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @GetMapping("/statistics")
@@ -62,6 +168,31 @@ public class SimulationController {
         return ResponseEntity.ok(simulationService.getStatistics());
     }
 
+    // Live state for watchers that can't speak the WebSocket protocol: a keyframe, then deltas.
+    // EventSource resends the last id on reconnect, which resumes with a single delta.
+    @GetMapping(value = "/stream/state", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamState(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return sseStreamHub.openStateStream(lastEventId);
+    }
+
+    @GetMapping(value = "/stream/statistics", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStatistics() {
+        return sseStreamHub.openStatisticsStream();
+    }
+
+    // Event bus counters: delivered vs suppressed (unchanged status, merged bursts) and per-observer backlog
+    @GetMapping("/events/metrics")
+    public ResponseEntity<Map<String, Object>> getEventMetrics() {
+        return ResponseEntity.ok(simulationService.getEventMetrics());
+    }
+
+    // Outbound queue depth, lag and dropped frames per WebSocket session
+    @GetMapping("/websocket/sessions")
+    public ResponseEntity<List<Map<String, Object>>> getSessionMetrics() {
+        return ResponseEntity.ok(simulationService.getSessionMetrics());
+    }
+
     @PostMapping("/machines")
     public ResponseEntity<Machine> addMachine(@RequestBody Map<String, Object> request) {
         double x = ((Number) request.get("x")).doubleValue();
@@ -84,11 +215,26 @@ public class SimulationController {
         double x = ((Number) request.get("x")).doubleValue();
         double y = ((Number) request.get("y")).doubleValue();
         int capacity = ((Number) request.getOrDefault("capacity", 100)).intValue();
+        String mode = (String) request.getOrDefault("mode", ProductionQueue.MODE_PRIORITY);
 
-        ProductionQueue queue = simulationService.addQueue(x, y, capacity);
+        ProductionQueue queue = simulationService.addQueue(x, y, capacity, mode);
         return ResponseEntity.ok(queue);
     }
 
+    @PutMapping("/queues/{id}/mode")
+    public ResponseEntity<ProductionQueue> setQueueMode(
+            @PathVariable String id,
+            @RequestParam String mode) {
+        return ResponseEntity.ok(simulationService.setQueueMode(id, mode));
+    }
+
+    @PutMapping("/queues/{id}/capacity")
+    public ResponseEntity<ProductionQueue> setQueueCapacity(
+            @PathVariable String id,
+            @RequestParam int capacity) {
+        return ResponseEntity.ok(simulationService.setQueueCapacity(id, capacity));
+    }
+
     @DeleteMapping("/queues/{id}")
     public ResponseEntity<String> removeQueue(@PathVariable String id) {
         simulationService.removeQueue(id);
@@ -125,9 +271,30 @@ public class SimulationController {
     }
 
 
+    // Replay list: one page of metadata (id, time, counts, throughput); no snapshot bodies
     @GetMapping("/snapshots")
-    public ResponseEntity<List<SimulationSnapshot>> getAllSnapshots() {
-        return ResponseEntity.ok(simulationService.getAllSnapshots());
+    public ResponseEntity<SnapshotPageDTO> getSnapshots(@RequestParam(defaultValue = "0") int offset,
+                                                        @RequestParam(defaultValue = "50") int limit,
+                                                        @RequestParam(defaultValue = "true") boolean newestFirst) {
+        return ResponseEntity.ok(simulationService.getSnapshotPage(offset, limit, newestFirst));
+    }
+
+    // Metadata of the snapshot taken at or before the given epoch millis
+    @GetMapping("/snapshots/at")
+    public ResponseEntity<SnapshotInfo> getSnapshotAt(@RequestParam long timestamp) {
+        SnapshotInfo info = simulationService.getSnapshotAt(timestamp);
+        return info != null ? ResponseEntity.ok(info) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/snapshots/{id}")
+    public ResponseEntity<SimulationSnapshot> getSnapshot(@PathVariable long id) {
+        SimulationSnapshot snapshot = simulationService.getSnapshot(id);
+        return snapshot != null ? ResponseEntity.ok(snapshot) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/snapshots/metrics")
+    public ResponseEntity<Map<String, Object>> getSnapshotMetrics() {
+        return ResponseEntity.ok(simulationService.getSnapshotMetrics());
     }
 
     @PostMapping("/snapshots/create")
@@ -141,11 +308,10 @@ public class SimulationController {
         }
     }
 
-    @PostMapping("/snapshots/restore/{index}")
-    public ResponseEntity<String> restoreSnapshot(@PathVariable int index) {
+    @PostMapping("/snapshots/restore/{id}")
+    public ResponseEntity<String> restoreSnapshot(@PathVariable long id) {
         try {
-            System.out.println(index);
-            simulationService.restoreSnapshot(index);
+            simulationService.restoreSnapshot(id);
             return ResponseEntity.ok("Snapshot restored successfully");
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
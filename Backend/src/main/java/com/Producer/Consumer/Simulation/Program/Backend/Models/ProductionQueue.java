@@ -1,49 +1,263 @@
 package com.Producer.Consumer.Simulation.Program.Backend.Models;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue.PriorityProductBuffer;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue.ProductBuffer;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue.RingProductBuffer;
+import lombok.AccessLevel;
 import lombok.Data;
-import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 public class ProductionQueue implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    public static final String MODE_PRIORITY = "priority";
+    public static final String MODE_RING = "ring";
+
     private String id;
     private double x;
     private double y;
     private int capacity;
-    private List<Product> products;
+    private String mode = MODE_PRIORITY; // priority (BONUS: Priority queue) or ring (lock-free FIFO)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ProductBuffer buffer = new PriorityProductBuffer();
     private List<String> waitingMachines; // Observer Pattern
 
+    // Blocking hand-off: consumers park on notEmpty, upstream machines on notFull.
+    // The lock guards non-concurrent buffers; for the ring it is only taken to park or wake.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient ReentrantLock lock = new ReentrantLock();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient Condition notEmpty = lock.newCondition();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient Condition notFull = lock.newCondition();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient AtomicInteger consumersWaiting = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient AtomicInteger producersWaiting = new AtomicInteger();
+
     public ProductionQueue(String id, double x, double y, int capacity) {
+        this(id, x, y, capacity, MODE_PRIORITY);
+    }
+
+    public ProductionQueue(String id, double x, double y, int capacity, String mode) {
         this.id = id;
         this.x = x;
         this.y = y;
         this.capacity = capacity;
-        this.products = new ArrayList<>();
         this.waitingMachines = new ArrayList<>();
+        this.mode = mode;
+        this.buffer = createBuffer(mode, capacity);
+    }
+
+    private static ProductBuffer createBuffer(String mode, int capacity) {
+        if (MODE_RING.equals(mode)) {
+            return new RingProductBuffer(capacity);
+        }
+        if (MODE_PRIORITY.equals(mode)) {
+            return new PriorityProductBuffer();
+        }
+        throw new IllegalArgumentException("Unknown queue mode: " + mode);
+    }
+
+    // Moves the current contents into a buffer of the new kind. Machines in ring mode use the buffer without
+    // the lock, so only call this (or setCapacity) while no machine runs: SimulationService checks isRunning
+    public void setMode(String mode) {
+        rebuild(mode, capacity);
+    }
+
+    // The ring's slots are sized at construction, so a new capacity means a new buffer
+    public void setCapacity(int capacity) {
+        rebuild(mode, capacity);
+    }
+
+    private void rebuild(String mode, int capacity) {
+        lock.lock();
+        try {
+            if (buffer.size() > capacity) {
+                throw new IllegalArgumentException("Queue " + id + " holds " + buffer.size()
+                        + " products; capacity can't drop to " + capacity);
+            }
+            ProductBuffer replacement = createBuffer(mode, capacity);
+            Product product;
+            while ((product = buffer.poll()) != null) {
+                replacement.offer(product);
+            }
+            this.buffer = replacement;
+            this.mode = mode;
+            this.capacity = capacity;
+            // Room may have opened up for blocked upstream machines
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Non-blocking: returns false when the queue is full. enteredAt comes from the caller's (possibly virtual) clock
+    public boolean addProduct(Product product, long enteredAt) {
+        product.setEnteredQueueAt(enteredAt);
+        if (!tryEnqueue(product)) {
+            return false;
+        }
+        signalIfWaiting(consumersWaiting, notEmpty);
+        return true;
+    }
+
+    // Blocks the caller until there is room. Only waits: the caller retries its add, which may lose the slot again
+    public void awaitSpace() throws InterruptedException {
+        if (size() < capacity) {
+            return;
+        }
+        lock.lockInterruptibly();
+        try {
+            producersWaiting.incrementAndGet();
+            try {
+                while (size() >= capacity) {
+                    notFull.await();
+                }
+            } finally {
+                producersWaiting.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Non-blocking: returns null when the queue is empty
+    public Product removeProduct() {
+        Product product = tryDequeue();
+        if (product != null) {
+            signalIfWaiting(producersWaiting, notFull);
+        }
+        return product;
     }
 
-    public synchronized boolean addProduct(Product product) {
-        if (products.size() < capacity) {
-            products.add(product);
-            product.setEnteredQueueAt(System.currentTimeMillis());
-            return true;
+    // Blocks the machine until there is something to take; it is listed in waitingMachines meanwhile.
+    // Only waits: the take itself is a removeProduct, so it can happen inside a state step
+    public void awaitProduct(String machineId) throws InterruptedException {
+        if (size() > 0) {
+            return;
+        }
+        lock.lockInterruptibly();
+        try {
+            waitingMachines.add(machineId);
+            consumersWaiting.incrementAndGet();
+            try {
+                while (size() == 0) {
+                    notEmpty.await();
+                }
+            } finally {
+                consumersWaiting.decrementAndGet();
+                waitingMachines.remove(machineId);
+            }
+        } finally {
+            lock.unlock();
         }
-        return false;
     }
 
-    public synchronized Product removeProduct() {
-        if (!products.isEmpty()) {
-            // Sort by priority (BONUS: Priority queue)
-            products.sort((a, b) -> Integer.compare(b.getPriority(), a.getPriority()));
-            return products.remove(0);
+    private boolean tryEnqueue(Product product) {
+        if (buffer.isConcurrent()) {
+            return buffer.offer(product);
+        }
+        lock.lock();
+        try {
+            return buffer.size() < capacity && buffer.offer(product);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Product tryDequeue() {
+        if (buffer.isConcurrent()) {
+            return buffer.poll();
+        }
+        lock.lock();
+        try {
+            return buffer.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Waiters register before their final re-check, so a zero count means nobody can miss this signal
+    private void signalIfWaiting(AtomicInteger waiting, Condition condition) {
+        if (waiting.get() > 0) {
+            lock.lock();
+            try {
+                condition.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Service order (highest priority first, FIFO within a priority; FIFO in ring mode), read-only
+    public List<Product> getProducts() {
+        if (buffer.isConcurrent()) {
+            return buffer.orderedView();
+        }
+        lock.lock();
+        try {
+            return buffer.orderedView();
+        } finally {
+            lock.unlock();
         }
-        return null;
     }
-}
\ No newline at end of file
+
+    public List<String> getWaitingMachines() {
+        lock.lock();
+        try {
+            return waitingMachines == null ? null : new ArrayList<>(waitingMachines);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        if (buffer.isConcurrent()) {
+            return buffer.size();
+        }
+        lock.lock();
+        try {
+            return buffer.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        lock.lock();
+        try {
+            out.defaultWriteObject();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        lock = new ReentrantLock();
+        notEmpty = lock.newCondition();
+        notFull = lock.newCondition();
+        consumersWaiting = new AtomicInteger();
+        producersWaiting = new AtomicInteger();
+    }
+}
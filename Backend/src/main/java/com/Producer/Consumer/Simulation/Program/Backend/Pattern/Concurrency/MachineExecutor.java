@@ -1,85 +1,151 @@
 package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Concurrency;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
 
 import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
 import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
 import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.MachineStatusPayload;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.ProductMovedPayload;
 import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.SimulationEvent;
 import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.SimulationEventPublisher;
 import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.SimulationObserver;
+import com.Producer.Consumer.Simulation.Program.Backend.Service.SimulationStatistics;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.PreDestroy;
-
 @Component
 public class MachineExecutor implements SimulationObserver {
+    private static final long STOP_TIMEOUT_MILLIS = 5000;
+
     private final ExecutorService executorService;
-    private final Map<String, Future<?>> runningMachines;
+    private final Map<String, MachineRun> runningMachines;
     private final SimulationEventPublisher eventPublisher;
+    private final SimulationClock clock;
+    private final SimulationStatistics statistics;
+    private final StateVersion stateVersion;
+
+    // One machine loop. Stopping interrupts its thread and can wait until the loop has exited
+    private static final class MachineRun {
+        final CountDownLatch stopped = new CountDownLatch(1);
+        volatile boolean cancelled;
+        private Thread thread;
+
+        // False if the run was stopped before its thread picked it up
+        synchronized boolean attach() {
+            thread = Thread.currentThread();
+            return !cancelled;
+        }
+
+        // Clears any stop interrupt so it can't leak into the next task on a pooled thread
+        synchronized void detach() {
+            thread = null;
+            Thread.interrupted();
+            stopped.countDown();
+        }
 
-    public MachineExecutor(SimulationEventPublisher eventPublisher) {
-        this.executorService = Executors.newCachedThreadPool();
+        synchronized void stop() {
+            cancelled = true;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    public MachineExecutor(SimulationEventPublisher eventPublisher,
+                           SimulationClock clock,
+                           SimulationStatistics statistics,
+                           StateVersion stateVersion,
+                           @Value("${simulation.executor.mode:virtual}") String executionMode) {
+        this.executorService = createExecutor(executionMode);
         this.runningMachines = new ConcurrentHashMap<>();
         this.eventPublisher = eventPublisher;
+        this.clock = clock;
+        this.statistics = statistics;
+        this.stateVersion = stateVersion;
+    }
+
+    // platform: one OS thread per machine; virtual: one virtual thread per machine on the JVM's carrier pool
+    private static ExecutorService createExecutor(String executionMode) {
+        if ("virtual".equalsIgnoreCase(executionMode)) {
+            System.out.println("🧵 MachineExecutor using virtual threads");
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("machine-", 0).factory());
+        }
+        System.out.println("🧵 MachineExecutor using platform threads");
+        return Executors.newCachedThreadPool();
     }
 
+    // completesProducts: the machine is the last station, so what it finishes leaves the line
     public void startMachine(Machine machine, ProductionQueue inputQueue,
-                             ProductionQueue outputQueue) {
+                             ProductionQueue outputQueue, boolean completesProducts) {
         // Don't start if already running
         if (runningMachines.containsKey(machine.getId())) {
             System.out.println("⚠️ Machine " + machine.getId() + " already running");
             return;
         }
 
-        Future<?> future = executorService.submit(() ->
-                processMachine(machine, inputQueue, outputQueue)
-        );
-        runningMachines.put(machine.getId(), future);
+        MachineRun run = new MachineRun();
+        runningMachines.put(machine.getId(), run);
+        executorService.execute(() -> {
+            try {
+                if (run.attach()) {
+                    processMachine(run, machine, inputQueue, outputQueue, completesProducts);
+                }
+            } finally {
+                run.detach();
+            }
+        });
         System.out.println("✅ Machine " + machine.getId() + " started");
     }
 
-    private void processMachine(Machine machine, ProductionQueue inputQueue,
-                                ProductionQueue outputQueue) {
-        while (!Thread.currentThread().isInterrupted()) {
+    // Every change that moves a product or touches several fields at once is one state step,
+    // so a snapshot sees it entirely or not at all. Waits (for work, room, service time) sit between steps.
+    private void processMachine(MachineRun run, Machine machine, ProductionQueue inputQueue,
+                                ProductionQueue outputQueue, boolean completesProducts) {
+        while (!run.cancelled && !Thread.currentThread().isInterrupted()) {
             try {
-                // Get product from input queue
-                Product product = inputQueue.removeProduct();
-
-                if (product == null) {
-                    // Register as waiting (Observer Pattern)
-                    synchronized (inputQueue.getWaitingMachines()) {
-                        if (!inputQueue.getWaitingMachines().contains(machine.getId())) {
-                            inputQueue.getWaitingMachines().add(machine.getId());
-                        }
+                // Finish a product the machine already holds (e.g. restored from a snapshot) before taking new work
+                Product product = machine.getCurrentProduct();
+                boolean resumed = product != null;
+                stateVersion.beginStep();
+                try {
+                    if (!resumed) {
+                        product = inputQueue.removeProduct();
+                    }
+                    if (product != null) {
+                        machine.setCurrentProduct(product);
+                        machine.setStatus("processing");
+                        machine.setColor(product.getColor());
+                        product.setStatus("processing");
+                    } else {
+                        machine.setStatus("idle");
+                        machine.setColor("#94a3b8");
                     }
+                } finally {
+                    stateVersion.endStep();
+                }
 
-                    machine.setStatus("idle");
-                    machine.setColor("#94a3b8");
+                if (product == null) {
                     eventPublisher.notifyObservers(
-                            new SimulationEvent("MACHINE_IDLE", machine)
+                            new SimulationEvent("MACHINE_IDLE", MachineStatusPayload.of(machine, clock.now()))
                     );
 
-                    Thread.sleep(100);
+                    // Park until a product arrives (Observer Pattern: the queue wakes us), then take it in a step
+                    inputQueue.awaitProduct(machine.getId());
                     continue;
                 }
 
-                // Remove from waiting list
-                inputQueue.getWaitingMachines().remove(machine.getId());
-
-                // Process product
-                machine.setCurrentProduct(product);
-                machine.setStatus("processing");
-                machine.setColor(product.getColor());
-                product.setStatus("processing");
-
-                System.out.println("🔧 Machine " + machine.getId() + " processing " + product.getId());
+                if (!resumed) {
+                    statistics.recordWait(clock.now() - product.getEnteredQueueAt());
+                }
 
                 eventPublisher.notifyObservers(
-                        new SimulationEvent("MACHINE_PROCESSING",
-                                Map.of("machine", machine, "product", product))
+                        new SimulationEvent("MACHINE_PROCESSING", MachineStatusPayload.of(machine, clock.now()))
                 );
 
                 // Random service time
@@ -89,70 +155,63 @@ public class MachineExecutor implements SimulationObserver {
                 // BONUS: Machine breakdown simulation
                 if (Math.random() > machine.getReliability()) {
                     machine.setStatus("maintenance");
-                    System.out.println("🔧 Machine " + machine.getId() + " broke down!");
                     eventPublisher.notifyObservers(
-                            new SimulationEvent("MACHINE_BREAKDOWN", machine)
+                            new SimulationEvent("MACHINE_BREAKDOWN", MachineStatusPayload.of(machine, clock.now()))
                     );
-                    Thread.sleep(serviceTime * 2); // Longer repair time
+                    clock.sleep(serviceTime * 2); // Longer repair time
                 }
 
-                long startTime = System.currentTimeMillis();
-                Thread.sleep(serviceTime);
-                long endTime = System.currentTimeMillis();
+                // All waits are in simulated milliseconds, scaled by the clock's speed
+                long startTime = clock.now();
+                clock.sleep(serviceTime);
+                long endTime = clock.now();
 
                 // Flash effect
                 machine.setStatus("flashing");
                 eventPublisher.notifyObservers(
-                        new SimulationEvent("MACHINE_FLASH", machine)
+                        new SimulationEvent("MACHINE_FLASH", MachineStatusPayload.of(machine, clock.now()))
                 );
-                Thread.sleep(300);
+                clock.sleep(300);
 
-                // Update statistics
-                machine.setProcessedCount(machine.getProcessedCount() + 1);
-                machine.setTotalProcessingTime(
-                        machine.getTotalProcessingTime() + (endTime - startTime)
-                );
-
-                System.out.println("✅ Machine " + machine.getId() + " finished " + product.getId());
+                // Update statistics and hand the product on in one step
+                boolean delivered;
+                stateVersion.beginStep();
+                try {
+                    machine.setProcessedCount(machine.getProcessedCount() + 1);
+                    machine.setTotalProcessingTime(
+                            machine.getTotalProcessingTime() + (endTime - startTime)
+                    );
+                    delivered = deliver(machine, product, outputQueue, completesProducts);
+                    if (!delivered) {
+                        machine.setStatus("blocked");
+                    }
+                } finally {
+                    stateVersion.endStep();
+                }
+                statistics.recordProcessing(machine.getId(), endTime - startTime);
 
-                // Move to output queue
-                if (outputQueue != null) {
-                    System.out.println("11");
-                    System.out.println(outputQueue.getProducts().size());
-                    boolean added = outputQueue.addProduct(product);
-                    if (added) {
-                        System.out.println("111");
-                        System.out.println(outputQueue.getProducts().size());
-                        product.setStatus("waiting");
-                        System.out.println("📦 Product " + product.getId() + " moved to " + outputQueue.getId());
-
-                        eventPublisher.notifyObservers(
-                                new SimulationEvent("PRODUCT_MOVED",
-                                        Map.of("machine", machine, "queue", outputQueue, "product", product))
-                        );
-
-                        // Notify waiting machines (Observer Pattern)
-                        synchronized (outputQueue.getWaitingMachines()) {
-                            for (String machineId : outputQueue.getWaitingMachines()) {
-                                eventPublisher.notifyObservers(
-                                        new SimulationEvent("QUEUE_READY",
-                                                Map.of("queueId", outputQueue.getId(), "machineId", machineId))
-                                );
-                            }
+                if (!delivered) {
+                    eventPublisher.notifyObservers(
+                            new SimulationEvent("MACHINE_BLOCKED", MachineStatusPayload.of(machine, clock.now()))
+                    );
+                    // Hold the product until downstream makes room
+                    while (!delivered) {
+                        outputQueue.awaitSpace();
+                        stateVersion.beginStep();
+                        try {
+                            delivered = deliver(machine, product, outputQueue, completesProducts);
+                        } finally {
+                            stateVersion.endStep();
                         }
-                    } else {
-                        System.out.println("⚠️ Output queue " + outputQueue.getId() + " is full!");
-                        // Put product back in input queue
-                        inputQueue.addProduct(product);
                     }
-                } else {
-                    product.setStatus("completed");
-                    System.out.println("🎉 Product " + product.getId() + " completed!");
                 }
 
-                machine.setCurrentProduct(null);
-                machine.setStatus("idle");
-                machine.setColor("#94a3b8");
+                if (outputQueue != null) {
+                    eventPublisher.notifyObservers(
+                            new SimulationEvent("PRODUCT_MOVED", new ProductMovedPayload(product.getId(),
+                                    machine.getId(), outputQueue.getId(), outputQueue.size(), clock.now()))
+                    );
+                }
 
             } catch (InterruptedException e) {
                 System.out.println("🛑 Machine " + machine.getId() + " interrupted");
@@ -166,19 +225,57 @@ public class MachineExecutor implements SimulationObserver {
         System.out.println("🛑 Machine " + machine.getId() + " stopped");
     }
 
+    // Caller is inside a step. Moves the product off the machine, or returns false if the output queue is full
+    private boolean deliver(Machine machine, Product product, ProductionQueue outputQueue,
+                            boolean completesProducts) {
+        if (outputQueue != null) {
+            product.setStatus("waiting");
+            if (!outputQueue.addProduct(product, clock.now())) {
+                product.setStatus("processing");
+                return false;
+            }
+        } else {
+            product.setStatus("completed");
+        }
+        if (outputQueue == null || completesProducts) {
+            statistics.recordCompletion();
+        }
+        machine.setCurrentProduct(null);
+        machine.setStatus("idle");
+        machine.setColor("#94a3b8");
+        return true;
+    }
+
     public void stopMachine(String machineId) {
-        Future<?> future = runningMachines.get(machineId);
-        if (future != null) {
-            future.cancel(true);
-            runningMachines.remove(machineId);
+        MachineRun run = runningMachines.remove(machineId);
+        if (run != null) {
+            run.stop();
+            awaitStopped(List.of(run));
             System.out.println("🛑 Stopped machine: " + machineId);
         }
     }
 
+    // Returns once every machine loop has exited, so nothing touches the machines or queues afterwards
     public void stopAll() {
         System.out.println("🛑 Stopping all machines...");
-        runningMachines.values().forEach(future -> future.cancel(true));
+        List<MachineRun> runs = new ArrayList<>(runningMachines.values());
         runningMachines.clear();
+        runs.forEach(MachineRun::stop);
+        awaitStopped(runs);
+    }
+
+    private void awaitStopped(List<MachineRun> runs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_TIMEOUT_MILLIS);
+        try {
+            for (MachineRun run : runs) {
+                if (!run.stopped.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    System.err.println("⚠️ A machine did not stop within " + STOP_TIMEOUT_MILLIS + " ms");
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     // Cleanup when application shuts down
@@ -201,7 +298,5 @@ public class MachineExecutor implements SimulationObserver {
     @Override
     public void update(SimulationEvent event) {
         // Handle specific events if needed
-        System.out.println("👂 " + getClass().getSimpleName()
-                + " received event: " + event.getType());
     }
 }
\ No newline at end of file
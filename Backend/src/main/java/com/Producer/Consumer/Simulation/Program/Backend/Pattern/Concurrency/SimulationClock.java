@@ -0,0 +1,97 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Concurrency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Simulated time for the real-time mode. Simulated milliseconds advance at
+ * speed x wall time, and the speed can change at any moment without the
+ * simulated clock jumping. Every timed wait in the live simulation goes
+ * through {@link #sleep(long)} so one setting scales them all.
+ *
+ * Each sleeper parks on its own until its deadline; nothing is shared
+ * between sleepers. Only a speed change wakes them early, to recompute
+ * their remaining wall time against the new anchor.
+ */
+@Component
+public class SimulationClock {
+
+    // Simulated time = simAnchor + (nanoTime - wallAnchorNanos) * speed
+    private record Anchor(long wallAnchorNanos, double simAnchorMillis, double speed) {}
+
+    private volatile Anchor anchor;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<Thread> sleepers = ConcurrentHashMap.newKeySet();
+
+    public SimulationClock(@Value("${simulation.default.speed:1.0}") double speed) {
+        validate(speed);
+        this.anchor = new Anchor(System.nanoTime(), System.currentTimeMillis(), speed);
+    }
+
+    // Current simulated time in milliseconds (starts out aligned with the wall clock)
+    public long now() {
+        Anchor a = anchor;
+        return (long) (a.simAnchorMillis() + (System.nanoTime() - a.wallAnchorNanos()) * a.speed() / 1_000_000.0);
+    }
+
+    public double getSpeed() {
+        return anchor.speed();
+    }
+
+    public void setSpeed(double speed) {
+        validate(speed);
+        lock.lock();
+        try {
+            Anchor a = anchor;
+            if (a.speed() == speed) {
+                return;
+            }
+            long wallNow = System.nanoTime();
+            double simNow = a.simAnchorMillis() + (wallNow - a.wallAnchorNanos()) * a.speed() / 1_000_000.0;
+            anchor = new Anchor(wallNow, simNow, speed);
+        } finally {
+            lock.unlock();
+        }
+        // Sleepers recompute their remaining wall time at the new rate
+        sleepers.forEach(LockSupport::unpark);
+        System.out.println("⏱️ Simulation speed set to " + speed + "x");
+    }
+
+    // Blocks for the given number of simulated milliseconds
+    public void sleep(long simMillis) throws InterruptedException {
+        if (simMillis <= 0) {
+            return;
+        }
+        long deadline = now() + simMillis;
+        Thread self = Thread.currentThread();
+        sleepers.add(self);
+        try {
+            long remaining;
+            // Wakes early on a speed change, an interrupt or spuriously; the anchor is re-read every time
+            while ((remaining = deadline - now()) > 0) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                LockSupport.parkNanos(this, toWallNanos(remaining));
+            }
+        } finally {
+            sleepers.remove(self);
+        }
+    }
+
+    // Wall-clock delay that currently corresponds to the given simulated delay
+    public long toWallNanos(long simMillis) {
+        return (long) (simMillis * 1_000_000.0 / anchor.speed());
+    }
+
+    private static void validate(double speed) {
+        if (!(speed > 0) || Double.isInfinite(speed)) {
+            throw new IllegalArgumentException("Simulation speed must be a positive number: " + speed);
+        }
+    }
+}
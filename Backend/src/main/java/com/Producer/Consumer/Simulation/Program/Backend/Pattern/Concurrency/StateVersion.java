@@ -0,0 +1,133 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Concurrency;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.VarHandle;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Versions the live simulation state so it can be read as of a single point
+ * in time without stopping the machines.
+ *
+ * Every change that spans several objects (a machine taking a product off
+ * its input queue, handing it to the output queue, the producer adding a
+ * product, a restore swapping everything) runs as one step between
+ * {@link #beginStep()} and {@link #endStep()}. A step never waits: it only
+ * bumps two counters. A reader takes the version when no step is in flight,
+ * reads, and keeps the result only if no step started meanwhile; otherwise
+ * it reads again.
+ *
+ * A reader that keeps losing the race pauses the writers instead: new steps
+ * wait in {@link #beginStep()} until it is done, the ones in flight finish,
+ * and it reads once with nothing changing. A torn read is never returned.
+ * Steps must not call {@link #readConsistent(Supplier)} themselves.
+ */
+@Component
+public class StateVersion {
+    private static final int MAX_ATTEMPTS = 50;
+    private static final long MAX_QUIET_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+    private final ReentrantLock pauseLock = new ReentrantLock();
+    private volatile boolean paused;
+
+    private final LongAdder consistentReads = new LongAdder();
+    private final LongAdder readRetries = new LongAdder();
+    private final LongAdder pausedReads = new LongAdder();
+
+    public void beginStep() {
+        started.incrementAndGet();
+        while (paused) {
+            // Back out so the pausing reader sees no step in flight, and wait for it to finish
+            started.decrementAndGet();
+            pauseLock.lock();
+            pauseLock.unlock();
+            started.incrementAndGet();
+        }
+    }
+
+    public void endStep() {
+        finished.incrementAndGet();
+    }
+
+    // Steps committed so far; the state only ever changes between two values of this
+    public long version() {
+        return finished.get();
+    }
+
+    // Runs reader until it sees no step in between. After MAX_ATTEMPTS it pauses the writers and reads once more
+    public <T> T readConsistent(Supplier<T> reader) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            long version = awaitQuiet(attempt);
+            T result;
+            try {
+                result = reader.get();
+            } catch (RuntimeException e) {
+                // A read racing a step can trip over half-updated objects; the retry won't
+                readRetries.increment();
+                continue;
+            }
+            // Keeps the reads above from being satisfied after the check below
+            VarHandle.acquireFence();
+            if (version >= 0 && started.get() == version) {
+                consistentReads.increment();
+                return result;
+            }
+            readRetries.increment();
+        }
+        return readPaused(reader);
+    }
+
+    private <T> T readPaused(Supplier<T> reader) {
+        pauseLock.lock();
+        try {
+            paused = true;
+            // Steps already in flight finish; new ones wait in beginStep
+            while (started.get() != finished.get()) {
+                LockSupport.parkNanos(10_000L);
+            }
+            pausedReads.increment();
+            return reader.get();
+        } finally {
+            paused = false;
+            pauseLock.unlock();
+        }
+    }
+
+    // Spins, then parks briefly, until no step is in flight; -1 if a short deadline passes first
+    private long awaitQuiet(int attempt) {
+        long deadline = System.nanoTime() + MAX_QUIET_WAIT_NANOS;
+        for (int spins = 0; ; spins++) {
+            long done = finished.get();
+            long begun = started.get();
+            if (begun == done) {
+                return begun;
+            }
+            if (System.nanoTime() > deadline) {
+                return -1;
+            }
+            if (spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(10_000L * attempt);
+            }
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("stateVersion", version());
+        metrics.put("consistentReads", consistentReads.sum());
+        metrics.put("readRetries", readRetries.sum());
+        metrics.put("pausedReads", pausedReads.sum());
+        return metrics;
+    }
+}
@@ -0,0 +1,328 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.DiscreteEvent;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Connection;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+import com.Producer.Consumer.Simulation.Program.Backend.Service.SimulationStatistics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Discrete-event alternative to MachineExecutor. Time is a virtual clock in
+ * milliseconds that jumps from one scheduled event to the next, so a whole
+ * shift runs single-threaded in as long as it takes to process its events.
+ *
+ * Works directly on Machine/ProductionQueue/Connection models, which must not
+ * be shared with a live simulation. Behaviour mirrors the real-time loop:
+ * random service time in [min, max), breakdowns costing twice the service
+ * time, a flash after every product, and a machine that holds its product
+ * while the output queue is full. A product completes when it leaves a
+ * machine with no output queue or reaches a queue no machine consumes from.
+ * Unlike the live loop, where finished products pile up in the sink, a
+ * completed product leaves the line: the sink never fills, so batch results
+ * measure the line's throughput rather than the sink's capacity.
+ */
+public class DiscreteEventEngine {
+    public static final long FLASH_TIME = 300;
+
+    private static final String[] COLORS = {"#ef4444", "#3b82f6", "#10b981", "#f59e0b", "#8b5cf6"};
+    private static final String IDLE_COLOR = "#94a3b8";
+
+    private final List<Machine> machines;
+    private final Map<String, ProductionQueue> inputQueues = new HashMap<>();
+    private final Map<String, ProductionQueue> outputQueues = new HashMap<>();
+    private final Map<String, List<Machine>> consumers = new HashMap<>();
+    private final Map<String, Deque<Machine>> blockedMachines = new HashMap<>();
+    private final ProductionQueue sourceQueue;
+    private final long productionRate;
+    private final SplittableRandom random;
+    private final SimulationStatistics statistics;
+
+    private final PriorityQueue<ScheduledEvent> futureEvents = new PriorityQueue<>();
+    private long now;
+    private long sequence;
+    private boolean started;
+
+    private long productSequence;
+    private long productsCreated;
+    private long productsRejected;
+    private long productsCompleted;
+    private long productsInSystem;
+    private long breakdowns;
+    private long eventsProcessed;
+
+    private final MetricDistribution waitTimes = new MetricDistribution();
+    private final MetricDistribution processingTimes = new MetricDistribution();
+    private final MetricDistribution cycleTimes = new MetricDistribution();
+
+    public DiscreteEventEngine(List<Machine> machines,
+                               List<ProductionQueue> queues,
+                               List<Connection> connections,
+                               long productionRate,
+                               long seed,
+                               SimulationStatistics statistics) {
+        this(machines, queues, connections, productionRate, new SplittableRandom(seed), statistics);
+    }
+
+    // random is owned by this engine from now on, e.g. one split() off a sweep's generator
+    public DiscreteEventEngine(List<Machine> machines,
+                               List<ProductionQueue> queues,
+                               List<Connection> connections,
+                               long productionRate,
+                               SplittableRandom random,
+                               SimulationStatistics statistics) {
+        if (productionRate <= 0) {
+            throw new IllegalArgumentException("Production rate must be positive: " + productionRate);
+        }
+        this.machines = machines;
+        this.productionRate = productionRate;
+        this.random = random;
+        this.statistics = statistics;
+
+        Map<String, ProductionQueue> queuesById = new HashMap<>();
+        queues.forEach(q -> queuesById.put(q.getId(), q));
+        Map<String, Machine> machinesById = new HashMap<>();
+        machines.forEach(m -> machinesById.put(m.getId(), m));
+
+        // First matching connection wins, as in SimulationService.findInputQueue/findOutputQueue
+        Set<String> destinations = new HashSet<>();
+        for (Connection connection : connections) {
+            destinations.add(connection.getTo());
+            if (queuesById.containsKey(connection.getFrom()) && machinesById.containsKey(connection.getTo())) {
+                inputQueues.putIfAbsent(connection.getTo(), queuesById.get(connection.getFrom()));
+            } else if (machinesById.containsKey(connection.getFrom()) && queuesById.containsKey(connection.getTo())) {
+                outputQueues.putIfAbsent(connection.getFrom(), queuesById.get(connection.getTo()));
+            }
+        }
+        for (Machine machine : machines) {
+            ProductionQueue input = inputQueues.get(machine.getId());
+            if (input != null) {
+                consumers.computeIfAbsent(input.getId(), id -> new ArrayList<>()).add(machine);
+            }
+            setIdle(machine);
+        }
+
+        this.sourceQueue = queues.stream()
+                .filter(q -> !destinations.contains(q.getId()))
+                .findFirst()
+                .orElse(queues.isEmpty() ? null : queues.get(0));
+    }
+
+    // ============ CLOCK ============
+
+    // Processes every event up to and including endTime, then parks the clock at endTime
+    public void runUntil(long endTime) {
+        run(Long.MAX_VALUE, endTime);
+    }
+
+    // Runs until maxCompleted products have left the line or endTime is reached, whichever comes first
+    public void run(long maxCompleted, long endTime) {
+        start();
+        while (productsCompleted < maxCompleted
+                && !futureEvents.isEmpty() && futureEvents.peek().time() <= endTime) {
+            step();
+        }
+        if (productsCompleted < maxCompleted) {
+            now = Math.max(now, endTime);
+        }
+        refreshStatistics();
+    }
+
+    // Processes the next event; false when nothing is left to happen
+    public boolean step() {
+        start();
+        ScheduledEvent event = futureEvents.poll();
+        if (event == null) {
+            return false;
+        }
+        now = event.time();
+        eventsProcessed++;
+        switch (event.type()) {
+            case PRODUCT_ARRIVAL -> handleArrival();
+            case REPAIR_COMPLETE -> beginService(event.machine(), event.duration());
+            case SERVICE_COMPLETE -> handleServiceComplete(event.machine(), event.duration());
+        }
+        return true;
+    }
+
+    public void refreshStatistics() {
+        statistics.setSimulationStartTime(0);
+        statistics.setTotalProductsInSystem((int) productsInSystem);
+        statistics.refresh(now);
+    }
+
+    private void start() {
+        if (!started) {
+            started = true;
+            if (sourceQueue != null) {
+                schedule(0, ScheduledEvent.Type.PRODUCT_ARRIVAL, null, 0);
+            }
+        }
+    }
+
+    private void schedule(long time, ScheduledEvent.Type type, Machine machine, long duration) {
+        futureEvents.add(new ScheduledEvent(time, sequence++, type, machine, duration));
+    }
+
+    // ============ EVENT HANDLERS ============
+
+    private void handleArrival() {
+        Product product = new Product(
+                "P" + (++productSequence),
+                COLORS[random.nextInt(COLORS.length)],
+                random.nextInt(1, 6),
+                now,
+                now,
+                "waiting",
+                "TypeA");
+        if (sourceQueue.addProduct(product, now)) {
+            productsCreated++;
+            productsInSystem++;
+            settle(sourceQueue);
+        } else {
+            productsRejected++;
+        }
+        schedule(now + productionRate, ScheduledEvent.Type.PRODUCT_ARRIVAL, null, 0);
+    }
+
+    private void startService(Machine machine, Product product) {
+        statistics.recordWait(now - product.getEnteredQueueAt());
+        waitTimes.add(now - product.getEnteredQueueAt());
+        machine.setCurrentProduct(product);
+        machine.setColor(product.getColor());
+        product.setStatus("processing");
+
+        long serviceTime = drawServiceTime(machine);
+        // BONUS: Machine breakdown simulation
+        if (random.nextDouble() > machine.getReliability()) {
+            breakdowns++;
+            machine.setStatus("maintenance");
+            schedule(now + serviceTime * 2, ScheduledEvent.Type.REPAIR_COMPLETE, machine, serviceTime);
+        } else {
+            beginService(machine, serviceTime);
+        }
+    }
+
+    private void beginService(Machine machine, long serviceTime) {
+        machine.setStatus("processing");
+        schedule(now + serviceTime + FLASH_TIME, ScheduledEvent.Type.SERVICE_COMPLETE, machine, serviceTime);
+    }
+
+    private void handleServiceComplete(Machine machine, long serviceTime) {
+        machine.setProcessedCount(machine.getProcessedCount() + 1);
+        machine.setTotalProcessingTime(machine.getTotalProcessingTime() + serviceTime);
+        statistics.recordProcessing(machine.getId(), serviceTime);
+        processingTimes.add(serviceTime);
+
+        Product product = machine.getCurrentProduct();
+        ProductionQueue input = inputQueues.get(machine.getId());
+        ProductionQueue output = outputQueues.get(machine.getId());
+
+        if (output == null || isSink(output)) {
+            product.setStatus("completed");
+            complete(product);
+            setIdle(machine);
+            settle(input);
+        } else {
+            product.setStatus("waiting");
+            if (output.addProduct(product, now)) {
+                setIdle(machine);
+                settle(output, input);
+            } else {
+                // Hold the product until downstream makes room
+                machine.setStatus("blocked");
+                blockedMachines.computeIfAbsent(output.getId(), id -> new ArrayDeque<>()).addLast(machine);
+            }
+        }
+    }
+
+    // Propagates hand-offs until nothing can move: blocked upstream machines fill freed
+    // slots, idle consumers pull products, and every pull may free a slot further up.
+    private void settle(ProductionQueue... changed) {
+        Deque<ProductionQueue> pending = new ArrayDeque<>();
+        for (ProductionQueue queue : changed) {
+            if (queue != null) {
+                pending.add(queue);
+            }
+        }
+        while (!pending.isEmpty()) {
+            ProductionQueue queue = pending.poll();
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+
+                Deque<Machine> blocked = blockedMachines.get(queue.getId());
+                while (blocked != null && !blocked.isEmpty()
+                        && queue.addProduct(blocked.peekFirst().getCurrentProduct(), now)) {
+                    Machine upstream = blocked.pollFirst();
+                    setIdle(upstream);
+                    ProductionQueue upstreamInput = inputQueues.get(upstream.getId());
+                    if (upstreamInput != null) {
+                        pending.add(upstreamInput);
+                    }
+                    moved = true;
+                }
+
+                for (Machine consumer : consumers.getOrDefault(queue.getId(), List.of())) {
+                    if (consumer.getCurrentProduct() != null) {
+                        continue;
+                    }
+                    Product product = queue.removeProduct();
+                    if (product == null) {
+                        break;
+                    }
+                    startService(consumer, product);
+                    moved = true;
+                }
+            }
+        }
+    }
+
+    private void complete(Product product) {
+        statistics.recordCompletion();
+        cycleTimes.add(now - product.getCreatedAt());
+        productsCompleted++;
+        productsInSystem--;
+    }
+
+    private boolean isSink(ProductionQueue queue) {
+        return !consumers.containsKey(queue.getId());
+    }
+
+    private long drawServiceTime(Machine machine) {
+        int min = machine.getMinServiceTime();
+        int max = machine.getMaxServiceTime();
+        return max > min ? random.nextInt(min, max) : min;
+    }
+
+    private void setIdle(Machine machine) {
+        machine.setCurrentProduct(null);
+        machine.setStatus("idle");
+        machine.setColor(IDLE_COLOR);
+    }
+
+    // ============ GETTERS ============
+
+    public long getNow() { return now; }
+    public List<Machine> getMachines() { return machines; }
+    public SimulationStatistics getStatistics() { return statistics; }
+    public long getProductsCreated() { return productsCreated; }
+    public long getProductsRejected() { return productsRejected; }
+    public long getProductsCompleted() { return productsCompleted; }
+    public long getProductsInSystem() { return productsInSystem; }
+    public long getBreakdowns() { return breakdowns; }
+    public long getEventsProcessed() { return eventsProcessed; }
+    public MetricDistribution getWaitTimes() { return waitTimes; }
+    public MetricDistribution getProcessingTimes() { return processingTimes; }
+    public MetricDistribution getCycleTimes() { return cycleTimes; }
+}
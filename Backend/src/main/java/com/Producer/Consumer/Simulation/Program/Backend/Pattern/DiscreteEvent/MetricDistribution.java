@@ -0,0 +1,59 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.DiscreteEvent;
+
+import com.Producer.Consumer.Simulation.Program.Backend.dto.DistributionDTO;
+
+import java.util.Arrays;
+
+/**
+ * Collects every sample of one metric in a growable primitive array so a
+ * headless run can report exact percentiles at the end.
+ */
+public class MetricDistribution {
+    private long[] samples = new long[1024];
+    private int count;
+    private double sum;
+    private double sumOfSquares;
+
+    public void add(long value) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = value;
+        sum += value;
+        sumOfSquares += (double) value * value;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    public DistributionDTO summarize() {
+        if (count == 0) {
+            return new DistributionDTO(0, 0, 0, 0, 0, 0, 0, 0, 0);
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        double mean = sum / count;
+        double variance = count > 1 ? Math.max(0, (sumOfSquares - count * mean * mean) / (count - 1)) : 0;
+        return new DistributionDTO(
+                count,
+                mean,
+                Math.sqrt(variance),
+                sorted[0],
+                percentile(sorted, 0.50),
+                percentile(sorted, 0.90),
+                percentile(sorted, 0.95),
+                percentile(sorted, 0.99),
+                sorted[count - 1]);
+    }
+
+    // Nearest-rank percentile
+    private static long percentile(long[] sorted, double fraction) {
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,23 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.DiscreteEvent;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+
+/**
+ * Entry in the future-event list. Ties on time are broken by scheduling
+ * order so a run is fully determined by its seed.
+ */
+public record ScheduledEvent(long time, long sequence, Type type, Machine machine, long duration)
+        implements Comparable<ScheduledEvent> {
+
+    public enum Type {
+        PRODUCT_ARRIVAL,  // producer drops a new product into the source queue
+        REPAIR_COMPLETE,  // broken-down machine starts servicing its product
+        SERVICE_COMPLETE  // machine finished (including flash) and releases its product
+    }
+
+    @Override
+    public int compareTo(ScheduledEvent other) {
+        int byTime = Long.compare(time, other.time);
+        return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+    }
+}
@@ -0,0 +1,48 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.DiscreteEvent;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Connection;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.ConnectionDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.MachineDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.QueueDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.SimulationConfigDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fresh, unshared model objects for one engine run. Every call to
+ * {@link #from(SimulationConfigDTO)} builds new instances, so runs never
+ * see each other's state.
+ */
+public record Topology(List<Machine> machines, List<ProductionQueue> queues, List<Connection> connections) {
+
+    public static Topology from(SimulationConfigDTO config) {
+        List<Machine> machines = new ArrayList<>();
+        if (config.getMachines() != null) {
+            for (MachineDTO dto : config.getMachines()) {
+                Machine machine = new Machine(dto.getId(), dto.getX(), dto.getY(),
+                        dto.getMinServiceTime(), dto.getMaxServiceTime());
+                if (dto.getReliability() > 0) {
+                    machine.setReliability(dto.getReliability());
+                }
+                machines.add(machine);
+            }
+        }
+        List<ProductionQueue> queues = new ArrayList<>();
+        if (config.getQueues() != null) {
+            for (QueueDTO dto : config.getQueues()) {
+                String mode = dto.getMode() != null ? dto.getMode() : ProductionQueue.MODE_PRIORITY;
+                queues.add(new ProductionQueue(dto.getId(), dto.getX(), dto.getY(), dto.getCapacity(), mode));
+            }
+        }
+        List<Connection> connections = new ArrayList<>();
+        if (config.getConnections() != null) {
+            for (ConnectionDTO dto : config.getConnections()) {
+                connections.add(new Connection(dto.getFrom(), dto.getTo()));
+            }
+        }
+        return new Topology(machines, queues, connections);
+    }
+}
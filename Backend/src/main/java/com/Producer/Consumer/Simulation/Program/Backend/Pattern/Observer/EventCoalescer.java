@@ -0,0 +1,144 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Sits in front of the observer channels and only lets real state
+ * transitions through.
+ *
+ * Machine status events that repeat the machine's last status are dropped.
+ * Within the coalescing window, bursts for one machine or one product
+ * collapse to the latest event: the first event in a window is forwarded
+ * immediately and the last one is flushed when the window closes. Events
+ * that belong to no machine or product pass straight through.
+ *
+ * Each entity has a slot that publishers claim with one atomic swap, so
+ * machine threads never block here. Slots that stayed idle for a whole
+ * window are dropped by a periodic sweep, and the last-known status of a
+ * machine is forgotten when the machine goes away.
+ */
+public class EventCoalescer {
+    private final long windowNanos;
+    private final Consumer<SimulationEvent> downstream;
+    private final ScheduledExecutorService flusher;
+
+    private final Map<String, String> lastStatus = new ConcurrentHashMap<>();
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder unchanged = new LongAdder();
+    private final LongAdder merged = new LongAdder();
+
+    // Whoever swaps an event into an empty slot owns its delivery; later events only replace it
+    private static final class Window {
+        final AtomicReference<SimulationEvent> pending = new AtomicReference<>();
+        volatile long lastEmitNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+    }
+
+    public EventCoalescer(long windowMillis, Consumer<SimulationEvent> downstream) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMillis));
+        this.downstream = downstream;
+        this.flusher = windowNanos > 0
+                ? Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                        .name("event-coalescer").daemon(true).factory())
+                : null;
+        if (flusher != null) {
+            long sweepNanos = Math.max(windowNanos, TimeUnit.SECONDS.toNanos(1));
+            flusher.scheduleWithFixedDelay(this::pruneIdle, sweepNanos, sweepNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void submit(SimulationEvent event) {
+        received.increment();
+        String entity = entityOf(event);
+        if (entity == null) {
+            forward(event);
+            return;
+        }
+        if (event.getData() instanceof MachineStatusPayload payload) {
+            String status = statusOf(payload);
+            if (status.equals(lastStatus.put(entity, status))) {
+                unchanged.increment();
+                return;
+            }
+        }
+        if (flusher == null) {
+            forward(event);
+            return;
+        }
+
+        Window window = windows.computeIfAbsent(entity, k -> new Window());
+        if (window.pending.getAndSet(event) != null) {
+            // A flush is already due and will carry this event instead
+            merged.increment();
+            return;
+        }
+        long delay = window.lastEmitNanos + windowNanos - System.nanoTime();
+        if (delay <= 0) {
+            flush(window);
+        } else {
+            flusher.schedule(() -> flush(window), delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flush(Window window) {
+        window.lastEmitNanos = System.nanoTime();
+        SimulationEvent event = window.pending.getAndSet(null);
+        if (event != null) {
+            forward(event);
+        }
+    }
+
+    // A slot removed while a publisher still holds it is harmless: its flush is already scheduled
+    private void pruneIdle() {
+        long now = System.nanoTime();
+        windows.values().removeIf(window -> window.pending.get() == null
+                && now - window.lastEmitNanos >= windowNanos);
+    }
+
+    private void forward(SimulationEvent event) {
+        forwarded.increment();
+        downstream.accept(event);
+    }
+
+    // Forget last-known statuses so the next event per machine is delivered again
+    public void reset() {
+        lastStatus.clear();
+        pruneIdle();
+    }
+
+    // Drops what is known about an entity that no longer exists
+    public void forget(String entity) {
+        lastStatus.remove(entity);
+        windows.computeIfPresent(entity, (key, window) -> window.pending.get() == null ? null : window);
+    }
+
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+    }
+
+    static String entityOf(SimulationEvent event) {
+        return event.getData() != null ? event.getData().entity() : null;
+    }
+
+    // A machine processing a new product is a change even though the status repeats
+    private static String statusOf(MachineStatusPayload payload) {
+        return payload.productId() == null ? payload.status() : payload.status() + ":" + payload.productId();
+    }
+
+    public long getReceived() { return received.sum(); }
+    public long getForwarded() { return forwarded.sum(); }
+    public long getSuppressedUnchanged() { return unchanged.sum(); }
+    public long getSuppressedCoalesced() { return merged.sum(); }
+    public long getWindowMillis() { return TimeUnit.NANOSECONDS.toMillis(windowNanos); }
+}
@@ -0,0 +1,91 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer;
+
+/**
+ * Hand-written JSON for event envelopes, appended into one reusable buffer,
+ * so encoding an event allocates only the resulting String and has no
+ * reflection or intermediate maps.
+ *
+ * Not thread-safe: use one encoder per consumer thread (each observer channel
+ * has exactly one).
+ */
+public class EventJsonEncoder {
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    // {"topic":..., "data":{"type":..., "timestamp":..., "data":{...payload}}}
+    public String encode(String topic, SimulationEvent event) {
+        StringBuilder out = buffer;
+        out.setLength(0);
+        out.append("{\"topic\":");
+        string(out, topic);
+        out.append(",\"data\":{\"type\":");
+        string(out, event.getType());
+        out.append(",\"timestamp\":").append(event.getTimestamp());
+        out.append(",\"data\":");
+        payload(out, event.getData());
+        out.append("}}");
+        return out.toString();
+    }
+
+    private static void payload(StringBuilder out, EventPayload payload) {
+        switch (payload) {
+            case null -> out.append("null");
+            case MachineStatusPayload p -> {
+                out.append("{\"machineId\":");
+                string(out, p.machineId());
+                out.append(",\"status\":");
+                string(out, p.status());
+                out.append(",\"productId\":");
+                string(out, p.productId());
+                out.append(",\"color\":");
+                string(out, p.color());
+                out.append(",\"simTime\":").append(p.simTime()).append('}');
+            }
+            case ProductMovedPayload p -> {
+                out.append("{\"productId\":");
+                string(out, p.productId());
+                out.append(",\"machineId\":");
+                string(out, p.machineId());
+                out.append(",\"queueId\":");
+                string(out, p.queueId());
+                out.append(",\"queueSize\":").append(p.queueSize());
+                out.append(",\"simTime\":").append(p.simTime()).append('}');
+            }
+            case ProductCreatedPayload p -> {
+                out.append("{\"productId\":");
+                string(out, p.productId());
+                out.append(",\"queueId\":");
+                string(out, p.queueId());
+                out.append(",\"priority\":").append(p.priority());
+                out.append(",\"color\":");
+                string(out, p.color());
+                out.append(",\"simTime\":").append(p.simTime()).append('}');
+            }
+        }
+    }
+
+    private static void string(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,14 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer;
+
+/**
+ * Body of a {@link SimulationEvent}. Payloads are small immutable records
+ * holding ids, status codes and simulated timestamps only, never live model
+ * objects, so an event costs the same to queue and encode however many
+ * products are in the system.
+ */
+public sealed interface EventPayload
+        permits MachineStatusPayload, ProductMovedPayload, ProductCreatedPayload {
+
+    // Coalescing key ("machine:M1", "queue:Q2"), or null if the event is not about a machine or queue
+    String entity();
+}
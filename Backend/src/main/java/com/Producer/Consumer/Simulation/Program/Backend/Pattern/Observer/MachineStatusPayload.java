@@ -0,0 +1,19 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+
+// productId is null unless the machine holds a product
+public record MachineStatusPayload(String machineId, String status, String productId,
+                                   String color, long simTime) implements EventPayload {
+
+    public static MachineStatusPayload of(Machine machine, long simTime) {
+        return new MachineStatusPayload(machine.getId(), machine.getStatus(),
+                machine.getCurrentProduct() != null ? machine.getCurrentProduct().getId() : null,
+                machine.getColor(), simTime);
+    }
+
+    @Override
+    public String entity() {
+        return "machine:" + machineId;
+    }
+}
@@ -0,0 +1,210 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One observer's inbox: a preallocated multi-producer/single-consumer ring
+ * drained by a dedicated daemon thread.
+ *
+ * Publishing claims a slot with one CAS and unparks the consumer only when it
+ * is asleep, so machine threads never wait on an observer's I/O. What happens
+ * when the ring is full is decided by the {@link OverflowPolicy}.
+ */
+public class ObserverChannel {
+    private static final long IDLE_PARK_NANOS = 10_000_000L;
+    private static final long BLOCK_BACKOFF_NANOS = 20_000L;
+
+    private final SimulationObserver observer;
+    private final OverflowPolicy policy;
+    private final int capacity;
+    private final SimulationEvent[] slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // consumer thread only
+
+    // COALESCE overflow: latest event per entity in publish order, guarded by itself.
+    // While it holds anything every new event goes here too, so nothing overtakes it
+    private final Map<String, SimulationEvent> pending = new LinkedHashMap<>();
+    private volatile boolean overflowing;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    private final Thread consumer;
+    private volatile boolean sleeping;
+    private volatile boolean running = true;
+
+    public ObserverChannel(SimulationObserver observer, int capacity, OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Observer buffer size must be positive: " + capacity);
+        }
+        this.observer = observer;
+        this.policy = policy;
+        this.capacity = capacity;
+        this.slots = new SimulationEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.consumer = Thread.ofPlatform()
+                .name("events-" + observer.getClass().getSimpleName())
+                .daemon(true)
+                .start(this::drainLoop);
+    }
+
+    public void publish(SimulationEvent event) {
+        if (!running) {
+            return;
+        }
+        published.increment();
+        if (overflowing || !offer(event)) {
+            switch (policy) {
+                case DROP -> dropped.increment();
+                case COALESCE -> coalesce(event);
+                case BLOCK -> {
+                    while (running && !offer(event)) {
+                        wakeConsumer();
+                        LockSupport.parkNanos(BLOCK_BACKOFF_NANOS);
+                    }
+                }
+            }
+        }
+        wakeConsumer();
+    }
+
+    private void coalesce(SimulationEvent event) {
+        synchronized (pending) {
+            overflowing = true;
+            // Re-inserting moves the entity to the end, after everything published before it
+            if (pending.remove(coalesceKey(event)) != null) {
+                coalesced.increment();
+            }
+            pending.put(coalesceKey(event), event);
+        }
+    }
+
+    private boolean offer(SimulationEvent event) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos % capacity);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots[index] = event;
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    private SimulationEvent poll() {
+        int index = (int) (head % capacity);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        SimulationEvent event = slots[index];
+        slots[index] = null;
+        sequences.set(index, head + capacity);
+        head++;
+        return event;
+    }
+
+    private void wakeConsumer() {
+        if (sleeping) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            SimulationEvent event = poll();
+            if (event != null) {
+                deliver(event);
+                continue;
+            }
+            if (overflowing) {
+                drainPending();
+                continue;
+            }
+            sleeping = true;
+            // Re-check after announcing sleep so a concurrent publish is not missed
+            if (sequences.get((int) (head % capacity)) != head + 1 && !overflowing) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            sleeping = false;
+        }
+    }
+
+    private void drainPending() {
+        List<SimulationEvent> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                // Everything coalesced has been delivered; publishers may use the ring again
+                overflowing = false;
+                return;
+            }
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        // A publisher may have filled a slot just before switching to pending; that event is older
+        SimulationEvent event;
+        while ((event = poll()) != null) {
+            deliver(event);
+        }
+        batch.forEach(this::deliver);
+    }
+
+    private void deliver(SimulationEvent event) {
+        try {
+            observer.update(event);
+            delivered.increment();
+        } catch (Exception e) {
+            System.err.println("❌ Observer " + observer.getClass().getSimpleName()
+                    + " failed on " + event.getType() + ": " + e.getMessage());
+        }
+    }
+
+    // Under COALESCE the latest event about an entity replaces the earlier ones; events without one, per type
+    static String coalesceKey(SimulationEvent event) {
+        String entity = EventCoalescer.entityOf(event);
+        if (entity == null && event.getData() instanceof ProductCreatedPayload created) {
+            entity = "created:" + created.productId();
+        }
+        return entity != null ? entity : String.valueOf(event.getType());
+    }
+
+    public void close() {
+        running = false;
+        LockSupport.unpark(consumer);
+    }
+
+    public SimulationObserver getObserver() { return observer; }
+    public OverflowPolicy getPolicy() { return policy; }
+    public int getCapacity() { return capacity; }
+    public long getPublished() { return published.sum(); }
+    public long getDelivered() { return delivered.sum(); }
+    public long getDropped() { return dropped.sum(); }
+    public long getCoalesced() { return coalesced.sum(); }
+    public int getBacklog() {
+        int coalescedBacklog;
+        synchronized (pending) {
+            coalescedBacklog = pending.size();
+        }
+        return (int) Math.max(0, tail.get() - head) + coalescedBacklog;
+    }
+}
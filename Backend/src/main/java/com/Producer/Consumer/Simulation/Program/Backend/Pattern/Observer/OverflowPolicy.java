@@ -0,0 +1,17 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer;
+
+// What a publisher does when an observer's ring is full
+public enum OverflowPolicy {
+    DROP,     // discard the new event and count it
+    COALESCE, // keep only the latest pending event per entity until the ring drains
+    BLOCK;    // wait for the observer to catch up
+
+    public static OverflowPolicy from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown overflow policy: " + value
+                    + " (expected drop, coalesce or block)");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer;
+
+public record ProductCreatedPayload(String productId, String queueId, int priority,
+                                    String color, long simTime) implements EventPayload {
+
+    // Every creation is distinct, so these are never merged
+    @Override
+    public String entity() {
+        return null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer;
+
+// queueSize is the destination queue's depth right after the move.
+// Moves are merged per product: the latest tells where the product is now
+public record ProductMovedPayload(String productId, String machineId, String queueId,
+                                  int queueSize, long simTime) implements EventPayload {
+
+    @Override
+    public String entity() {
+        return "product:" + productId;
+    }
+}
@@ -7,10 +7,10 @@ import lombok.Data;
 @AllArgsConstructor
 public class SimulationEvent {
     private String type;
-    private Object data;
+    private EventPayload data;
     private long timestamp;
 
-    public SimulationEvent(String type, Object data) {
+    public SimulationEvent(String type, EventPayload data) {
         this.type = type;
         this.data = data;
         this.timestamp = System.currentTimeMillis();
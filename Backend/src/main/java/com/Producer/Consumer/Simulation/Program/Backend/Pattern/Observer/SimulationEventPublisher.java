@@ -1,26 +1,98 @@
 package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer;
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Asynchronous fan-out: every observer gets its own {@link ObserverChannel},
+ * so publishing from a machine thread is an enqueue per observer and
+ * observers (WebSocket I/O in particular) run on their own threads.
+ * An {@link EventCoalescer} in front drops repeats and merges bursts first.
+ */
 @Component
 public class SimulationEventPublisher {
-    private final List<SimulationObserver> observers = new ArrayList<>();
+    private final List<ObserverChannel> channels = new CopyOnWriteArrayList<>();
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+    private final EventCoalescer coalescer;
 
-    public synchronized void subscribe(SimulationObserver observer) {
-        observers.add(observer);
+    public SimulationEventPublisher(@Value("${simulation.events.buffer-size:1024}") int bufferSize,
+                                    @Value("${simulation.events.overflow:coalesce}") String overflowPolicy,
+                                    @Value("${simulation.events.coalesce-window-ms:50}") long coalesceWindowMillis) {
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = OverflowPolicy.from(overflowPolicy);
+        this.coalescer = new EventCoalescer(coalesceWindowMillis, this::fanOut);
     }
 
-    public synchronized void unsubscribe(SimulationObserver observer) {
-        observers.remove(observer);
+    public void subscribe(SimulationObserver observer) {
+        channels.add(new ObserverChannel(observer, bufferSize, overflowPolicy));
     }
 
-    public synchronized void notifyObservers(SimulationEvent event) {
-        System.out.println("📢 Notifying observers count = " + observers.size());
+    public void unsubscribe(SimulationObserver observer) {
+        for (ObserverChannel channel : channels) {
+            if (channel.getObserver() == observer) {
+                channels.remove(channel);
+                channel.close();
+            }
+        }
+    }
+
+    public void notifyObservers(SimulationEvent event) {
+        coalescer.submit(event);
+    }
 
-        for (SimulationObserver observer : observers) {
-            observer.update(event);
+    private void fanOut(SimulationEvent event) {
+        for (ObserverChannel channel : channels) {
+            channel.publish(event);
         }
     }
-}
\ No newline at end of file
+
+    public List<ObserverChannel> getChannels() {
+        return List.copyOf(channels);
+    }
+
+    // Called when a run starts or a snapshot is restored, so every machine's first status is delivered
+    public void resetChangeTracking() {
+        coalescer.reset();
+    }
+
+    public void forgetMachine(String machineId) {
+        coalescer.forget("machine:" + machineId);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("received", coalescer.getReceived());
+        metrics.put("forwarded", coalescer.getForwarded());
+        metrics.put("suppressedUnchanged", coalescer.getSuppressedUnchanged());
+        metrics.put("suppressedCoalesced", coalescer.getSuppressedCoalesced());
+        metrics.put("coalesceWindowMs", coalescer.getWindowMillis());
+        metrics.put("overflowPolicy", overflowPolicy.name().toLowerCase());
+
+        Map<String, Object> observers = new LinkedHashMap<>();
+        for (ObserverChannel channel : channels) {
+            Map<String, Object> channelMetrics = new LinkedHashMap<>();
+            channelMetrics.put("published", channel.getPublished());
+            channelMetrics.put("delivered", channel.getDelivered());
+            channelMetrics.put("dropped", channel.getDropped());
+            channelMetrics.put("coalesced", channel.getCoalesced());
+            channelMetrics.put("backlog", channel.getBacklog());
+            observers.put(channel.getObserver().getClass().getSimpleName(), channelMetrics);
+        }
+        metrics.put("observers", observers);
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coalescer.shutdown();
+        channels.forEach(ObserverChannel::close);
+        channels.clear();
+    }
+}
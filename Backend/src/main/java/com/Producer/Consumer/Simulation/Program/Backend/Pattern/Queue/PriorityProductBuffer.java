@@ -0,0 +1,83 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Priority queue engine behind {@link com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue}.
+ *
+ * Products are bucketed by priority (highest first) and every bucket keeps
+ * arrival order, so equal priorities are served FIFO. Insert and remove cost
+ * O(log p) where p is the number of distinct priorities (never more than n),
+ * and walking the buckets yields the queue in service order without sorting.
+ *
+ * Unbounded and not thread-safe: the owning queue checks capacity and
+ * guards every call with its lock.
+ */
+public class PriorityProductBuffer implements ProductBuffer {
+    private static final long serialVersionUID = 1L;
+
+    private final TreeMap<Integer, ArrayDeque<Product>> buckets = new TreeMap<>(Collections.reverseOrder());
+    private int size;
+
+    // Rebuilt lazily, only after the contents changed
+    private transient List<Product> orderedView;
+
+    @Override
+    public boolean offer(Product product) {
+        buckets.computeIfAbsent(product.getPriority(), priority -> new ArrayDeque<>()).addLast(product);
+        size++;
+        orderedView = null;
+        return true;
+    }
+
+    @Override
+    public Product poll() {
+        Map.Entry<Integer, ArrayDeque<Product>> highest = buckets.firstEntry();
+        if (highest == null) {
+            return null;
+        }
+        ArrayDeque<Product> bucket = highest.getValue();
+        Product product = bucket.pollFirst();
+        if (bucket.isEmpty()) {
+            buckets.pollFirstEntry();
+        }
+        size--;
+        orderedView = null;
+        return product;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Read-only list of the products in the order they will be served.
+     * The same instance is returned until the buffer is modified again.
+     */
+    @Override
+    public List<Product> orderedView() {
+        List<Product> view = orderedView;
+        if (view == null) {
+            List<Product> ordered = new ArrayList<>(size);
+            for (ArrayDeque<Product> bucket : buckets.values()) {
+                ordered.addAll(bucket);
+            }
+            view = Collections.unmodifiableList(ordered);
+            orderedView = view;
+        }
+        return view;
+    }
+
+    @Override
+    public boolean isConcurrent() {
+        return false;
+    }
+}
@@ -0,0 +1,31 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Storage strategy behind a ProductionQueue. The queue owns capacity checks,
+ * blocking and wake-ups; a buffer only stores and orders products.
+ */
+public interface ProductBuffer extends Serializable {
+
+    // Returns false when the buffer has no free slot
+    boolean offer(Product product);
+
+    // Returns null when the buffer is empty
+    Product poll();
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Products in service order, read-only
+    List<Product> orderedView();
+
+    // True when offer/poll are safe without the queue lock
+    boolean isConcurrent();
+}
@@ -0,0 +1,6 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue;
+
+// Last padding layer; RingProductBuffer's own fields start after it
+abstract class RingBufferFields extends RingBufferHead {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+}
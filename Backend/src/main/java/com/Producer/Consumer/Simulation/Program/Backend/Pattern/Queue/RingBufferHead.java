@@ -0,0 +1,5 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue;
+
+abstract class RingBufferHead extends RingBufferPadBeforeHead {
+    volatile long head; // next position to claim for dequeue
+}
@@ -0,0 +1,5 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue;
+
+abstract class RingBufferPadBeforeHead extends RingBufferTail {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
@@ -0,0 +1,8 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue;
+
+// Cache-line padding around the ring's producer and consumer cursors.
+// Field layout follows the class hierarchy, so each cursor sits between
+// 64 bytes of unused longs and never shares a line with the other.
+abstract class RingBufferPadBeforeTail {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
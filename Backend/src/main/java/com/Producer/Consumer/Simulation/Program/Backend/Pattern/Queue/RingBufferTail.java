@@ -0,0 +1,5 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue;
+
+abstract class RingBufferTail extends RingBufferPadBeforeTail {
+    volatile long tail; // next position to claim for enqueue
+}
@@ -0,0 +1,156 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free bounded multi-producer/multi-consumer ring buffer for
+ * high-fan-in stations.
+ *
+ * Every slot carries a sequence number that tells producers when it is free
+ * and consumers when it is filled, so offer and poll are a single CAS on the
+ * padded tail/head cursor. Slots are preallocated. Ordering is FIFO: product
+ * priority is not honoured in this mode.
+ */
+public class RingProductBuffer extends RingBufferFields implements ProductBuffer {
+    private static final long serialVersionUID = 1L;
+
+    private static final VarHandle TAIL;
+    private static final VarHandle HEAD;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TAIL = lookup.findVarHandle(RingBufferTail.class, "tail", long.class);
+            HEAD = lookup.findVarHandle(RingBufferHead.class, "head", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private transient int capacity;
+    private transient Product[] slots;
+    private transient AtomicLongArray sequences;
+
+    public RingProductBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ring buffer capacity must be positive: " + capacity);
+        }
+        init(capacity);
+    }
+
+    private void init(int capacity) {
+        this.capacity = capacity;
+        this.slots = new Product[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.head = 0;
+        this.tail = 0;
+    }
+
+    @Override
+    public boolean offer(Product product) {
+        long pos = tail;
+        while (true) {
+            int index = (int) (pos % capacity);
+            long seq = sequences.get(index);
+            long diff = seq - pos;
+            if (diff == 0) {
+                if (TAIL.compareAndSet(this, pos, pos + 1)) {
+                    slots[index] = product;
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail;
+            } else if (diff < 0) {
+                return false; // full: the slot still holds an unconsumed product
+            } else {
+                pos = tail;
+            }
+        }
+    }
+
+    @Override
+    public Product poll() {
+        long pos = head;
+        while (true) {
+            int index = (int) (pos % capacity);
+            long seq = sequences.get(index);
+            long diff = seq - (pos + 1);
+            if (diff == 0) {
+                if (HEAD.compareAndSet(this, pos, pos + 1)) {
+                    Product product = slots[index];
+                    slots[index] = null;
+                    sequences.set(index, pos + capacity);
+                    return product;
+                }
+                pos = head;
+            } else if (diff < 0) {
+                return null; // empty: the slot has not been filled yet
+            } else {
+                pos = head;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        // Read head first so a concurrent dequeue can only make the result larger, then clamp
+        long h = head;
+        long t = tail;
+        return (int) Math.max(0, Math.min(capacity, t - h));
+    }
+
+    // Best-effort FIFO snapshot; slots claimed but not yet published are skipped
+    @Override
+    public List<Product> orderedView() {
+        long h = head;
+        long t = tail;
+        List<Product> ordered = new ArrayList<>((int) Math.max(0, Math.min(capacity, t - h)));
+        for (long pos = h; pos < t; pos++) {
+            int index = (int) (pos % capacity);
+            if (sequences.get(index) == pos + 1) {
+                Product product = slots[index];
+                if (product != null) {
+                    ordered.add(product);
+                }
+            }
+        }
+        return Collections.unmodifiableList(ordered);
+    }
+
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(capacity);
+        out.writeObject(new ArrayList<>(orderedView()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        init(in.readInt());
+        for (Product product : (List<Product>) in.readObject()) {
+            offer(product);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list stored as fixed-size chunks. Building one from a previous
+ * version reuses every chunk whose elements are the very same instances, so
+ * consecutive snapshots of a mostly unchanged product list share nearly all
+ * of their storage.
+ */
+public final class ChunkedList<T> extends AbstractList<T> implements RandomAccess {
+    static final int CHUNK_SIZE = 64;
+
+    private final Object[][] chunks;
+    private final int size;
+
+    private ChunkedList(Object[][] chunks, int size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    // The new list holds items; chunks equal (by identity) to previous's are shared rather than copied
+    public static <T> ChunkedList<T> of(List<T> items, ChunkedList<T> previous) {
+        int count = (items.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Object[][] chunks = new Object[count][];
+        for (int c = 0; c < count; c++) {
+            int from = c * CHUNK_SIZE;
+            int length = Math.min(CHUNK_SIZE, items.size() - from);
+            Object[] old = previous != null && c < previous.chunks.length ? previous.chunks[c] : null;
+            chunks[c] = old != null && sameElements(old, items, from, length) ? old : copy(items, from, length);
+        }
+        return new ChunkedList<>(chunks, items.size());
+    }
+
+    // previous with the given indices replaced and items appended; only the chunks that change are copied
+    public static <T> ChunkedList<T> updated(ChunkedList<T> previous, Map<Integer, T> changed, List<T> appended) {
+        if (changed.isEmpty() && appended.isEmpty()) {
+            return previous;
+        }
+        int size = previous.size + appended.size();
+        int count = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Object[][] chunks = Arrays.copyOf(previous.chunks, count);
+        boolean[] copied = new boolean[count];
+        // Appending grows the last chunk, so it and any new ones get fresh arrays
+        int firstGrown = appended.isEmpty() ? count : previous.size / CHUNK_SIZE;
+        for (int c = firstGrown; c < count; c++) {
+            int length = Math.min(CHUNK_SIZE, size - c * CHUNK_SIZE);
+            chunks[c] = c < previous.chunks.length ? Arrays.copyOf(previous.chunks[c], length) : new Object[length];
+            copied[c] = true;
+        }
+        for (int i = 0; i < appended.size(); i++) {
+            int index = previous.size + i;
+            chunks[index / CHUNK_SIZE][index % CHUNK_SIZE] = appended.get(i);
+        }
+        changed.forEach((index, item) -> {
+            int c = index / CHUNK_SIZE;
+            if (!copied[c]) {
+                chunks[c] = chunks[c].clone();
+                copied[c] = true;
+            }
+            chunks[c][index % CHUNK_SIZE] = item;
+        });
+        return new ChunkedList<>(chunks, size);
+    }
+
+    private static boolean sameElements(Object[] chunk, List<?> items, int from, int length) {
+        if (chunk.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chunk[i] != items.get(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object[] copy(List<?> items, int from, int length) {
+        Object[] chunk = new Object[length];
+        for (int i = 0; i < length; i++) {
+            chunk[i] = items.get(from + i);
+        }
+        return chunk;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return (T) chunks[index / CHUNK_SIZE][index % CHUNK_SIZE];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    int chunkCount() {
+        return chunks.length;
+    }
+
+    // Identity of a chunk tells whether two lists share that stretch of storage
+    Object[] chunk(int index) {
+        return chunks[index];
+    }
+}
@@ -0,0 +1,34 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+
+import java.util.Map;
+import java.util.Objects;
+
+// currentProduct is the shared ProductState of the product on the machine, or null
+public record MachineState(String id, double x, double y, int minServiceTime, int maxServiceTime,
+                           String status, ProductState currentProduct, String color, int processedCount,
+                           long totalProcessingTime, double reliability) {
+
+    public boolean matches(Machine machine, ProductState product) {
+        return id.equals(machine.getId())
+                && currentProduct == product
+                && processedCount == machine.getProcessedCount()
+                && totalProcessingTime == machine.getTotalProcessingTime()
+                && x == machine.getX() && y == machine.getY()
+                && minServiceTime == machine.getMinServiceTime()
+                && maxServiceTime == machine.getMaxServiceTime()
+                && reliability == machine.getReliability()
+                && Objects.equals(status, machine.getStatus())
+                && Objects.equals(color, machine.getColor());
+    }
+
+    // productsById holds the restored products, so the machine and the product list share one instance
+    public Machine toMachine(Map<String, Product> productsById) {
+        Product product = currentProduct == null ? null
+                : productsById.computeIfAbsent(currentProduct.id(), id -> currentProduct.toProduct());
+        return new Machine(id, x, y, minServiceTime, maxServiceTime, status, product, color,
+                processedCount, totalProcessingTime, reliability);
+    }
+}
@@ -0,0 +1,29 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+
+import java.util.Objects;
+
+// Immutable copy of a product; snapshots share one instance for as long as the product doesn't change
+public record ProductState(String id, String color, int priority, long createdAt, long enteredQueueAt,
+                           String status, String productType) {
+
+    public static ProductState of(Product product) {
+        return new ProductState(product.getId(), product.getColor(), product.getPriority(),
+                product.getCreatedAt(), product.getEnteredQueueAt(), product.getStatus(), product.getProductType());
+    }
+
+    public boolean matches(Product product) {
+        return id.equals(product.getId())
+                && priority == product.getPriority()
+                && createdAt == product.getCreatedAt()
+                && enteredQueueAt == product.getEnteredQueueAt()
+                && Objects.equals(status, product.getStatus())
+                && Objects.equals(color, product.getColor())
+                && Objects.equals(productType, product.getProductType());
+    }
+
+    public Product toProduct() {
+        return new Product(id, color, priority, createdAt, enteredQueueAt, status, productType);
+    }
+}
@@ -0,0 +1,34 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+
+import java.util.List;
+import java.util.Map;
+
+// products are in service order and are the same ProductState instances the snapshot's product list holds
+public record QueueState(String id, double x, double y, int capacity, String mode, List<ProductState> products) {
+
+    public boolean matches(ProductionQueue queue, List<ProductState> contents) {
+        if (!id.equals(queue.getId()) || capacity != queue.getCapacity()
+                || x != queue.getX() || y != queue.getY() || !mode.equals(queue.getMode())
+                || products.size() != contents.size()) {
+            return false;
+        }
+        for (int i = 0; i < products.size(); i++) {
+            if (products.get(i) != contents.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public ProductionQueue toQueue(Map<String, Product> productsById) {
+        ProductionQueue queue = new ProductionQueue(id, x, y, capacity, mode);
+        for (ProductState state : products) {
+            Product product = productsById.computeIfAbsent(state.id(), key -> state.toProduct());
+            queue.addProduct(product, state.enteredQueueAt());
+        }
+        return queue;
+    }
+}
@@ -0,0 +1,221 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Connection;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+import com.Producer.Consumer.Simulation.Program.Backend.Service.SimulationStatistics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Captures snapshots as immutable state that shares everything unchanged
+ * with the previous capture.
+ *
+ * Each live entity is compared field by field with the state recorded for
+ * it last time; only entities that differ get a new record. Unchanged
+ * machines, queues and products, product list chunks and the connection
+ * list are the previous snapshot's own instances. A capture therefore
+ * allocates in proportion to what changed, and never serializes anything.
+ *
+ * The product list only grows between restores, and a product that is in
+ * no queue and on no machine has left the line and never changes again.
+ * So only products still in a queue or on a machine, those that just left,
+ * and new ones are looked at; the rest of the list is the previous one's
+ * chunks. What this costs follows the products in flight, not every product
+ * ever created.
+ *
+ * {@link #capture} only reads; {@link #commit} makes a capture the baseline
+ * for the next one, so a read that is thrown away leaves nothing behind.
+ */
+public class SnapshotBuilder {
+    private Baseline baseline = Baseline.EMPTY;
+
+    // A product that can still change, with its place in the product list and its last recorded state
+    private record Tracked(int index, ProductState state) {
+    }
+
+    private record Baseline(SimulationSnapshot snapshot, Map<String, MachineState> machineStates,
+                            Map<String, QueueState> queueStates, Map<Product, Tracked> liveProducts,
+                            Product lastProduct) {
+        static final Baseline EMPTY = new Baseline(null, Map.of(), Map.of(), Map.of(), null);
+    }
+
+    // A snapshot together with what the next capture compares against once it is committed
+    public static final class Capture {
+        private final Baseline baseline;
+
+        private Capture(Baseline baseline) {
+            this.baseline = baseline;
+        }
+
+        public SimulationSnapshot snapshot() {
+            return baseline.snapshot();
+        }
+    }
+
+    public synchronized Capture capture(List<Machine> machines, List<ProductionQueue> queues,
+                                        List<Product> products, List<Connection> connections,
+                                        SimulationStatistics statistics) {
+        Baseline base = baseline;
+        SimulationSnapshot previous = base.snapshot();
+        Map<Product, ProductState> inFlight = new IdentityHashMap<>();
+
+        Map<String, MachineState> nextMachines = new HashMap<>();
+        List<MachineState> machineList = new ArrayList<>(machines.size());
+        for (Machine machine : machines) {
+            Product held = machine.getCurrentProduct();
+            ProductState product = held == null ? null : stateOf(held, base, inFlight);
+            MachineState state = base.machineStates().get(machine.getId());
+            if (state == null || !state.matches(machine, product)) {
+                state = new MachineState(machine.getId(), machine.getX(), machine.getY(),
+                        machine.getMinServiceTime(), machine.getMaxServiceTime(), machine.getStatus(), product,
+                        machine.getColor(), machine.getProcessedCount(), machine.getTotalProcessingTime(),
+                        machine.getReliability());
+            }
+            nextMachines.put(state.id(), state);
+            machineList.add(state);
+        }
+
+        Map<String, QueueState> nextQueues = new HashMap<>();
+        List<QueueState> queueList = new ArrayList<>(queues.size());
+        for (ProductionQueue queue : queues) {
+            List<ProductState> contents = new ArrayList<>();
+            for (Product product : queue.getProducts()) {
+                contents.add(stateOf(product, base, inFlight));
+            }
+            QueueState state = base.queueStates().get(queue.getId());
+            if (state == null || !state.matches(queue, contents)) {
+                state = new QueueState(queue.getId(), queue.getX(), queue.getY(), queue.getCapacity(),
+                        queue.getMode(), List.copyOf(contents));
+            }
+            nextQueues.put(state.id(), state);
+            queueList.add(state);
+        }
+
+        Map<Product, Tracked> nextLive = new IdentityHashMap<>();
+        ChunkedList<ProductState> productList = continues(base, products)
+                ? appendChanges(base, products, inFlight, nextLive)
+                : rebuildProducts(base, products, inFlight, nextLive);
+
+        SimulationSnapshot snapshot = new SimulationSnapshot(
+                System.currentTimeMillis(),
+                sharedIfEqual(machineList, previous == null ? null : previous.getMachines()),
+                sharedIfEqual(queueList, previous == null ? null : previous.getQueues()),
+                productList,
+                connectionsOf(connections, previous),
+                StatisticsState.of(statistics));
+        Product last = products.isEmpty() ? null : products.get(products.size() - 1);
+        return new Capture(new Baseline(snapshot, nextMachines, nextQueues, nextLive, last));
+    }
+
+    public synchronized SimulationSnapshot commit(Capture capture) {
+        baseline = capture.baseline;
+        return capture.snapshot();
+    }
+
+    // Forget everything, e.g. after a restore replaced all live objects
+    public synchronized void reset() {
+        baseline = Baseline.EMPTY;
+    }
+
+    private static ProductState stateOf(Product product, Baseline base, Map<Product, ProductState> inFlight) {
+        ProductState state = inFlight.get(product);
+        if (state == null) {
+            Tracked tracked = base.liveProducts().get(product);
+            state = tracked != null && tracked.state().matches(product) ? tracked.state() : ProductState.of(product);
+            inFlight.put(product, state);
+        }
+        return state;
+    }
+
+    // True if products is the baseline's list with products appended, i.e. nothing was replaced
+    private static boolean continues(Baseline base, List<Product> products) {
+        if (base.snapshot() == null) {
+            return false;
+        }
+        int known = base.snapshot().getProducts().size();
+        if (products.size() < known || (known > 0 && products.get(known - 1) != base.lastProduct())) {
+            return false;
+        }
+        for (Map.Entry<Product, Tracked> entry : base.liveProducts().entrySet()) {
+            if (products.get(entry.getValue().index()) != entry.getKey()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ChunkedList<ProductState> appendChanges(Baseline base, List<Product> products,
+                                                           Map<Product, ProductState> inFlight,
+                                                           Map<Product, Tracked> nextLive) {
+        ChunkedList<ProductState> before = base.snapshot().getProducts();
+        Map<Integer, ProductState> changed = new HashMap<>();
+        for (Map.Entry<Product, Tracked> entry : base.liveProducts().entrySet()) {
+            Product product = entry.getKey();
+            Tracked tracked = entry.getValue();
+            ProductState state = inFlight.get(product);
+            if (state != null) {
+                nextLive.put(product, new Tracked(tracked.index(), state));
+            } else {
+                // Left the line since the last capture: record its final state, then stop looking at it
+                state = tracked.state().matches(product) ? tracked.state() : ProductState.of(product);
+            }
+            if (state != tracked.state()) {
+                changed.put(tracked.index(), state);
+            }
+        }
+        List<ProductState> appended = new ArrayList<>(products.size() - before.size());
+        for (int i = before.size(); i < products.size(); i++) {
+            appended.add(track(products.get(i), i, inFlight, nextLive));
+        }
+        return ChunkedList.updated(before, changed, appended);
+    }
+
+    private static ChunkedList<ProductState> rebuildProducts(Baseline base, List<Product> products,
+                                                             Map<Product, ProductState> inFlight,
+                                                             Map<Product, Tracked> nextLive) {
+        List<ProductState> all = new ArrayList<>(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            all.add(track(products.get(i), i, inFlight, nextLive));
+        }
+        return ChunkedList.of(all, base.snapshot() == null ? null : base.snapshot().getProducts());
+    }
+
+    private static ProductState track(Product product, int index, Map<Product, ProductState> inFlight,
+                                      Map<Product, Tracked> nextLive) {
+        ProductState state = inFlight.get(product);
+        if (state == null) {
+            return ProductState.of(product);
+        }
+        nextLive.put(product, new Tracked(index, state));
+        return state;
+    }
+
+    private static <T> List<T> sharedIfEqual(List<T> items, List<T> previous) {
+        if (previous != null && previous.size() == items.size()) {
+            boolean same = true;
+            for (int i = 0; i < items.size() && same; i++) {
+                same = items.get(i) == previous.get(i);
+            }
+            if (same) {
+                return previous;
+            }
+        }
+        return List.copyOf(items);
+    }
+
+    private static List<Connection> connectionsOf(List<Connection> connections, SimulationSnapshot previous) {
+        List<Connection> last = previous == null ? null : previous.getConnections();
+        if (last != null && last.equals(connections)) {
+            return last;
+        }
+        List<Connection> copy = new ArrayList<>(connections.size());
+        connections.forEach(c -> copy.add(new Connection(c.getFrom(), c.getTo())));
+        return List.copyOf(copy);
+    }
+}
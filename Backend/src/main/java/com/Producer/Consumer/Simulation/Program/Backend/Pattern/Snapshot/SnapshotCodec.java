@@ -0,0 +1,569 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Connection;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact binary form of snapshots for the history store.
+ *
+ * A keyframe holds a whole snapshot. A delta holds only what differs from
+ * the snapshot before it: changed product list entries, machines and queue
+ * headers that changed, and for each queue whose contents changed, the
+ * products that left and arrived (so a busy queue costs a few bytes per
+ * move, however long it is). Statistics and the
+ * machine and queue order are small and always written.
+ *
+ * Queue contents are written as product ids and resolved against the
+ * snapshot's product list on decode; a machine's current product is
+ * written in full.
+ */
+final class SnapshotCodec {
+    static final byte KEYFRAME = 1;
+    static final byte DELTA = 2;
+    private static final byte CONTENTS_EDIT = 0;
+    private static final byte CONTENTS_FULL = 1;
+
+    private SnapshotCodec() {
+    }
+
+    static boolean isKeyframe(byte[] encoded) {
+        return encoded[0] == KEYFRAME;
+    }
+
+    static byte[] encodeKeyframe(SimulationSnapshot snapshot) {
+        return write(out -> {
+            out.writeByte(KEYFRAME);
+            out.writeLong(snapshot.getTimestamp());
+            writeStatistics(out, snapshot.getStatistics());
+            writeConnections(out, snapshot.getConnections());
+            List<ProductState> products = snapshot.getProducts();
+            out.writeInt(products.size());
+            for (ProductState product : products) {
+                writeProduct(out, product);
+            }
+            out.writeInt(snapshot.getMachines().size());
+            for (MachineState machine : snapshot.getMachines()) {
+                writeMachine(out, machine);
+            }
+            out.writeInt(snapshot.getQueues().size());
+            for (QueueState queue : snapshot.getQueues()) {
+                out.writeUTF(queue.id());
+                writeQueueHeader(out, queue);
+                writeIds(out, queue.products(), 0, queue.products().size());
+            }
+        });
+    }
+
+    static byte[] encodeDelta(SimulationSnapshot base, SimulationSnapshot snapshot) {
+        return write(out -> {
+            out.writeByte(DELTA);
+            out.writeLong(snapshot.getTimestamp());
+            writeStatistics(out, snapshot.getStatistics());
+            boolean connectionsChanged = !snapshot.getConnections().equals(base.getConnections());
+            out.writeBoolean(connectionsChanged);
+            if (connectionsChanged) {
+                writeConnections(out, snapshot.getConnections());
+            }
+            writeProductChanges(out, base.getProducts(), snapshot.getProducts());
+
+            Map<String, MachineState> baseMachines = new HashMap<>();
+            base.getMachines().forEach(m -> baseMachines.put(m.id(), m));
+            out.writeInt(snapshot.getMachines().size());
+            for (MachineState machine : snapshot.getMachines()) {
+                MachineState before = baseMachines.get(machine.id());
+                boolean changed = before != machine && !machine.equals(before);
+                out.writeBoolean(changed);
+                if (changed) {
+                    writeMachine(out, machine);
+                } else {
+                    out.writeUTF(machine.id());
+                }
+            }
+
+            Map<String, QueueState> baseQueues = new HashMap<>();
+            base.getQueues().forEach(q -> baseQueues.put(q.id(), q));
+            out.writeInt(snapshot.getQueues().size());
+            for (QueueState queue : snapshot.getQueues()) {
+                out.writeUTF(queue.id());
+                QueueState before = baseQueues.get(queue.id());
+                if (before == queue) {
+                    out.writeByte(0);
+                    continue;
+                }
+                boolean headerChanged = before == null || before.x() != queue.x() || before.y() != queue.y()
+                        || before.capacity() != queue.capacity() || !before.mode().equals(queue.mode());
+                out.writeByte(headerChanged ? 3 : 2);
+                if (headerChanged) {
+                    writeQueueHeader(out, queue);
+                }
+                writeContentsDiff(out, before == null ? List.of() : before.products(), queue.products());
+            }
+        });
+    }
+
+    /**
+     * Mutable state that keyframes and deltas are applied to. Applying a
+     * delta costs in proportion to what it changed; the immutable snapshot
+     * is only built when asked for.
+     */
+    static final class Replay {
+        private long timestamp;
+        private StatisticsState statistics;
+        private List<Connection> connections = List.of();
+        private final ArrayList<ProductState> products = new ArrayList<>();
+        private final Map<String, ProductState> productsById = new HashMap<>();
+        private List<MachineState> machines = List.of();
+        private final Map<String, QueueState> queueHeaders = new LinkedHashMap<>();
+        private final Map<String, ArrayList<String>> queueContents = new HashMap<>();
+        private List<String> queueOrder = List.of();
+        private ChunkedList<ProductState> lastProducts;
+
+        // Reads from the buffer in place, so a slice of a mapped journal segment is never copied
+        void apply(ByteBuffer encoded) {
+            read(encoded, in -> {
+                if (in.readByte() == KEYFRAME) {
+                    applyKeyframe(in);
+                } else {
+                    applyDelta(in);
+                }
+                return null;
+            });
+        }
+
+        private void applyKeyframe(DataInputStream in) throws IOException {
+            timestamp = in.readLong();
+            statistics = readStatistics(in);
+            connections = readConnections(in);
+            products.clear();
+            productsById.clear();
+            int productCount = in.readInt();
+            for (int i = 0; i < productCount; i++) {
+                ProductState product = readProduct(in);
+                products.add(product);
+                productsById.put(product.id(), product);
+            }
+            int machineCount = in.readInt();
+            List<MachineState> nextMachines = new ArrayList<>(machineCount);
+            for (int i = 0; i < machineCount; i++) {
+                nextMachines.add(readMachine(in));
+            }
+            machines = nextMachines;
+            queueHeaders.clear();
+            queueContents.clear();
+            int queueCount = in.readInt();
+            List<String> order = new ArrayList<>(queueCount);
+            for (int i = 0; i < queueCount; i++) {
+                String id = in.readUTF();
+                order.add(id);
+                queueHeaders.put(id, readQueueHeader(in, id));
+                queueContents.put(id, readIds(in));
+            }
+            queueOrder = order;
+        }
+
+        private void applyDelta(DataInputStream in) throws IOException {
+            timestamp = in.readLong();
+            statistics = readStatistics(in);
+            if (in.readBoolean()) {
+                connections = readConnections(in);
+            }
+
+            int productCount = in.readInt();
+            while (products.size() > productCount) {
+                forget(products.remove(products.size() - 1));
+            }
+            while (products.size() < productCount) {
+                products.add(null);
+            }
+            for (int changed = in.readInt(); changed > 0; changed--) {
+                int index = in.readInt();
+                ProductState product = readProduct(in);
+                forget(products.set(index, product));
+                productsById.put(product.id(), product);
+            }
+
+            Map<String, MachineState> before = new HashMap<>();
+            machines.forEach(m -> before.put(m.id(), m));
+            int machineCount = in.readInt();
+            List<MachineState> nextMachines = new ArrayList<>(machineCount);
+            for (int i = 0; i < machineCount; i++) {
+                nextMachines.add(in.readBoolean() ? readMachine(in) : before.get(in.readUTF()));
+            }
+            machines = nextMachines;
+
+            int queueCount = in.readInt();
+            List<String> order = new ArrayList<>(queueCount);
+            for (int i = 0; i < queueCount; i++) {
+                String id = in.readUTF();
+                order.add(id);
+                byte flags = in.readByte();
+                if (flags == 0) {
+                    continue;
+                }
+                if ((flags & 1) != 0) {
+                    queueHeaders.put(id, readQueueHeader(in, id));
+                }
+                readContentsDiff(in, queueContents.computeIfAbsent(id, q -> new ArrayList<>()));
+            }
+            queueHeaders.keySet().retainAll(order);
+            queueContents.keySet().retainAll(order);
+            queueOrder = order;
+        }
+
+        // productsById only holds what is in products; a product's id may already point at its newer state
+        private void forget(ProductState product) {
+            if (product != null && productsById.get(product.id()) == product) {
+                productsById.remove(product.id());
+            }
+        }
+
+        int indexedProducts() {
+            return productsById.size();
+        }
+
+        SimulationSnapshot snapshot() {
+            lastProducts = ChunkedList.of(products, lastProducts);
+            List<QueueState> queues = new ArrayList<>(queueOrder.size());
+            for (String id : queueOrder) {
+                QueueState header = queueHeaders.get(id);
+                List<ProductState> contents = new ArrayList<>();
+                for (String productId : queueContents.getOrDefault(id, new ArrayList<>())) {
+                    ProductState product = productsById.get(productId);
+                    if (product != null) {
+                        contents.add(product);
+                    }
+                }
+                queues.add(new QueueState(id, header.x(), header.y(), header.capacity(), header.mode(),
+                        List.copyOf(contents)));
+            }
+            return new SimulationSnapshot(timestamp, List.copyOf(machines), List.copyOf(queues),
+                    lastProducts, connections, statistics);
+        }
+    }
+
+    // Entries whose chunk is shared are skipped without looking at them
+    private static void writeProductChanges(DataOutputStream out, ChunkedList<ProductState> before,
+                                            ChunkedList<ProductState> after) throws IOException {
+        List<Integer> changed = new ArrayList<>();
+        for (int c = 0; c < after.chunkCount(); c++) {
+            if (c < before.chunkCount() && before.chunk(c) == after.chunk(c)) {
+                continue;
+            }
+            int from = c * ChunkedList.CHUNK_SIZE;
+            int to = Math.min(after.size(), from + ChunkedList.CHUNK_SIZE);
+            for (int i = from; i < to; i++) {
+                ProductState now = after.get(i);
+                ProductState was = i < before.size() ? before.get(i) : null;
+                if (was != now && !now.equals(was)) {
+                    changed.add(i);
+                }
+            }
+        }
+        out.writeInt(after.size());
+        out.writeInt(changed.size());
+        for (int index : changed) {
+            out.writeInt(index);
+            writeProduct(out, after.get(index));
+        }
+    }
+
+    /**
+     * Queues only ever lose and gain products; the ones that stay keep their
+     * relative order. So the change is written as the positions removed from
+     * the old contents and the (position, id) pairs inserted into the new
+     * ones. Anything else (e.g. a mode switch reordered the queue) is written
+     * as the full id list.
+     */
+    private static void writeContentsDiff(DataOutputStream out, List<ProductState> before,
+                                          List<ProductState> after) throws IOException {
+        Set<String> afterIds = new HashSet<>(after.size() * 2);
+        after.forEach(p -> afterIds.add(p.id()));
+        Set<String> beforeIds = new HashSet<>(before.size() * 2);
+        before.forEach(p -> beforeIds.add(p.id()));
+        List<Integer> removed = new ArrayList<>();
+        for (int i = 0; i < before.size(); i++) {
+            if (!afterIds.contains(before.get(i).id())) {
+                removed.add(i);
+            }
+        }
+        List<Integer> inserted = new ArrayList<>();
+        for (int i = 0; i < after.size(); i++) {
+            if (!beforeIds.contains(after.get(i).id())) {
+                inserted.add(i);
+            }
+        }
+        if (!keepsOrder(before, after, afterIds, beforeIds)) {
+            out.writeByte(CONTENTS_FULL);
+            writeIds(out, after, 0, after.size());
+            return;
+        }
+        out.writeByte(CONTENTS_EDIT);
+        out.writeInt(removed.size());
+        for (int index : removed) {
+            out.writeInt(index);
+        }
+        out.writeInt(inserted.size());
+        for (int index : inserted) {
+            out.writeInt(index);
+            out.writeUTF(after.get(index).id());
+        }
+    }
+
+    // True if the products present in both lists appear in the same order in each
+    private static boolean keepsOrder(List<ProductState> before, List<ProductState> after,
+                                      Set<String> afterIds, Set<String> beforeIds) {
+        int j = 0;
+        for (ProductState product : before) {
+            if (!afterIds.contains(product.id())) {
+                continue;
+            }
+            while (j < after.size() && !beforeIds.contains(after.get(j).id())) {
+                j++;
+            }
+            if (j >= after.size() || !after.get(j).id().equals(product.id())) {
+                return false;
+            }
+            j++;
+        }
+        return true;
+    }
+
+    private static void readContentsDiff(DataInputStream in, ArrayList<String> contents) throws IOException {
+        if (in.readByte() == CONTENTS_FULL) {
+            contents.clear();
+            contents.addAll(readIds(in));
+            return;
+        }
+        int removedCount = in.readInt();
+        int[] removed = new int[removedCount];
+        for (int i = 0; i < removedCount; i++) {
+            removed[i] = in.readInt();
+        }
+        // Compact in one pass instead of shifting the list once per removal
+        if (removedCount > 0) {
+            int write = 0;
+            int next = 0;
+            for (int read = 0; read < contents.size(); read++) {
+                if (next < removedCount && removed[next] == read) {
+                    next++;
+                } else {
+                    contents.set(write++, contents.get(read));
+                }
+            }
+            contents.subList(write, contents.size()).clear();
+        }
+        for (int insertedCount = in.readInt(); insertedCount > 0; insertedCount--) {
+            int index = in.readInt();
+            contents.add(index, in.readUTF());
+        }
+    }
+
+    private static void writeIds(DataOutputStream out, List<ProductState> products, int from, int to)
+            throws IOException {
+        out.writeInt(to - from);
+        for (int i = from; i < to; i++) {
+            out.writeUTF(products.get(i).id());
+        }
+    }
+
+    private static ArrayList<String> readIds(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        ArrayList<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(in.readUTF());
+        }
+        return ids;
+    }
+
+    private static void writeProduct(DataOutputStream out, ProductState product) throws IOException {
+        out.writeUTF(product.id());
+        writeString(out, product.color());
+        out.writeInt(product.priority());
+        out.writeLong(product.createdAt());
+        out.writeLong(product.enteredQueueAt());
+        writeString(out, product.status());
+        writeString(out, product.productType());
+    }
+
+    private static ProductState readProduct(DataInputStream in) throws IOException {
+        return new ProductState(in.readUTF(), readString(in), in.readInt(), in.readLong(), in.readLong(),
+                readString(in), readString(in));
+    }
+
+    private static void writeMachine(DataOutputStream out, MachineState machine) throws IOException {
+        out.writeUTF(machine.id());
+        out.writeDouble(machine.x());
+        out.writeDouble(machine.y());
+        out.writeInt(machine.minServiceTime());
+        out.writeInt(machine.maxServiceTime());
+        writeString(out, machine.status());
+        writeString(out, machine.color());
+        out.writeInt(machine.processedCount());
+        out.writeLong(machine.totalProcessingTime());
+        out.writeDouble(machine.reliability());
+        out.writeBoolean(machine.currentProduct() != null);
+        if (machine.currentProduct() != null) {
+            writeProduct(out, machine.currentProduct());
+        }
+    }
+
+    private static MachineState readMachine(DataInputStream in) throws IOException {
+        String id = in.readUTF();
+        double x = in.readDouble();
+        double y = in.readDouble();
+        int minServiceTime = in.readInt();
+        int maxServiceTime = in.readInt();
+        String status = readString(in);
+        String color = readString(in);
+        int processedCount = in.readInt();
+        long totalProcessingTime = in.readLong();
+        double reliability = in.readDouble();
+        ProductState product = in.readBoolean() ? readProduct(in) : null;
+        return new MachineState(id, x, y, minServiceTime, maxServiceTime, status, product, color,
+                processedCount, totalProcessingTime, reliability);
+    }
+
+    private static void writeQueueHeader(DataOutputStream out, QueueState queue) throws IOException {
+        out.writeDouble(queue.x());
+        out.writeDouble(queue.y());
+        out.writeInt(queue.capacity());
+        out.writeUTF(queue.mode());
+    }
+
+    private static QueueState readQueueHeader(DataInputStream in, String id) throws IOException {
+        return new QueueState(id, in.readDouble(), in.readDouble(), in.readInt(), in.readUTF(), List.of());
+    }
+
+    private static void writeConnections(DataOutputStream out, List<Connection> connections) throws IOException {
+        out.writeInt(connections.size());
+        for (Connection connection : connections) {
+            out.writeUTF(connection.getFrom());
+            out.writeUTF(connection.getTo());
+        }
+    }
+
+    private static List<Connection> readConnections(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<Connection> connections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            connections.add(new Connection(in.readUTF(), in.readUTF()));
+        }
+        return List.copyOf(connections);
+    }
+
+    private static void writeStatistics(DataOutputStream out, StatisticsState statistics) throws IOException {
+        out.writeBoolean(statistics != null);
+        if (statistics == null) {
+            return;
+        }
+        out.writeInt(statistics.totalProductsProcessed());
+        out.writeDouble(statistics.averageWaitTime());
+        out.writeDouble(statistics.averageProcessingTime());
+        out.writeInt(statistics.machineUtilization().size());
+        for (Map.Entry<String, Double> entry : statistics.machineUtilization().entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeDouble(entry.getValue());
+        }
+        out.writeInt(statistics.machineProcessedCount().size());
+        for (Map.Entry<String, Integer> entry : statistics.machineProcessedCount().entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+        out.writeDouble(statistics.throughput());
+        out.writeInt(statistics.totalProductsInSystem());
+        out.writeLong(statistics.simulationStartTime());
+    }
+
+    private static StatisticsState readStatistics(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int processed = in.readInt();
+        double averageWaitTime = in.readDouble();
+        double averageProcessingTime = in.readDouble();
+        Map<String, Double> utilization = new LinkedHashMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            utilization.put(in.readUTF(), in.readDouble());
+        }
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            counts.put(in.readUTF(), in.readInt());
+        }
+        return new StatisticsState(processed, averageWaitTime, averageProcessingTime, Map.copyOf(utilization),
+                Map.copyOf(counts), in.readDouble(), in.readInt(), in.readLong());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private static byte[] write(Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> T read(ByteBuffer encoded, Reader<T> reader) {
+        try (DataInputStream in = new DataInputStream(new BufferInput(encoded))) {
+            return reader.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class BufferInput extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInput(ByteBuffer buffer) {
+            this.buffer = buffer.duplicate();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return length == 0 ? 0 : -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+    }
+}
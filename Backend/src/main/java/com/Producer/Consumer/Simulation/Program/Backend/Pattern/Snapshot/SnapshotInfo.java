@@ -0,0 +1,30 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot;
+
+/**
+ * What the replay list shows for a snapshot, recorded when it is saved so
+ * listing never decodes a snapshot body. The id is stable: it keeps
+ * naming the same snapshot as older ones are evicted.
+ */
+public record SnapshotInfo(long id, long timestamp, boolean keyframe, int sizeBytes,
+                           int machineCount, int queueCount, int productCount, int queuedProducts,
+                           int totalProductsProcessed, int totalProductsInSystem, double throughput,
+                           boolean processing) {
+
+    static SnapshotInfo of(long id, SimulationSnapshot snapshot, boolean keyframe, int sizeBytes) {
+        int queued = 0;
+        for (QueueState queue : snapshot.getQueues()) {
+            queued += queue.products().size();
+        }
+        boolean processing = false;
+        for (MachineState machine : snapshot.getMachines()) {
+            processing |= "processing".equals(machine.status());
+        }
+        StatisticsState statistics = snapshot.getStatistics();
+        return new SnapshotInfo(id, snapshot.getTimestamp(), keyframe, sizeBytes,
+                snapshot.getMachines().size(), snapshot.getQueues().size(), snapshot.getProducts().size(), queued,
+                statistics == null ? 0 : statistics.totalProductsProcessed(),
+                statistics == null ? 0 : statistics.totalProductsInSystem(),
+                statistics == null ? 0 : statistics.throughput(),
+                processing);
+    }
+}
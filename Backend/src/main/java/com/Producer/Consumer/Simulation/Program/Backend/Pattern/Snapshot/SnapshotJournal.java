@@ -0,0 +1,332 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only snapshot journal on disk, so history survives a restart and
+ * can grow past what the heap holds.
+ *
+ * The journal is a list of segment files named after the id of their first
+ * record. Each segment is memory-mapped: an append writes the record
+ * straight into the mapping, and readers get a read-only slice of it, so a
+ * snapshot is never copied onto the heap to be replayed. Next to each
+ * segment an index file, also mapped, holds the end offset of every record;
+ * on reopen it locates records without scanning the segment, and only the
+ * tail is checked (by CRC) and recovered after a crash.
+ *
+ * A segment rolls when the next record doesn't fit. Callers start every
+ * segment with a keyframe, so whole segments can be deleted once the
+ * journal exceeds its retention size or age without orphaning deltas.
+ */
+public class SnapshotJournal {
+    private static final String LOG_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+    // length, crc, id, keyframeId, then the SnapshotInfo fields
+    static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 8 + 1 + 6 * 4 + 8;
+    private static final byte FLAG_KEYFRAME = 1;
+    private static final byte FLAG_PROCESSING = 2;
+
+    public record Record(SnapshotInfo info, long keyframeId, ByteBuffer data) {
+    }
+
+    private static final class Segment {
+        final long baseId;
+        final Path logPath;
+        final Path indexPath;
+        final MappedByteBuffer log;
+        final MappedByteBuffer index;
+        int count;
+        int position;
+        long lastTimestamp;
+
+        Segment(long baseId, Path logPath, Path indexPath, MappedByteBuffer log, MappedByteBuffer index) {
+            this.baseId = baseId;
+            this.logPath = logPath;
+            this.indexPath = indexPath;
+            this.log = log;
+            this.index = index;
+        }
+
+        int capacity() {
+            return index.capacity() / Integer.BYTES;
+        }
+
+        int endOf(int record) {
+            return index.getInt(record * Integer.BYTES);
+        }
+
+        int startOf(int record) {
+            return record == 0 ? 0 : endOf(record - 1);
+        }
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long retentionBytes;
+    private final long retentionMillis;
+    // Oldest first; only the last one is appended to
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private List<Record> recovered = new ArrayList<>();
+    private final CRC32 crc = new CRC32();
+    private long segmentsDeleted;
+
+    // retentionMillis <= 0 means segments are kept regardless of age
+    public SnapshotJournal(Path directory, int segmentBytes, long retentionBytes, long retentionMillis)
+            throws IOException {
+        this.directory = directory;
+        this.segmentBytes = Math.max(segmentBytes, HEADER_BYTES * 16);
+        this.retentionBytes = retentionBytes;
+        this.retentionMillis = retentionMillis;
+        Files.createDirectories(directory);
+        List<Path> logs;
+        try (Stream<Path> files = Files.list(directory)) {
+            logs = files.filter(path -> path.getFileName().toString().endsWith(LOG_SUFFIX)).sorted().toList();
+        }
+        for (Path logPath : logs) {
+            Segment segment = openSegment(logPath);
+            if (segment.count == 0) {
+                // Rolled just before a crash; the next append starts a fresh one
+                delete(segment);
+                continue;
+            }
+            if (!segments.isEmpty() && segment.baseId != segments.getLast().baseId + segments.getLast().count) {
+                // A gap means ids no longer line up with positions; keep only the newer, contiguous run
+                while (!segments.isEmpty()) {
+                    delete(segments.removeFirst());
+                }
+                recovered.clear();
+            }
+            segments.addLast(segment);
+            for (int i = 0; i < segment.count; i++) {
+                recovered.add(readRecord(segment, i));
+            }
+        }
+    }
+
+    // Records found on disk when the journal was opened, oldest first; handed over once
+    public List<Record> takeRecoveredRecords() {
+        List<Record> records = recovered;
+        recovered = new ArrayList<>();
+        return records;
+    }
+
+    // Whether a record of this size still goes into the current segment, without rolling
+    public boolean fits(int length) {
+        Segment active = segments.peekLast();
+        return active != null && active.count < active.capacity()
+                && active.position + HEADER_BYTES + length <= active.log.capacity();
+    }
+
+    public Record append(SnapshotInfo info, long keyframeId, byte[] data) throws IOException {
+        if (!fits(data.length)) {
+            roll(info.id(), data.length);
+        }
+        Segment active = segments.getLast();
+        if (info.id() != active.baseId + active.count) {
+            throw new IllegalStateException("Snapshot " + info.id() + " is out of sequence in the journal");
+        }
+        int start = active.position;
+        ByteBuffer log = active.log;
+        log.position(start + 8);
+        log.putLong(info.id());
+        log.putLong(keyframeId);
+        log.putLong(info.timestamp());
+        log.put((byte) ((info.keyframe() ? FLAG_KEYFRAME : 0) | (info.processing() ? FLAG_PROCESSING : 0)));
+        log.putInt(info.machineCount());
+        log.putInt(info.queueCount());
+        log.putInt(info.productCount());
+        log.putInt(info.queuedProducts());
+        log.putInt(info.totalProductsProcessed());
+        log.putInt(info.totalProductsInSystem());
+        log.putDouble(info.throughput());
+        log.put(data);
+        log.putInt(start, data.length);
+        log.putInt(start + 4, checksum(log, start, data.length));
+        // The record is complete before the index points past it
+        active.index.putInt(active.count * Integer.BYTES, start + HEADER_BYTES + data.length);
+        active.count++;
+        active.position = start + HEADER_BYTES + data.length;
+        active.lastTimestamp = info.timestamp();
+        applyRetention();
+        return new Record(info, keyframeId, payload(active, start, data.length));
+    }
+
+    // Id of the oldest record still on disk, or -1 when the journal is empty
+    public long firstId() {
+        for (Segment segment : segments) {
+            if (segment.count > 0) {
+                return segment.baseId;
+            }
+        }
+        return -1;
+    }
+
+    public void clear() {
+        while (!segments.isEmpty()) {
+            delete(segments.removeFirst());
+        }
+        recovered.clear();
+    }
+
+    public void flush() {
+        Segment active = segments.peekLast();
+        if (active != null) {
+            active.log.force();
+            active.index.force();
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        long diskBytes = 0;
+        for (Segment segment : segments) {
+            diskBytes += segment.position;
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("journalDirectory", directory.toAbsolutePath().toString());
+        metrics.put("journalSegments", segments.size());
+        metrics.put("journalBytes", diskBytes);
+        metrics.put("journalRetentionBytes", retentionBytes);
+        metrics.put("journalSegmentsDeleted", segmentsDeleted);
+        return metrics;
+    }
+
+    private void roll(long baseId, int length) throws IOException {
+        Segment previous = segments.peekLast();
+        if (previous != null) {
+            previous.log.force();
+            previous.index.force();
+            if (previous.count == 0) {
+                delete(segments.removeLast());
+            }
+        }
+        int size = Math.max(segmentBytes, HEADER_BYTES + length);
+        Path logPath = directory.resolve(String.format("%020d", baseId) + LOG_SUFFIX);
+        segments.addLast(new Segment(baseId, logPath, indexPathOf(logPath),
+                map(logPath, size), map(indexPathOf(logPath), indexBytes(size))));
+    }
+
+    // Drops whole segments from the front, never the one being written to
+    private void applyRetention() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.position;
+        }
+        long cutoff = retentionMillis > 0 ? System.currentTimeMillis() - retentionMillis : Long.MIN_VALUE;
+        while (segments.size() > 1
+                && (total > retentionBytes || segments.getFirst().lastTimestamp < cutoff)) {
+            Segment oldest = segments.removeFirst();
+            total -= oldest.position;
+            delete(oldest);
+            segmentsDeleted++;
+        }
+    }
+
+    private Segment openSegment(Path logPath) throws IOException {
+        String name = logPath.getFileName().toString();
+        long baseId = Long.parseLong(name.substring(0, name.length() - LOG_SUFFIX.length()));
+        int size = (int) Math.max(Files.size(logPath), HEADER_BYTES);
+        Segment segment = new Segment(baseId, logPath, indexPathOf(logPath),
+                map(logPath, size), map(indexPathOf(logPath), indexBytes(size)));
+        // Trust the index up to the last entry that checks out, then pick up records written after it
+        int count = 0;
+        while (count < segment.capacity() && segment.endOf(count) > segment.startOf(count)
+                && segment.endOf(count) <= size) {
+            count++;
+        }
+        while (count > 0 && !valid(segment, segment.startOf(count - 1), baseId + count - 1)) {
+            count--;
+        }
+        int position = segment.startOf(count);
+        while (count < segment.capacity() && valid(segment, position, baseId + count)) {
+            position += HEADER_BYTES + segment.log.getInt(position);
+            segment.index.putInt(count * Integer.BYTES, position);
+            count++;
+        }
+        for (int i = count; i < segment.capacity() && segment.index.getInt(i * Integer.BYTES) != 0; i++) {
+            segment.index.putInt(i * Integer.BYTES, 0);
+        }
+        segment.count = count;
+        segment.position = position;
+        if (count > 0) {
+            segment.lastTimestamp = segment.log.getLong(segment.startOf(count - 1) + 24);
+        }
+        return segment;
+    }
+
+    private boolean valid(Segment segment, int start, long expectedId) {
+        ByteBuffer log = segment.log;
+        if (start + HEADER_BYTES > log.capacity()) {
+            return false;
+        }
+        int length = log.getInt(start);
+        return length > 0 && start + HEADER_BYTES + length <= log.capacity()
+                && log.getLong(start + 8) == expectedId
+                && log.getInt(start + 4) == checksum(log, start, length);
+    }
+
+    private Record readRecord(Segment segment, int record) {
+        ByteBuffer log = segment.log;
+        int start = segment.startOf(record);
+        int length = log.getInt(start);
+        byte flags = log.get(start + 32);
+        SnapshotInfo info = new SnapshotInfo(log.getLong(start + 8), log.getLong(start + 24),
+                (flags & FLAG_KEYFRAME) != 0, length,
+                log.getInt(start + 33), log.getInt(start + 37), log.getInt(start + 41), log.getInt(start + 45),
+                log.getInt(start + 49), log.getInt(start + 53), log.getDouble(start + 57),
+                (flags & FLAG_PROCESSING) != 0);
+        return new Record(info, log.getLong(start + 16), payload(segment, start, length));
+    }
+
+    private ByteBuffer payload(Segment segment, int start, int length) {
+        return segment.log.slice(start + HEADER_BYTES, length).asReadOnlyBuffer();
+    }
+
+    // Covers everything after the checksum field: the rest of the header and the payload
+    private int checksum(ByteBuffer log, int start, int length) {
+        crc.reset();
+        crc.update(log.slice(start + 8, HEADER_BYTES - 8 + length));
+        return (int) crc.getValue();
+    }
+
+    private void delete(Segment segment) {
+        try {
+            Files.deleteIfExists(segment.logPath);
+            Files.deleteIfExists(segment.indexPath);
+        } catch (IOException e) {
+            // Windows refuses to delete a file that is still mapped; it goes once the mapping is collected
+            System.err.println("⚠️ Could not delete journal segment " + segment.logPath + ": " + e.getMessage());
+            segment.logPath.toFile().deleteOnExit();
+            segment.indexPath.toFile().deleteOnExit();
+        }
+    }
+
+    // Every record is at least a header long, so one entry per header-sized slot never overflows
+    private static int indexBytes(int segmentSize) {
+        return segmentSize / HEADER_BYTES * Integer.BYTES;
+    }
+
+    private static Path indexPathOf(Path logPath) {
+        String name = logPath.getFileName().toString();
+        return logPath.resolveSibling(name.substring(0, name.length() - LOG_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
@@ -1,37 +1,287 @@
 package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Snapshot history stored as keyframes and compact deltas (see
+ * {@link SnapshotCodec}), bounded by a byte budget.
+ *
+ * A snapshot is saved as a delta against the one before it, unless the
+ * deltas since the last keyframe already outweigh that keyframe or number
+ * keyframeInterval; then it becomes a new keyframe. Any point is rebuilt by
+ * replaying from its keyframe. When the budget (or the optional count
+ * limit) is exceeded, the oldest keyframe goes together with the deltas
+ * that depend on it.
+ *
+ * Entries live in a ring buffer and carry consecutive ids, so lookup by id
+ * or position is an array index. Snapshots are taken at a roughly fixed
+ * interval, so lookup by time interpolates straight to the right slot.
+ *
+ * With a {@link SnapshotJournal} the encoded snapshots live in its mapped
+ * segments instead of on the heap, history reloads from disk on startup,
+ * and the journal's retention replaces the byte budget and count limit.
+ */
 public class SnapshotManager {
-    private final Deque<SimulationSnapshot> snapshots = new LinkedList<>();
-    private final int maxSnapshots = 50;
+    // Rough per-entry bookkeeping on top of the encoded bytes
+    private static final int ENTRY_OVERHEAD = 96;
 
-    public void saveSnapshot(SimulationSnapshot snapshot) {
-        if (snapshots.size() >= maxSnapshots) {
-            snapshots.removeFirst();
+    // keyframeId: the entry to start replaying from (its own id for a keyframe)
+    private record Entry(SnapshotInfo info, long keyframeId, ByteBuffer data) {
+    }
+
+    private Entry[] ring = new Entry[64];
+    private int head;
+    private int count;
+    private long nextId;
+
+    private final long maxBytes;
+    private final int maxSnapshots;
+    private final int keyframeInterval;
+    private final SnapshotJournal journal;
+
+    private long bytes;
+    private long lastKeyframeId = -1;
+    private int lastKeyframeSize;
+    private int deltasSinceKeyframe;
+    private long deltaBytesSinceKeyframe;
+    // Delta base: the last saved snapshot, kept as the live object
+    private SimulationSnapshot latest;
+
+    // maxSnapshots <= 0 means only the byte budget applies
+    public SnapshotManager(long maxBytes, int maxSnapshots, int keyframeInterval) {
+        this.maxBytes = maxBytes;
+        this.maxSnapshots = maxSnapshots;
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        this.journal = null;
+    }
+
+    // Picks up whatever the journal already holds; the first new snapshot is a keyframe
+    public SnapshotManager(SnapshotJournal journal, int keyframeInterval) {
+        this.maxBytes = Long.MAX_VALUE;
+        this.maxSnapshots = 0;
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        this.journal = journal;
+        for (SnapshotJournal.Record record : journal.takeRecoveredRecords()) {
+            append(new Entry(record.info(), record.keyframeId(), record.data()));
+            nextId = record.info().id() + 1;
+        }
+    }
+
+    public synchronized SnapshotInfo saveSnapshot(SimulationSnapshot snapshot) {
+        byte[] data = null;
+        if (latest != null && deltasSinceKeyframe < keyframeInterval) {
+            data = SnapshotCodec.encodeDelta(latest, snapshot);
+            // A new journal segment must start with a keyframe so old segments can be dropped whole
+            if (deltaBytesSinceKeyframe + data.length > lastKeyframeSize
+                    || (journal != null && !journal.fits(data.length))) {
+                data = null;
+            }
+        }
+        long id = nextId++;
+        boolean keyframe = data == null;
+        if (keyframe) {
+            data = SnapshotCodec.encodeKeyframe(snapshot);
+            lastKeyframeId = id;
+            lastKeyframeSize = data.length;
+            deltasSinceKeyframe = 0;
+            deltaBytesSinceKeyframe = 0;
+        } else {
+            deltasSinceKeyframe++;
+            deltaBytesSinceKeyframe += data.length;
+        }
+        SnapshotInfo info = SnapshotInfo.of(id, snapshot, keyframe, data.length);
+        if (journal != null) {
+            SnapshotJournal.Record record;
+            try {
+                record = journal.append(info, lastKeyframeId, data);
+            } catch (IOException e) {
+                nextId--;
+                latest = null;
+                throw new UncheckedIOException("Could not write snapshot to the journal", e);
+            }
+            append(new Entry(info, lastKeyframeId, record.data()));
+            latest = snapshot;
+            dropDeletedSegments();
+            return info;
         }
-        snapshots.addLast(snapshot);
+        append(new Entry(info, lastKeyframeId, ByteBuffer.wrap(data)));
+        bytes += data.length + ENTRY_OVERHEAD;
+        latest = snapshot;
+        evict();
+        return info;
     }
 
-    public SimulationSnapshot getLatestSnapshot() {
-        return snapshots.peekLast();
+    private void append(Entry entry) {
+        if (count == ring.length) {
+            Entry[] grown = new Entry[ring.length * 2];
+            for (int i = 0; i < count; i++) {
+                grown[i] = at(i);
+            }
+            ring = grown;
+            head = 0;
+        }
+        ring[(head + count) % ring.length] = entry;
+        count++;
+    }
+
+    private Entry at(int position) {
+        return ring[(head + position) % ring.length];
+    }
+
+    // Forgets entries whose journal segment was deleted by retention
+    private void dropDeletedSegments() {
+        long firstId = journal.firstId();
+        while (count > 0 && at(0).info().id() < firstId) {
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            count--;
+        }
     }
 
-    public SimulationSnapshot getSnapshot(int index) {
-        if (index >= 0 && index < snapshots.size()) {
-            return (SimulationSnapshot) snapshots.toArray()[index];
+    // Drops whole keyframe groups from the front, never the group being written to
+    private void evict() {
+        while (bytes > maxBytes || (maxSnapshots > 0 && count > maxSnapshots)) {
+            int groupEnd = 1;
+            while (groupEnd < count && !at(groupEnd).info().keyframe()) {
+                groupEnd++;
+            }
+            if (groupEnd >= count) {
+                return;
+            }
+            for (int i = 0; i < groupEnd; i++) {
+                bytes -= at(0).data().capacity() + ENTRY_OVERHEAD;
+                ring[head] = null;
+                head = (head + 1) % ring.length;
+                count--;
+            }
         }
-        return null;
     }
 
-    public List<SimulationSnapshot> getAllSnapshots() {
-        return new ArrayList<>(snapshots);
+    // Position of the entry with this id, or -1 if it was evicted or never existed
+    private int positionOf(long id) {
+        if (count == 0) {
+            return -1;
+        }
+        long position = id - at(0).info().id();
+        return position >= 0 && position < count ? (int) position : -1;
+    }
+
+    public synchronized SimulationSnapshot getLatestSnapshot() {
+        return latest;
     }
 
-    public void clear() {
-        snapshots.clear();
+    public synchronized SimulationSnapshot getSnapshotById(long id) {
+        int position = positionOf(id);
+        if (position < 0) {
+            return null;
+        }
+        if (position == count - 1 && latest != null) {
+            return latest;
+        }
+        SnapshotCodec.Replay replay = new SnapshotCodec.Replay();
+        for (int i = positionOf(at(position).keyframeId()); i <= position; i++) {
+            replay.apply(at(i).data());
+        }
+        return replay.snapshot();
+    }
+
+    public synchronized SnapshotInfo getInfo(long id) {
+        int position = positionOf(id);
+        return position < 0 ? null : at(position).info();
+    }
+
+    // The latest snapshot taken at or before timestamp, or null if history starts later
+    public synchronized SnapshotInfo getInfoAt(long timestamp) {
+        if (count == 0 || timestamp < at(0).info().timestamp()) {
+            return null;
+        }
+        long first = at(0).info().timestamp();
+        long last = at(count - 1).info().timestamp();
+        if (timestamp >= last) {
+            return at(count - 1).info();
+        }
+        // Interpolate, then step; a few steps at most unless the interval changed mid-run
+        int position = (int) ((timestamp - first) * (count - 1) / Math.max(1, last - first));
+        for (int steps = 0; steps < 8; steps++) {
+            if (at(position).info().timestamp() > timestamp) {
+                position--;
+            } else if (position + 1 < count && at(position + 1).info().timestamp() <= timestamp) {
+                position++;
+            } else {
+                return at(position).info();
+            }
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (at(mid).info().timestamp() <= timestamp) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return at(low).info();
+    }
+
+    // One page of metadata, oldest first or newest first; no snapshot body is decoded
+    public synchronized List<SnapshotInfo> getInfoPage(int offset, int limit, boolean newestFirst) {
+        List<SnapshotInfo> page = new ArrayList<>();
+        for (int i = Math.max(0, offset); i < count && page.size() < limit; i++) {
+            page.add(at(newestFirst ? count - 1 - i : i).info());
+        }
+        return page;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized Map<String, Object> getMetrics() {
+        int keyframes = 0;
+        for (int i = 0; i < count; i++) {
+            if (at(i).info().keyframe()) {
+                keyframes++;
+            }
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("snapshots", count);
+        metrics.put("keyframes", keyframes);
+        metrics.put("deltas", count - keyframes);
+        metrics.put("oldestTimestamp", count == 0 ? null : at(0).info().timestamp());
+        if (journal != null) {
+            metrics.putAll(journal.getMetrics());
+        } else {
+            metrics.put("bytes", bytes);
+            metrics.put("maxBytes", maxBytes);
+        }
+        return metrics;
+    }
+
+    // Ids keep counting up, so a stale id from a client never names a newer snapshot
+    public synchronized void clear() {
+        ring = new Entry[64];
+        head = 0;
+        count = 0;
+        bytes = 0;
+        latest = null;
+        lastKeyframeId = -1;
+        deltasSinceKeyframe = 0;
+        deltaBytesSinceKeyframe = 0;
+        if (journal != null) {
+            journal.clear();
+        }
+    }
+
+    public synchronized void flush() {
+        if (journal != null) {
+            journal.flush();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Service.SimulationStatistics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public record StatisticsState(int totalProductsProcessed, double averageWaitTime, double averageProcessingTime,
+                              Map<String, Double> machineUtilization, Map<String, Integer> machineProcessedCount,
+                              double throughput, int totalProductsInSystem, long simulationStartTime) {
+
+    public static StatisticsState of(SimulationStatistics statistics) {
+        return new StatisticsState(statistics.getTotalProductsProcessed(), statistics.getAverageWaitTime(),
+                statistics.getAverageProcessingTime(), Map.copyOf(statistics.getMachineUtilization()),
+                Map.copyOf(statistics.getMachineProcessedCount()), statistics.getThroughput(),
+                statistics.getTotalProductsInSystem(), statistics.getSimulationStartTime());
+    }
+
+    public void applyTo(SimulationStatistics statistics) {
+        statistics.setTotalProductsProcessed(totalProductsProcessed);
+        statistics.setAverageWaitTime(averageWaitTime);
+        statistics.setAverageProcessingTime(averageProcessingTime);
+        statistics.setMachineUtilization(new HashMap<>(machineUtilization));
+        statistics.setMachineProcessedCount(new HashMap<>(machineProcessedCount));
+        statistics.setThroughput(throughput);
+        statistics.setTotalProductsInSystem(totalProductsInSystem);
+        statistics.setSimulationStartTime(simulationStartTime);
+    }
+}
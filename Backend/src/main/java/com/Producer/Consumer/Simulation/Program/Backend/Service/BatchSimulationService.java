@@ -0,0 +1,329 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Service;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.DiscreteEvent.ConfidenceInterval;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.DiscreteEvent.DiscreteEventEngine;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.DiscreteEvent.Topology;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.BatchRunRequestDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.BatchRunResultDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.ConfidenceIntervalDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.ConnectionDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.MachineDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.QueueDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.ReplicationRequestDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.ReplicationResultDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.SimulationConfigDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.SweepRequestDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.SweepResultDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Headless runs for capacity planning: the topology runs on the
+ * discrete-event engine at full CPU speed with no WebSocket traffic,
+ * no snapshots and no effect on the live simulation.
+ */
+@Service
+public class BatchSimulationService {
+    // Safety horizon when only a product count is given: 7 simulated days
+    private static final long MAX_SIMULATED_MILLIS = 7L * 24 * 60 * 60 * 1000;
+    private static final int DEFAULT_PRODUCTION_RATE = 2000;
+    private static final int MAX_SWEEP_RUNS = 10_000;
+    private static final int DEFAULT_INITIAL_REPLICATIONS = 10;
+    private static final int DEFAULT_MAX_REPLICATIONS = 200;
+
+    private final SimulationService simulationService;
+    // Runs are CPU-bound and share nothing, so one worker per core
+    private final ForkJoinPool sweepPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    public BatchSimulationService(SimulationService simulationService) {
+        this.simulationService = simulationService;
+    }
+
+    public BatchRunResultDTO run(BatchRunRequestDTO request) {
+        requireStopCondition(request.getMaxProducts(), request.getMaxSimulatedMinutes());
+        SimulationConfigDTO topology = resolveTopology(request.getTopology());
+        int productionRate = request.getProductionRate() != null
+                ? request.getProductionRate()
+                : defaultProductionRate(topology);
+        long seed = request.getSeed() != null ? request.getSeed() : System.nanoTime();
+
+        BatchRunResultDTO result = runHeadless(topology, productionRate,
+                maxProducts(request.getMaxProducts()), maxMillis(request.getMaxSimulatedMinutes()), seed);
+        System.out.println("📊 Batch run finished: " + result.getProductsCompleted() + " products in "
+                + result.getSimulatedMillis() + "ms simulated (" + result.getWallClockMillis() + "ms wall, "
+                + result.getStopReason() + ")");
+        return result;
+    }
+
+    // ============ PARAMETER SWEEP ============
+
+    // Fans every parameter combination out over the pool; onResult is called from worker threads as runs finish.
+    // Cancelling the returned future stops the runs that haven't started yet.
+    public CompletableFuture<Void> sweep(SweepRequestDTO request, Consumer<SweepResultDTO> onResult) {
+        requireStopCondition(request.getMaxProducts(), request.getMaxSimulatedMinutes());
+        SimulationConfigDTO base = resolveTopology(request.getTopology());
+        long maxProducts = maxProducts(request.getMaxProducts());
+        long maxMillis = maxMillis(request.getMaxSimulatedMinutes());
+
+        List<Integer> rates = orDefault(request.getProductionRates(), defaultProductionRate(base));
+        List<Integer> capacities = orDefault(request.getQueueCapacities(), null);
+        List<Integer> machineCounts = orDefault(request.getMachinesPerStation(), 1);
+        int totalRuns = rates.size() * capacities.size() * machineCounts.size();
+        if (totalRuns > MAX_SWEEP_RUNS) {
+            throw new IllegalArgumentException("Sweep has " + totalRuns + " runs, limit is " + MAX_SWEEP_RUNS);
+        }
+
+        // Streams are split off up front so results don't depend on scheduling order;
+        // run i is reproducible from the sweep's seed and its index
+        long seed = request.getSeed() != null ? request.getSeed() : System.nanoTime();
+        SplittableRandom streams = new SplittableRandom(seed);
+        List<ForkJoinTask<?>> runs = new ArrayList<>(totalRuns);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        for (int rate : rates) {
+            for (Integer capacity : capacities) {
+                for (int machinesPerStation : machineCounts) {
+                    int runIndex = runs.size();
+                    SplittableRandom stream = streams.split();
+                    SimulationConfigDTO variant = withParameters(base, capacity, machinesPerStation);
+                    runs.add(ForkJoinTask.adapt(() -> {
+                        if (done.isDone()) {
+                            return;
+                        }
+                        onResult.accept(new SweepResultDTO(runIndex, totalRuns, rate, capacity, machinesPerStation,
+                                runHeadless(variant, rate, maxProducts, maxMillis, stream, seed)));
+                    }));
+                }
+            }
+        }
+        done.whenComplete((ignored, error) -> {
+            if (done.isCancelled()) {
+                runs.forEach(run -> run.cancel(false));
+                System.out.println("🧮 Sweep cancelled");
+            }
+        });
+
+        System.out.println("🧮 Sweep started: " + totalRuns + " runs on " + sweepPool.getParallelism() + " workers");
+        sweepPool.execute(() -> {
+            try {
+                ForkJoinTask.invokeAll(runs);
+                System.out.println("🧮 Sweep finished: " + totalRuns + " runs");
+                done.complete(null);
+            } catch (Throwable t) {
+                done.completeExceptionally(t);
+            }
+        });
+        return done;
+    }
+
+    // ============ MONTE CARLO REPLICATIONS ============
+
+    // Runs the same topology on independent random streams, one wave per core, until the
+    // 95% CI of throughput and wait time is within the target precision or the cap is hit
+    public ReplicationResultDTO replicate(ReplicationRequestDTO request) {
+        requireStopCondition(request.getMaxProducts(), request.getMaxSimulatedMinutes());
+        SimulationConfigDTO topology = resolveTopology(request.getTopology());
+        int productionRate = request.getProductionRate() != null
+                ? request.getProductionRate()
+                : defaultProductionRate(topology);
+        long maxProducts = maxProducts(request.getMaxProducts());
+        long maxMillis = maxMillis(request.getMaxSimulatedMinutes());
+        int initial = request.getInitialReplications() != null
+                ? request.getInitialReplications() : DEFAULT_INITIAL_REPLICATIONS;
+        int max = request.getMaxReplications() != null
+                ? request.getMaxReplications() : DEFAULT_MAX_REPLICATIONS;
+        if (initial < 2 || max < initial) {
+            throw new IllegalArgumentException("Need 2 <= initialReplications <= maxReplications");
+        }
+        Double target = request.getTargetRelativePrecision();
+        long baseSeed = request.getSeed() != null ? request.getSeed() : System.nanoTime();
+        SplittableRandom streams = new SplittableRandom(baseSeed);
+
+        long wallStart = System.nanoTime();
+        List<BatchRunResultDTO> results = new ArrayList<>();
+        int wave = initial;
+        boolean precisionReached = false;
+        while (wave > 0) {
+            List<ForkJoinTask<BatchRunResultDTO>> runs = new ArrayList<>(wave);
+            for (int i = 0; i < wave; i++) {
+                SplittableRandom stream = streams.split();
+                runs.add(ForkJoinTask.adapt(() ->
+                        runHeadless(topology, productionRate, maxProducts, maxMillis, stream, baseSeed)));
+            }
+            sweepPool.submit(() -> ForkJoinTask.invokeAll(runs)).join();
+            for (ForkJoinTask<BatchRunResultDTO> run : runs) {
+                results.add(run.join());
+            }
+
+            Map<String, ConfidenceIntervalDTO> metrics = aggregate(results);
+            precisionReached = target != null
+                    && metrics.get("throughput").getRelativePrecision() <= target
+                    && metrics.get("averageWaitTime").getRelativePrecision() <= target;
+            if (target == null || precisionReached) {
+                break;
+            }
+            wave = Math.min(sweepPool.getParallelism(), max - results.size());
+        }
+        long wallTime = (System.nanoTime() - wallStart) / 1_000_000;
+
+        System.out.println("🎲 Replications finished: " + results.size() + " runs in " + wallTime + "ms"
+                + (target != null ? (precisionReached ? " (precision reached)" : " (cap reached)") : ""));
+        return new ReplicationResultDTO(results.size(), precisionReached, baseSeed, wallTime, aggregate(results));
+    }
+
+    private static Map<String, ConfidenceIntervalDTO> aggregate(List<BatchRunResultDTO> results) {
+        Map<String, List<Double>> samples = new TreeMap<>();
+        for (BatchRunResultDTO result : results) {
+            samples.computeIfAbsent("throughput", k -> new ArrayList<>()).add(result.getThroughput());
+            samples.computeIfAbsent("averageWaitTime", k -> new ArrayList<>()).add(result.getWaitTime().getMean());
+            samples.computeIfAbsent("averageProcessingTime", k -> new ArrayList<>())
+                    .add(result.getProcessingTime().getMean());
+            samples.computeIfAbsent("averageCycleTime", k -> new ArrayList<>()).add(result.getCycleTime().getMean());
+            samples.computeIfAbsent("productsCompleted", k -> new ArrayList<>())
+                    .add((double) result.getProductsCompleted());
+            result.getMachineUtilization().forEach((machineId, utilization) ->
+                    samples.computeIfAbsent("utilization." + machineId, k -> new ArrayList<>()).add(utilization));
+        }
+        Map<String, ConfidenceIntervalDTO> metrics = new TreeMap<>();
+        samples.forEach((name, values) -> metrics.put(name, ConfidenceInterval.of(values)));
+        return metrics;
+    }
+
+    // Copy of the topology with every queue resized and every machine replicated into parallel copies
+    private static SimulationConfigDTO withParameters(SimulationConfigDTO base, Integer queueCapacity,
+                                                      int machinesPerStation) {
+        if (machinesPerStation < 1) {
+            throw new IllegalArgumentException("machinesPerStation must be at least 1: " + machinesPerStation);
+        }
+        List<QueueDTO> queues = new ArrayList<>();
+        for (QueueDTO q : nullToEmpty(base.getQueues())) {
+            queues.add(new QueueDTO(q.getId(), q.getX(), q.getY(),
+                    queueCapacity != null ? queueCapacity : q.getCapacity(), q.getMode()));
+        }
+
+        Map<String, List<String>> copiesById = new HashMap<>();
+        List<MachineDTO> machines = new ArrayList<>();
+        for (MachineDTO m : nullToEmpty(base.getMachines())) {
+            List<String> copyIds = new ArrayList<>();
+            for (int i = 1; i <= machinesPerStation; i++) {
+                String id = i == 1 ? m.getId() : m.getId() + "#" + i;
+                copyIds.add(id);
+                machines.add(new MachineDTO(id, m.getX(), m.getY(),
+                        m.getMinServiceTime(), m.getMaxServiceTime(), m.getReliability()));
+            }
+            copiesById.put(m.getId(), copyIds);
+        }
+
+        List<ConnectionDTO> connections = new ArrayList<>();
+        for (ConnectionDTO c : nullToEmpty(base.getConnections())) {
+            for (String from : copiesById.getOrDefault(c.getFrom(), List.of(c.getFrom()))) {
+                for (String to : copiesById.getOrDefault(c.getTo(), List.of(c.getTo()))) {
+                    connections.add(new ConnectionDTO(from, to));
+                }
+            }
+        }
+        return new SimulationConfigDTO(base.getProductionRate(), base.getSimulationSpeed(),
+                machines, queues, connections);
+    }
+
+    // ============ SINGLE RUN ============
+
+    // One fully isolated run: its own models, RNG, statistics and product ids
+    public BatchRunResultDTO runHeadless(SimulationConfigDTO config, int productionRate,
+                                         long maxProducts, long maxMillis, long seed) {
+        return runHeadless(config, productionRate, maxProducts, maxMillis, new SplittableRandom(seed), seed);
+    }
+
+    // seed is only reported; for sweeps and replications it is the seed the run's stream was split from
+    private BatchRunResultDTO runHeadless(SimulationConfigDTO config, int productionRate,
+                                          long maxProducts, long maxMillis, SplittableRandom random, long seed) {
+        Topology topology = Topology.from(config);
+        SimulationStatistics statistics = new SimulationStatistics();
+        DiscreteEventEngine engine = new DiscreteEventEngine(
+                topology.machines(), topology.queues(), topology.connections(),
+                productionRate, random, statistics);
+
+        long wallStart = System.nanoTime();
+        engine.run(maxProducts, maxMillis);
+        long wallTime = (System.nanoTime() - wallStart) / 1_000_000;
+
+        String stopReason;
+        if (engine.getProductsCompleted() >= maxProducts) {
+            stopReason = "products";
+        } else if (maxMillis == MAX_SIMULATED_MILLIS) {
+            stopReason = "horizon";
+        } else {
+            stopReason = "time";
+        }
+
+        return new BatchRunResultDTO(
+                seed,
+                stopReason,
+                engine.getNow(),
+                wallTime,
+                engine.getEventsProcessed(),
+                engine.getProductsCreated(),
+                engine.getProductsCompleted(),
+                engine.getProductsRejected(),
+                engine.getProductsInSystem(),
+                engine.getBreakdowns(),
+                statistics.getThroughput(),
+                engine.getWaitTimes().summarize(),
+                engine.getProcessingTimes().summarize(),
+                engine.getCycleTimes().summarize(),
+                statistics.getMachineUtilization(),
+                statistics.getMachineProcessedCount());
+    }
+
+    // ============ HELPERS ============
+
+    private SimulationConfigDTO resolveTopology(SimulationConfigDTO topology) {
+        return topology != null ? topology : simulationService.exportTopology();
+    }
+
+    private static void requireStopCondition(Long maxProducts, Double maxSimulatedMinutes) {
+        if (maxProducts == null && maxSimulatedMinutes == null) {
+            throw new IllegalArgumentException("A stopping condition is required: maxProducts or maxSimulatedMinutes");
+        }
+    }
+
+    private static int defaultProductionRate(SimulationConfigDTO topology) {
+        return topology.getProductionRate() > 0 ? topology.getProductionRate() : DEFAULT_PRODUCTION_RATE;
+    }
+
+    private static long maxProducts(Long maxProducts) {
+        return maxProducts != null ? maxProducts : Long.MAX_VALUE;
+    }
+
+    private static long maxMillis(Double maxSimulatedMinutes) {
+        return maxSimulatedMinutes != null ? (long) (maxSimulatedMinutes * 60_000) : MAX_SIMULATED_MILLIS;
+    }
+
+    private static <T> List<T> orDefault(List<T> values, T fallback) {
+        if (values == null || values.isEmpty()) {
+            List<T> single = new ArrayList<>();
+            single.add(fallback);
+            return single;
+        }
+        return values;
+    }
+
+    private static <T> List<T> nullToEmpty(List<T> values) {
+        return values != null ? values : List.of();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweepPool.shutdownNow();
+    }
+}
@@ -5,71 +5,134 @@ import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
 import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
 import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
 import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Concurrency.MachineExecutor;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Concurrency.SimulationClock;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Concurrency.StateVersion;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.DiscreteEvent.DiscreteEventEngine;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.ProductCreatedPayload;
 import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.SimulationEvent;
 import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.SimulationEventPublisher;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.ProductState;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.SimulationSnapshot;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.SnapshotBuilder;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.SnapshotInfo;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.SnapshotJournal;
 import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.SnapshotManager;
 import com.Producer.Consumer.Simulation.Program.Backend.Websocket.SimulationWebSocketHandler;
+import com.Producer.Consumer.Simulation.Program.Backend.Websocket.SseStreamHub;
+import com.Producer.Consumer.Simulation.Program.Backend.Websocket.StateFrameCache;
+import com.Producer.Consumer.Simulation.Program.Backend.Websocket.TopicRegistry;
 import com.Producer.Consumer.Simulation.Program.Backend.Websocket.WebSocketBroadcaster;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.ConnectionDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.MachineDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.QueueDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.SimulationConfigDTO;
+import com.Producer.Consumer.Simulation.Program.Backend.dto.SnapshotPageDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.SimulationSnapshot;
-import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.SnapshotManager;
-import java.util.Date;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.Date;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Service
 public class SimulationService {
-    private final List<Machine> machines = Collections.synchronizedList(new ArrayList<>());
-    private final List<ProductionQueue> queues = Collections.synchronizedList(new ArrayList<>());
+    private final TopologyIndex topology = new TopologyIndex();
     private final List<Product> products = Collections.synchronizedList(new ArrayList<>());
-    private final List<Connection> connections = Collections.synchronizedList(new ArrayList<>());
 
-    private final SimulationStatistics statistics = new SimulationStatistics();
+    private final SimulationStatistics statistics;
+    private final SimulationClock clock;
+    private final StateVersion stateVersion;
     private final SimulationWebSocketHandler webSocketHandler;
     private final MachineExecutor machineExecutor;
     private final SimulationEventPublisher eventPublisher;
     private final WebSocketBroadcaster webSocketBroadcaster;
+    private final SseStreamHub sseStreamHub;
 
     // NEW: Production thread management
     private ScheduledExecutorService productionExecutor;
     private ScheduledFuture<?> productionTask;
     private boolean isRunning = false;
     private AtomicInteger productCounter = new AtomicInteger(0);
-
-    private final SnapshotManager snapshotManager = new SnapshotManager();
+    // Producer chain: each tick schedules the next one so speed changes apply immediately.
+    // Bumping the generation invalidates a chain (pause, stop, reschedule).
+    private final Object productionLock = new Object();
+    private volatile int productionRate = 2000;
+    private long productionGeneration;
+    private long nextProductionAt;
+
+    private final SnapshotManager snapshotManager;
+    private final long snapshotIntervalMillis;
+    private final SnapshotBuilder snapshotBuilder = new SnapshotBuilder();
     private ScheduledExecutorService snapshotExecutor;
     private ScheduledFuture<?> snapshotTask;
     public SimulationService(SimulationWebSocketHandler webSocketHandler,
                              MachineExecutor machineExecutor,
                              SimulationEventPublisher eventPublisher,
-                             WebSocketBroadcaster webSocketBroadcaster) {
+                             WebSocketBroadcaster webSocketBroadcaster,
+                             SseStreamHub sseStreamHub,
+                             SimulationClock clock,
+                             StateVersion stateVersion,
+                             SimulationStatistics statistics,
+                             @Value("${simulation.default.snapshot-interval:5000}") long snapshotIntervalMillis,
+                             @Value("${simulation.default.max-snapshots:0}") int maxSnapshots,
+                             @Value("${simulation.snapshots.max-bytes:33554432}") long maxSnapshotBytes,
+                             @Value("${simulation.snapshots.keyframe-interval:60}") int keyframeInterval,
+                             @Value("${simulation.snapshots.journal.directory:}") String journalDirectory,
+                             @Value("${simulation.snapshots.journal.segment-bytes:67108864}") int journalSegmentBytes,
+                             @Value("${simulation.snapshots.journal.retention-bytes:1073741824}") long journalRetentionBytes,
+                             @Value("${simulation.snapshots.journal.retention-hours:0}") long journalRetentionHours) {
         this.webSocketHandler = webSocketHandler;
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+        SnapshotManager manager = null;
+        if (!journalDirectory.isBlank()) {
+            try {
+                SnapshotJournal journal = new SnapshotJournal(Path.of(journalDirectory), journalSegmentBytes,
+                        journalRetentionBytes, TimeUnit.HOURS.toMillis(journalRetentionHours));
+                manager = new SnapshotManager(journal, keyframeInterval);
+                System.out.println("📼 Snapshot journal opened at " + journalDirectory
+                        + " (" + manager.size() + " snapshots recovered)");
+            } catch (IOException | RuntimeException e) {
+                System.err.println("❌ Could not open snapshot journal, keeping snapshots in memory: " + e.getMessage());
+            }
+        }
+        this.snapshotManager = manager != null
+                ? manager
+                : new SnapshotManager(maxSnapshotBytes, maxSnapshots, keyframeInterval);
+        this.clock = clock;
+        this.stateVersion = stateVersion;
+        this.statistics = statistics;
         this.machineExecutor = machineExecutor;
         this.eventPublisher = eventPublisher;
         this.webSocketBroadcaster = webSocketBroadcaster;
+        this.sseStreamHub = sseStreamHub;
         eventPublisher.subscribe(webSocketBroadcaster);
         eventPublisher.subscribe(machineExecutor);
+        webSocketBroadcaster.setStateSupplier(this::getCurrentState);
+        webSocketBroadcaster.setStatisticsSupplier(this::getStatistics);
+        webSocketHandler.setFrameSupplier(webSocketBroadcaster::currentFrame);
         initializeDefaultSetup();
     }
 
     private void initializeDefaultSetup() {
         // Create default queues
-        queues.add(new ProductionQueue("Q0", 100, 200, 100));
-        queues.add(new ProductionQueue("Q1", 500, 200, 100));
-        queues.add(new ProductionQueue("Q2", 900, 200, 100));
+        topology.addQueue(new ProductionQueue("Q0", 100, 200, 100));
+        topology.addQueue(new ProductionQueue("Q1", 500, 200, 100));
+        topology.addQueue(new ProductionQueue("Q2", 900, 200, 100));
 
         // Create default machines
-        machines.add(new Machine("M1", 300, 200, 1000, 2000));
-        machines.add(new Machine("M2", 700, 200, 1500, 2500));
+        topology.addMachine(new Machine("M1", 300, 200, 1000, 2000));
+        topology.addMachine(new Machine("M2", 700, 200, 1500, 2500));
 
         // Create default connections
-        connections.add(new Connection("Q0", "M1"));
-        connections.add(new Connection("M1", "Q1"));
-        connections.add(new Connection("Q1", "M2"));
-        connections.add(new Connection("M2", "Q2"));
+        topology.addConnection("Q0", "M1");
+        topology.addConnection("M1", "Q1");
+        topology.addConnection("Q1", "M2");
+        topology.addConnection("M2", "Q2");
 
         System.out.println("✅ Default simulation setup initialized");
     }
@@ -81,34 +144,59 @@ public class SimulationService {
             return;
         }
 
-        isRunning = true;
-        statistics.setSimulationStartTime(System.currentTimeMillis());
+        this.productionRate = productionRate;
+        statistics.reset(clock.now());
+        eventPublisher.resetChangeTracking();
         System.out.println("🚀 Simulation started with production rate: " + productionRate + "ms");
+        launch();
+    }
+
+    // Starts production, machines and auto-snapshots on the current state
+    private void launch() {
+        isRunning = true;
 
         // Start producer thread to create products
         productionExecutor = Executors.newScheduledThreadPool(1);
-        productionTask = productionExecutor.scheduleAtFixedRate(
-                this::produceProduct,
-                0,
-                productionRate,
-                TimeUnit.MILLISECONDS
-        );
+        synchronized (productionLock) {
+            productionGeneration++;
+            scheduleProduction(0);
+        }
 
         // Start all machines
         startAllMachines();
         startAutoSnapshots();
 
         // Broadcast state update
-        webSocketHandler.broadcast("/topic/state-update", getCurrentState());
+        webSocketBroadcaster.markStateDirty();
     }
 
     // ============ NEW: PRODUCT PRODUCER ============
+    // Caller holds productionLock; delay is in simulated milliseconds
+    private void scheduleProduction(long delay) {
+        long generation = productionGeneration;
+        nextProductionAt = clock.now() + delay;
+        productionTask = productionExecutor.schedule(
+                () -> productionTick(generation),
+                clock.toWallNanos(delay),
+                TimeUnit.NANOSECONDS
+        );
+    }
+
+    private void productionTick(long generation) {
+        produceProduct();
+        synchronized (productionLock) {
+            if (isRunning && generation == productionGeneration && !productionExecutor.isShutdown()) {
+                scheduleProduction(productionRate);
+            }
+        }
+    }
+
     private void produceProduct() {
         if (!isRunning) return;
 
         try {
             // Find the starting queue (one with no incoming connections)
-            ProductionQueue startQueue = findStartQueue();
+            ProductionQueue startQueue = topology.getStartQueue();
 
             if (startQueue != null) {
                 String[] colors = {"#ef4444", "#3b82f6", "#10b981", "#f59e0b", "#8b5cf6"};
@@ -116,21 +204,27 @@ public class SimulationService {
                 int priority = ThreadLocalRandom.current().nextInt(1, 6);
 
                 Product product = new Product(color, priority, "TypeA");
+                product.setCreatedAt(clock.now());
+
+                boolean added;
+                stateVersion.beginStep();
+                try {
+                    added = startQueue.addProduct(product, clock.now());
+                    if (added) {
+                        products.add(product);
+                        statistics.setTotalProductsInSystem(products.size());
+                    }
+                } finally {
+                    stateVersion.endStep();
+                }
 
-                if (startQueue.addProduct(product)) {
-                    products.add(product);
-                    statistics.setTotalProductsInSystem(products.size());
-
-                    System.out.println("📦 Product created: " + product.getId() +
-                            " (Priority: " + priority + ") added to " + startQueue.getId());
-
+                if (added) {
                     eventPublisher.notifyObservers(
-                            new SimulationEvent("PRODUCT_CREATED", product)
+                            new SimulationEvent("PRODUCT_CREATED", new ProductCreatedPayload(product.getId(),
+                                    startQueue.getId(), product.getPriority(), product.getColor(), clock.now()))
                     );
 
-                    webSocketHandler.broadcast("/topic/state-update", getCurrentState());
-                } else {
-                    System.out.println("⚠️ Queue " + startQueue.getId() + " is full!");
+                    webSocketBroadcaster.markStateDirty();
                 }
             } else {
                 System.out.println("⚠️ No starting queue found!");
@@ -143,15 +237,15 @@ public class SimulationService {
 
     // ============ NEW: START ALL MACHINES ============
     private void startAllMachines() {
-        for (Machine machine : machines) {
-            ProductionQueue inputQueue = findInputQueue(machine.getId());
-            ProductionQueue outputQueue = findOutputQueue(machine.getId());
+        for (Machine machine : topology.getMachines()) {
+            ProductionQueue inputQueue = topology.inputQueueOf(machine.getId());
+            ProductionQueue outputQueue = topology.outputQueueOf(machine.getId());
 
             if (inputQueue != null) {
                 System.out.println("🔧 Starting machine: " + machine.getId() +
                         " (Input: " + inputQueue.getId() +
                         ", Output: " + (outputQueue != null ? outputQueue.getId() : "none") + ")");
-                machineExecutor.startMachine(machine, inputQueue, outputQueue);
+                machineExecutor.startMachine(machine, inputQueue, outputQueue, completesProducts(outputQueue));
             } else {
                 System.out.println("⚠️ Machine " + machine.getId() + " has no input queue!");
             }
@@ -159,48 +253,30 @@ public class SimulationService {
     }
 
     // ============ NEW: HELPER METHODS ============
-    private ProductionQueue findInputQueue(String machineId) {
-        return connections.stream()
-                .filter(c -> c.getTo().equals(machineId))
-                .findFirst()
-                .map(c -> queues.stream()
-                        .filter(q -> q.getId().equals(c.getFrom()))
-                        .findFirst()
-                        .orElse(null))
-                .orElse(null);
-    }
-
-    private ProductionQueue findOutputQueue(String machineId) {
-        return connections.stream()
-                .filter(c -> c.getFrom().equals(machineId))
-                .findFirst()
-                .map(c -> queues.stream()
-                        .filter(q -> q.getId().equals(c.getTo()))
-                        .findFirst()
-                        .orElse(null))
-                .orElse(null);
-    }
-
-    private ProductionQueue findStartQueue() {
-        // Find queue with no incoming connections (starting point)
-        Set<String> destinationIds = connections.stream()
-                .map(Connection::getTo)
-                .collect(Collectors.toSet());
-
-        return queues.stream()
-                .filter(q -> !destinationIds.contains(q.getId()))
-                .findFirst()
-                .orElse(queues.isEmpty() ? null : queues.get(0));
+    // Products leave the line at a machine with no output queue or one feeding a queue nobody consumes
+    private boolean completesProducts(ProductionQueue outputQueue) {
+        return outputQueue == null || !topology.hasOutgoing(outputQueue.getId());
     }
 
     // ============ FIXED STOP SIMULATION ============
     public void stopSimulation() {
+        halt();
+        createSnapshot();
+        webSocketBroadcaster.markStateDirty();
+    }
+
+    // Stops production, machines and auto-snapshots; returns once no machine touches the state any more
+    private void halt() {
+        refreshStatistics();
         isRunning = false;
         System.out.println("⏹️ Simulation stopped");
 
         // Stop production
-        if (productionTask != null) {
-            productionTask.cancel(true);
+        synchronized (productionLock) {
+            productionGeneration++;
+            if (productionTask != null) {
+                productionTask.cancel(true);
+            }
         }
         if (productionExecutor != null) {
             productionExecutor.shutdown();
@@ -217,124 +293,263 @@ public class SimulationService {
         // Stop all machines
         machineExecutor.stopAll();
         stopAutoSnapshots();
-        createSnapshot();
-        webSocketHandler.broadcast("/topic/state-update", getCurrentState());
     }
 
     public void pauseSimulation() {
         System.out.println("⏸️ Simulation paused");
-        if (productionTask != null) {
-            productionTask.cancel(false);
+        synchronized (productionLock) {
+            productionGeneration++;
+            if (productionTask != null) {
+                productionTask.cancel(false);
+            }
         }
-        webSocketHandler.broadcast("/topic/state-update", getCurrentState());
+        webSocketBroadcaster.markStateDirty();
     }
 
     public void resumeSimulation() {
         System.out.println("▶️ Simulation resumed");
         if (productionExecutor != null && !productionExecutor.isShutdown()) {
-            productionTask = productionExecutor.scheduleAtFixedRate(
-                    this::produceProduct,
-                    0,
-                    2000,
-                    TimeUnit.MILLISECONDS
-            );
+            synchronized (productionLock) {
+                productionGeneration++;
+                scheduleProduction(0);
+            }
+        }
+        webSocketBroadcaster.markStateDirty();
+    }
+
+    // Scales every timed wait (service, repair, flash, production period) at once
+    public void setSimulationSpeed(double speed) {
+        clock.setSpeed(speed);
+        synchronized (productionLock) {
+            // The pending production tick was timed at the old speed: re-time what is left of it
+            if (isRunning && productionTask != null && !productionTask.isDone()
+                    && productionTask.cancel(false)) {
+                productionGeneration++;
+                scheduleProduction(Math.max(0, nextProductionAt - clock.now()));
+            }
+        }
+        webSocketBroadcaster.markStateDirty();
+    }
+
+    public double getSimulationSpeed() {
+        return clock.getSpeed();
+    }
+
+    // ============ DISCRETE-EVENT MODE ============
+    // Runs a copy of the current topology on a virtual clock; the live simulation is untouched
+    public Map<String, Object> runDiscreteEvent(int productionRate, long durationMillis, long seed) {
+        List<Machine> machineCopies = new ArrayList<>();
+        for (Machine machine : getMachines()) {
+            machineCopies.add(copyMachine(machine));
         }
-        webSocketHandler.broadcast("/topic/state-update", getCurrentState());
+        List<ProductionQueue> queueCopies = new ArrayList<>();
+        for (ProductionQueue queue : getQueues()) {
+            queueCopies.add(new ProductionQueue(queue.getId(), queue.getX(), queue.getY(),
+                    queue.getCapacity(), queue.getMode()));
+        }
+        SimulationStatistics runStatistics = new SimulationStatistics();
+        DiscreteEventEngine engine = new DiscreteEventEngine(
+                machineCopies, queueCopies, getConnections(), productionRate, seed, runStatistics);
+
+        long wallStart = System.currentTimeMillis();
+        engine.runUntil(durationMillis);
+        long wallTime = System.currentTimeMillis() - wallStart;
+
+        System.out.println("⏩ Discrete-event run: " + durationMillis + "ms simulated in " + wallTime
+                + "ms (" + engine.getEventsProcessed() + " events)");
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("statistics", runStatistics);
+        result.put("machines", machineCopies);
+        result.put("simulatedMillis", engine.getNow());
+        result.put("wallClockMillis", wallTime);
+        result.put("eventsProcessed", engine.getEventsProcessed());
+        result.put("productsCreated", engine.getProductsCreated());
+        result.put("productsRejected", engine.getProductsRejected());
+        result.put("breakdowns", engine.getBreakdowns());
+        result.put("seed", seed);
+        return result;
+    }
+
+    private Machine copyMachine(Machine machine) {
+        Machine copy = new Machine(machine.getId(), machine.getX(), machine.getY(),
+                machine.getMinServiceTime(), machine.getMaxServiceTime());
+        copy.setReliability(machine.getReliability());
+        return copy;
     }
 
     // ============ ADD/REMOVE METHODS ============
     public Machine addMachine(double x, double y, int minServiceTime, int maxServiceTime) {
-        String id = "M" + (machines.size() + 1);
+        String id = topology.nextMachineId();
         Machine machine = new Machine(id, x, y, minServiceTime, maxServiceTime);
-        machines.add(machine);
+        topology.addMachine(machine);
 
         System.out.println("➕ Added machine: " + id);
 
         // If simulation is running, start this machine too
         if (isRunning) {
-            ProductionQueue inputQueue = findInputQueue(machine.getId());
-            ProductionQueue outputQueue = findOutputQueue(machine.getId());
+            ProductionQueue inputQueue = topology.inputQueueOf(machine.getId());
+            ProductionQueue outputQueue = topology.outputQueueOf(machine.getId());
             if (inputQueue != null) {
-                machineExecutor.startMachine(machine, inputQueue, outputQueue);
+                machineExecutor.startMachine(machine, inputQueue, outputQueue, completesProducts(outputQueue));
             }
         }
 
-        webSocketHandler.broadcast("/topic/state-update", getCurrentState());
+        webSocketBroadcaster.markStateDirty();
         return machine;
     }
 
     public void removeMachine(String id) {
         machineExecutor.stopMachine(id);
-        machines.removeIf(m -> m.getId().equals(id));
-        connections.removeIf(c -> c.getFrom().equals(id) || c.getTo().equals(id));
+        topology.removeMachine(id);
+        eventPublisher.forgetMachine(id);
 
         System.out.println("➖ Removed machine: " + id);
-        webSocketHandler.broadcast("/topic/state-update", getCurrentState());
+        webSocketBroadcaster.markStateDirty();
     }
 
     public ProductionQueue addQueue(double x, double y, int capacity) {
-        String id = "Q" + queues.size();
-        ProductionQueue queue = new ProductionQueue(id, x, y, capacity);
-        queues.add(queue);
+        return addQueue(x, y, capacity, ProductionQueue.MODE_PRIORITY);
+    }
+
+    public ProductionQueue addQueue(double x, double y, int capacity, String mode) {
+        String id = topology.nextQueueId();
+        ProductionQueue queue = new ProductionQueue(id, x, y, capacity, mode);
+        topology.addQueue(queue);
 
         System.out.println("➕ Added queue: " + id);
-        webSocketHandler.broadcast("/topic/state-update", getCurrentState());
+        webSocketBroadcaster.markStateDirty();
+        return queue;
+    }
+
+    // Switch a station between the priority queue and the lock-free ring buffer
+    public ProductionQueue setQueueMode(String id, String mode) {
+        ProductionQueue queue = stoppedQueue(id, "queue mode");
+        queue.setMode(mode);
+
+        System.out.println("🔁 Queue " + id + " switched to " + mode + " mode");
+        webSocketBroadcaster.markStateDirty();
+        return queue;
+    }
+
+    public ProductionQueue setQueueCapacity(String id, int capacity) {
+        ProductionQueue queue = stoppedQueue(id, "queue capacity");
+        queue.setCapacity(capacity);
+
+        System.out.println("📏 Queue " + id + " capacity set to " + capacity);
+        webSocketBroadcaster.markStateDirty();
+        return queue;
+    }
+
+    // Both settings replace the queue's buffer, which ring-mode machines use without the queue lock
+    private ProductionQueue stoppedQueue(String id, String setting) {
+        if (isRunning) {
+            throw new IllegalStateException("Stop the simulation before changing " + setting);
+        }
+        ProductionQueue queue = topology.getQueue(id);
+        if (queue == null) {
+            throw new IllegalArgumentException("Queue not found: " + id);
+        }
         return queue;
     }
 
     public void removeQueue(String id) {
-        queues.removeIf(q -> q.getId().equals(id));
-        connections.removeIf(c -> c.getFrom().equals(id) || c.getTo().equals(id));
+        topology.removeQueue(id);
 
         System.out.println("➖ Removed queue: " + id);
-        webSocketHandler.broadcast("/topic/state-update", getCurrentState());
+        webSocketBroadcaster.markStateDirty();
     }
 
     public void addConnection(String from, String to) {
-        connections.add(new Connection(from, to));
+        topology.addConnection(from, to);
 
         System.out.println("🔗 Added connection: " + from + " -> " + to);
-        webSocketHandler.broadcast("/topic/state-update", getCurrentState());
+        webSocketBroadcaster.markStateDirty();
     }
 
     public void removeConnection(String from, String to) {
-        connections.removeIf(c -> c.getFrom().equals(from) && c.getTo().equals(to));
+        topology.removeConnection(from, to);
 
         System.out.println("✂️ Removed connection: " + from + " -> " + to);
-        webSocketHandler.broadcast("/topic/state-update", getCurrentState());
+        webSocketBroadcaster.markStateDirty();
     }
 
     // ============ STATE & CONFIG ============
     public Map<String, Object> getCurrentState() {
+        refreshStatistics();
         Map<String, Object> state = new HashMap<>();
-        state.put("machines", new ArrayList<>(machines));
-        state.put("queues", new ArrayList<>(queues));
-        state.put("products", new ArrayList<>(products));
-        state.put("connections", new ArrayList<>(connections));
+        state.put("machines", topology.getMachines());
+        state.put("queues", topology.getQueues());
+        state.put("products", productsInLine());
+        state.put("connections", topology.getConnections());
         state.put("statistics", statistics);
         state.put("isRunning", isRunning);
+        state.put("simulationSpeed", clock.getSpeed());
         return state;
     }
 
+    // Products still in a queue or on a machine. The full list keeps every product ever made for the
+    // snapshot history; frames only carry these, so their cost follows the line, not the run length.
+    private List<Product> productsInLine() {
+        Set<Product> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Product> inLine = new ArrayList<>();
+        for (ProductionQueue queue : topology.getQueues()) {
+            for (Product product : queue.getProducts()) {
+                if (seen.add(product)) {
+                    inLine.add(product);
+                }
+            }
+        }
+        for (Machine machine : topology.getMachines()) {
+            Product product = machine.getCurrentProduct();
+            if (product != null && seen.add(product)) {
+                inLine.add(product);
+            }
+        }
+        return inLine;
+    }
+
+    // Statistics are reported over elapsed simulated time
+    private void refreshStatistics() {
+        if (isRunning) {
+            statistics.refresh(clock.now() - statistics.getSimulationStartTime());
+        }
+    }
+
     public Map<String, Object> exportConfiguration() {
         Map<String, Object> config = new HashMap<>();
-        config.put("productionRate", 2000);
-        config.put("simulationSpeed", 1.0);
-        config.put("machines", new ArrayList<>(machines));
-        config.put("queues", new ArrayList<>(queues));
-        config.put("connections", new ArrayList<>(connections));
+        config.put("productionRate", productionRate);
+        config.put("simulationSpeed", clock.getSpeed());
+        config.put("machines", topology.getMachines());
+        config.put("queues", topology.getQueues());
+        config.put("connections", topology.getConnections());
         return config;
     }
 
+    // Current topology as plain DTOs, e.g. as the template for headless runs
+    public SimulationConfigDTO exportTopology() {
+        List<MachineDTO> machineDTOs = getMachines().stream()
+                .map(m -> new MachineDTO(m.getId(), m.getX(), m.getY(),
+                        m.getMinServiceTime(), m.getMaxServiceTime(), m.getReliability()))
+                .collect(Collectors.toList());
+        List<QueueDTO> queueDTOs = getQueues().stream()
+                .map(q -> new QueueDTO(q.getId(), q.getX(), q.getY(), q.getCapacity(), q.getMode()))
+                .collect(Collectors.toList());
+        List<ConnectionDTO> connectionDTOs = getConnections().stream()
+                .map(c -> new ConnectionDTO(c.getFrom(), c.getTo()))
+                .collect(Collectors.toList());
+        return new SimulationConfigDTO(productionRate, clock.getSpeed(), machineDTOs, queueDTOs, connectionDTOs);
+    }
+
     private void startAutoSnapshots() {
-        // Save a snapshot every 5 seconds during simulation
+        // Save a snapshot every snapshot-interval during simulation
         snapshotExecutor = Executors.newScheduledThreadPool(1);
         snapshotTask = snapshotExecutor.scheduleAtFixedRate(
                 this::createSnapshot,
-                5, 5,
-                TimeUnit.SECONDS
+                snapshotIntervalMillis, snapshotIntervalMillis,
+                TimeUnit.MILLISECONDS
         );
-        System.out.println("📸 Auto-snapshots started (every 5 seconds)");
+        System.out.println("📸 Auto-snapshots started (every " + snapshotIntervalMillis + " ms)");
     }
 
     private void stopAutoSnapshots() {
@@ -355,15 +570,24 @@ public class SimulationService {
         System.out.println("📸 Auto-snapshots stopped");
     }
 
+    // Pushes the journal's mapped pages to disk so history is there after a restart
+    @PreDestroy
+    public void closeSnapshots() {
+        stopAutoSnapshots();
+        snapshotManager.flush();
+    }
+
     public void createSnapshot() {
         try {
-            SimulationSnapshot snapshot = new SimulationSnapshot(
-                    new ArrayList<>(machines),
-                    new ArrayList<>(queues),
-                    new ArrayList<>(products),
-                    new ArrayList<>(connections),
-                    statistics
-            );
+            // Read between machine steps, so no product shows up in two places (or none)
+            SnapshotBuilder.Capture capture = stateVersion.readConsistent(() -> snapshotBuilder.capture(
+                    topology.getMachines(),
+                    topology.getQueues(),
+                    products,
+                    topology.getConnections(),
+                    getStatistics()
+            ));
+            SimulationSnapshot snapshot = snapshotBuilder.commit(capture);
             snapshotManager.saveSnapshot(snapshot);
             System.out.println("📸 Snapshot created at " + new Date(snapshot.getTimestamp()));
         } catch (Exception e) {
@@ -372,61 +596,71 @@ public class SimulationService {
         }
     }
 
-    public List<SimulationSnapshot> getAllSnapshots() {
-        return snapshotManager.getAllSnapshots();
+    // Metadata only; bodies are fetched one at a time with getSnapshot
+    public SnapshotPageDTO getSnapshotPage(int offset, int limit, boolean newestFirst) {
+        int pageSize = Math.max(1, Math.min(limit, 500));
+        return new SnapshotPageDTO(snapshotManager.size(), Math.max(0, offset), pageSize, newestFirst,
+                snapshotManager.getInfoPage(offset, pageSize, newestFirst));
     }
+
+    public SimulationSnapshot getSnapshot(long id) {
+        return snapshotManager.getSnapshotById(id);
+    }
+
+    public SnapshotInfo getSnapshotAt(long timestamp) {
+        return snapshotManager.getInfoAt(timestamp);
+    }
+
     // Enables rollback to any previous state
-    public void restoreSnapshot(int index) {
-        SimulationSnapshot snapshot = snapshotManager.getSnapshot(index);
-        System.out.println(snapshot.getProducts().size());
+    public void restoreSnapshot(long id) {
+        SimulationSnapshot snapshot = snapshotManager.getSnapshotById(id);
         if (snapshot == null) {
-            System.out.println(",,");
-            throw new IllegalArgumentException("Snapshot not found at index: " + index);
+            throw new IllegalArgumentException("Snapshot not found: " + id);
         }
 
         System.out.println("📼 Restoring snapshot from " + new Date(snapshot.getTimestamp()));
 
-        // Stop simulation if running
+        // Build the replacement first: fresh live objects, one instance per product shared by queues, machines and the list
+        Map<String, Product> restored = new HashMap<>();
+        List<Machine> restoredMachines = snapshot.getMachines().stream().map(m -> m.toMachine(restored)).toList();
+        List<ProductionQueue> restoredQueues = snapshot.getQueues().stream().map(q -> q.toQueue(restored)).toList();
+        List<Product> restoredProducts = new ArrayList<>();
+        for (ProductState state : snapshot.getProducts()) {
+            restoredProducts.add(restored.computeIfAbsent(state.id(), key -> state.toProduct()));
+        }
+
+        // Halting returns once every machine has left its loop, so nothing writes to the old state after it.
+        // No snapshot of the state being thrown away is taken on the way.
         boolean wasRunning = isRunning;
         if (isRunning) {
-            stopSimulation();
-            // Wait a bit for threads to stop
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+            halt();
+        }
+
+        // Swap everything in one step: a concurrent reader sees the old state or the restored one, never a mix
+        stateVersion.beginStep();
+        try {
+            topology.rebuild(restoredMachines, restoredQueues, snapshot.getConnections());
+            products.clear();
+            products.addAll(restoredProducts);
+            if (snapshot.getStatistics() != null) {
+                snapshot.getStatistics().applyTo(statistics);
             }
+        } finally {
+            stateVersion.endStep();
         }
+        snapshotBuilder.reset();
+        eventPublisher.resetChangeTracking();
 
-        // Clear current state
-        machines.clear();
-        queues.clear();
-        products.clear();
-        connections.clear();
-
-        // Restore from snapshot
-        machines.addAll(snapshot.getMachines());
-        queues.addAll(snapshot.getQueues());
-        products.addAll(snapshot.getProducts());
-        connections.addAll(snapshot.getConnections());
-
-        // Restore statistics
-        if (snapshot.getStatistics() != null) {
-            statistics.setTotalProductsProcessed(snapshot.getStatistics().getTotalProductsProcessed());
-            statistics.setAverageWaitTime(snapshot.getStatistics().getAverageWaitTime());
-            statistics.setAverageProcessingTime(snapshot.getStatistics().getAverageProcessingTime());
-            statistics.setMachineUtilization(new HashMap<>(snapshot.getStatistics().getMachineUtilization()));
-            statistics.setMachineProcessedCount(new HashMap<>(snapshot.getStatistics().getMachineProcessedCount()));
-            statistics.setThroughput(snapshot.getStatistics().getThroughput());
-            statistics.setTotalProductsInSystem(snapshot.getStatistics().getTotalProductsInSystem());
-            statistics.setSimulationStartTime(snapshot.getStatistics().getSimulationStartTime());
+        // Carry on from the restored state, statistics included
+        if (wasRunning) {
+            launch();
         }
 
         System.out.println("✅ Snapshot restored successfully");
 
         // Broadcast updated state to frontend
-        webSocketHandler.broadcast("/topic/state-update", getCurrentState());
-        webSocketHandler.broadcast("/topic/statistics", statistics);
+        webSocketBroadcaster.markStateDirty();
+        webSocketHandler.broadcast(TopicRegistry.STATISTICS, statistics);
     }
 
     public void deleteSnapshot(int index) {
@@ -435,6 +669,13 @@ public class SimulationService {
         System.out.println("🗑️ Snapshot delete requested at index: " + index);
     }
 
+    // History size: snapshots, keyframes vs deltas, bytes used against the budget
+    public Map<String, Object> getSnapshotMetrics() {
+        Map<String, Object> metrics = snapshotManager.getMetrics();
+        metrics.putAll(stateVersion.getMetrics());
+        return metrics;
+    }
+
     public void clearSnapshots() {
         snapshotManager.clear();
         System.out.println("🗑️ All snapshots cleared");
@@ -444,10 +685,24 @@ public class SimulationService {
 
 
     // Getters
-    public List<Machine> getMachines() { return new ArrayList<>(machines); }
-    public List<ProductionQueue> getQueues() { return new ArrayList<>(queues); }
+    public List<Machine> getMachines() { return topology.getMachines(); }
+    public List<ProductionQueue> getQueues() { return topology.getQueues(); }
     public List<Product> getProducts() { return new ArrayList<>(products); }
-    public List<Connection> getConnections() { return new ArrayList<>(connections); }
-    public SimulationStatistics getStatistics() { return statistics; }
+    public List<Connection> getConnections() { return topology.getConnections(); }
+    public SimulationStatistics getStatistics() {
+        refreshStatistics();
+        return statistics;
+    }
     public boolean isRunning() { return isRunning; }
+    public Map<String, Object> getEventMetrics() {
+        Map<String, Object> metrics = eventPublisher.getMetrics();
+        metrics.put("stateFrameRate", webSocketBroadcaster.getFrameRate());
+        metrics.put("stateFramesSent", webSocketBroadcaster.getFramesSent());
+        metrics.put("stateChangesCoalesced", webSocketBroadcaster.getChangesCoalesced());
+        metrics.putAll(sseStreamHub.getMetrics());
+        return metrics;
+    }
+    public StateFrameCache.StateFrame getStateFrame() { return webSocketBroadcaster.currentFrame(); }
+    public String getStateEtag() { return webSocketBroadcaster.currentEtag(); }
+    public List<Map<String, Object>> getSessionMetrics() { return webSocketHandler.getSessionMetrics(); }
 }
\ No newline at end of file
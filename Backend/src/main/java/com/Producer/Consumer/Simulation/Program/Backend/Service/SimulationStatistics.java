@@ -9,6 +9,8 @@ import java.util.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 @Service
 
 public class SimulationStatistics implements Serializable {
@@ -23,12 +25,71 @@ public class SimulationStatistics implements Serializable {
     private int totalProductsInSystem;
     private long simulationStartTime;
 
+    // Raw accumulators behind the averages; lock-free so machine threads can record concurrently
+    private final LongAdder completedProducts = new LongAdder();
+    private final LongAdder waitTimeTotal = new LongAdder();
+    private final LongAdder waitSamples = new LongAdder();
+    private final LongAdder processingTimeTotal = new LongAdder();
+    private final LongAdder processingSamples = new LongAdder();
+    private final Map<String, LongAdder> machineBusyTime = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> machineCompletions = new ConcurrentHashMap<>();
+
     public SimulationStatistics() {
         this.machineUtilization = new HashMap<>();
         this.machineProcessedCount = new HashMap<>();
         this.simulationStartTime = System.currentTimeMillis();
     }
 
+    // ============ RECORDING ============
+    // Times are in simulation milliseconds, whichever clock the caller runs on
+
+    public void recordWait(long waitMillis) {
+        waitTimeTotal.add(waitMillis);
+        waitSamples.increment();
+    }
+
+    public void recordProcessing(String machineId, long processingMillis) {
+        processingTimeTotal.add(processingMillis);
+        processingSamples.increment();
+        machineBusyTime.computeIfAbsent(machineId, id -> new LongAdder()).add(processingMillis);
+        machineCompletions.computeIfAbsent(machineId, id -> new LongAdder()).increment();
+    }
+
+    public void recordCompletion() {
+        completedProducts.increment();
+    }
+
+    // Recomputes the published figures from the accumulators over the given elapsed time
+    public void refresh(long elapsedMillis) {
+        totalProductsProcessed = completedProducts.intValue();
+        long waits = waitSamples.sum();
+        averageWaitTime = waits == 0 ? 0 : (double) waitTimeTotal.sum() / waits;
+        long processed = processingSamples.sum();
+        averageProcessingTime = processed == 0 ? 0 : (double) processingTimeTotal.sum() / processed;
+        throughput = elapsedMillis <= 0 ? 0 : totalProductsProcessed / (elapsedMillis / 1000.0);
+
+        Map<String, Double> utilization = new HashMap<>();
+        machineBusyTime.forEach((id, busy) ->
+                utilization.put(id, elapsedMillis <= 0 ? 0 : Math.min(100.0, busy.sum() * 100.0 / elapsedMillis)));
+        Map<String, Integer> counts = new HashMap<>();
+        machineCompletions.forEach((id, count) -> counts.put(id, count.intValue()));
+        machineUtilization = utilization;
+        machineProcessedCount = counts;
+    }
+
+    public void reset(long startTime) {
+        completedProducts.reset();
+        waitTimeTotal.reset();
+        waitSamples.reset();
+        processingTimeTotal.reset();
+        processingSamples.reset();
+        machineBusyTime.clear();
+        machineCompletions.clear();
+        simulationStartTime = startTime;
+        totalProductsInSystem = 0;
+        refresh(0);
+    }
+
     // Getters and Setters
     public int getTotalProductsProcessed() { return totalProductsProcessed; }
     public void setTotalProductsProcessed(int totalProductsProcessed) {
@@ -0,0 +1,251 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Service;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Connection;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Compiled view of the plant layout: machines, queues and connections in
+ * insertion order plus adjacency maps keyed by node id. Mutations keep every
+ * map up to date incrementally; the per-tick lookups (input/output queue of a
+ * machine, the source queue, whether a node has outgoing edges) are O(1) and
+ * lock-free.
+ *
+ * "First connection wins" matches the original linear scans: a node's
+ * adjacency lists keep connection order, and the start queue is the earliest
+ * added queue with no incoming connection (or the earliest queue if all have one).
+ */
+public class TopologyIndex {
+
+    // Ordered storage, guarded by this
+    private final Map<String, Machine> machines = new LinkedHashMap<>();
+    private final Map<String, ProductionQueue> queues = new LinkedHashMap<>();
+    private final LinkedHashSet<Connection> connections = new LinkedHashSet<>();
+    private final Map<String, Long> queueOrder = new HashMap<>();
+    private final TreeMap<Long, ProductionQueue> queuesByOrder = new TreeMap<>();
+    private final TreeMap<Long, ProductionQueue> sourceQueues = new TreeMap<>();
+    private long nextQueueOrder;
+
+    // Lock-free read side
+    private final Map<String, Machine> machinesById = new ConcurrentHashMap<>();
+    private final Map<String, ProductionQueue> queuesById = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> outgoing = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> incoming = new ConcurrentHashMap<>();
+    private volatile ProductionQueue startQueue;
+
+    // ============ MUTATIONS ============
+
+    // Ids are never reused while taken: a re-add would leave the old node's ordering behind
+    public synchronized void addMachine(Machine machine) {
+        requireNewId(machine.getId());
+        machines.put(machine.getId(), machine);
+        machinesById.put(machine.getId(), machine);
+    }
+
+    public synchronized Machine removeMachine(String id) {
+        Machine removed = machines.remove(id);
+        machinesById.remove(id);
+        disconnect(id);
+        refreshStartQueue();
+        return removed;
+    }
+
+    public synchronized void addQueue(ProductionQueue queue) {
+        requireNewId(queue.getId());
+        long order = nextQueueOrder++;
+        queues.put(queue.getId(), queue);
+        queuesById.put(queue.getId(), queue);
+        queueOrder.put(queue.getId(), order);
+        queuesByOrder.put(order, queue);
+        if (incoming(queue.getId()).isEmpty()) {
+            sourceQueues.put(order, queue);
+        }
+        refreshStartQueue();
+    }
+
+    public synchronized ProductionQueue removeQueue(String id) {
+        ProductionQueue removed = queues.remove(id);
+        queuesById.remove(id);
+        Long order = queueOrder.remove(id);
+        if (order != null) {
+            queuesByOrder.remove(order);
+            sourceQueues.remove(order);
+        }
+        disconnect(id);
+        refreshStartQueue();
+        return removed;
+    }
+
+    // Duplicate connections are ignored: they never changed routing
+    public synchronized boolean addConnection(String from, String to) {
+        if (!connections.add(new Connection(from, to))) {
+            return false;
+        }
+        outgoing.computeIfAbsent(from, id -> new CopyOnWriteArrayList<>()).add(to);
+        incoming.computeIfAbsent(to, id -> new CopyOnWriteArrayList<>()).add(from);
+        updateSourceStatus(to);
+        refreshStartQueue();
+        return true;
+    }
+
+    public synchronized boolean removeConnection(String from, String to) {
+        if (!connections.remove(new Connection(from, to))) {
+            return false;
+        }
+        outgoing(from).remove(to);
+        incoming(to).remove(from);
+        updateSourceStatus(to);
+        refreshStartQueue();
+        return true;
+    }
+
+    public synchronized void rebuild(Collection<Machine> newMachines, Collection<ProductionQueue> newQueues,
+                                     Collection<Connection> newConnections) {
+        clear();
+        newMachines.forEach(this::addMachine);
+        newQueues.forEach(this::addQueue);
+        newConnections.forEach(c -> addConnection(c.getFrom(), c.getTo()));
+    }
+
+    public synchronized void clear() {
+        machines.clear();
+        queues.clear();
+        connections.clear();
+        queueOrder.clear();
+        queuesByOrder.clear();
+        sourceQueues.clear();
+        machinesById.clear();
+        queuesById.clear();
+        outgoing.clear();
+        incoming.clear();
+        startQueue = null;
+    }
+
+    private void requireNewId(String id) {
+        if (machines.containsKey(id) || queues.containsKey(id)) {
+            throw new IllegalArgumentException("Node " + id + " already exists");
+        }
+    }
+
+    // Drops every connection touching the node
+    private void disconnect(String id) {
+        for (String to : outgoing(id)) {
+            connections.remove(new Connection(id, to));
+            incoming(to).remove(id);
+            updateSourceStatus(to);
+        }
+        for (String from : incoming(id)) {
+            connections.remove(new Connection(from, id));
+            outgoing(from).remove(id);
+        }
+        outgoing.remove(id);
+        incoming.remove(id);
+    }
+
+    private void updateSourceStatus(String nodeId) {
+        Long order = queueOrder.get(nodeId);
+        if (order == null) {
+            return;
+        }
+        if (incoming(nodeId).isEmpty()) {
+            sourceQueues.put(order, queuesByOrder.get(order));
+        } else {
+            sourceQueues.remove(order);
+        }
+    }
+
+    private void refreshStartQueue() {
+        Map.Entry<Long, ProductionQueue> first = sourceQueues.isEmpty()
+                ? queuesByOrder.firstEntry()
+                : sourceQueues.firstEntry();
+        startQueue = first == null ? null : first.getValue();
+    }
+
+    // ============ O(1) LOOKUPS ============
+
+    public Machine getMachine(String id) {
+        return machinesById.get(id);
+    }
+
+    public ProductionQueue getQueue(String id) {
+        return queuesById.get(id);
+    }
+
+    // Queue feeding the machine through its first incoming connection, if that comes from a queue
+    public ProductionQueue inputQueueOf(String machineId) {
+        List<String> sources = incoming(machineId);
+        return sources.isEmpty() ? null : queuesById.get(sources.get(0));
+    }
+
+    // Queue fed by the machine's first outgoing connection, if that goes to a queue
+    public ProductionQueue outputQueueOf(String machineId) {
+        List<String> targets = outgoing(machineId);
+        return targets.isEmpty() ? null : queuesById.get(targets.get(0));
+    }
+
+    public ProductionQueue getStartQueue() {
+        return startQueue;
+    }
+
+    public boolean hasOutgoing(String nodeId) {
+        return !outgoing(nodeId).isEmpty();
+    }
+
+    private List<String> outgoing(String nodeId) {
+        return outgoing.getOrDefault(nodeId, List.of());
+    }
+
+    private List<String> incoming(String nodeId) {
+        return incoming.getOrDefault(nodeId, List.of());
+    }
+
+    // ============ ORDERED COPIES ============
+
+    public synchronized List<Machine> getMachines() {
+        return new ArrayList<>(machines.values());
+    }
+
+    public synchronized List<ProductionQueue> getQueues() {
+        return new ArrayList<>(queues.values());
+    }
+
+    public synchronized List<Connection> getConnections() {
+        return new ArrayList<>(connections);
+    }
+
+    // "M1", "M2", ... and "Q0", "Q1", ...: the count-based id, or the next free one after a removal
+    public synchronized String nextMachineId() {
+        return nextFreeId("M", machines.size() + 1);
+    }
+
+    public synchronized String nextQueueId() {
+        return nextFreeId("Q", queues.size());
+    }
+
+    private String nextFreeId(String prefix, int start) {
+        int n = start;
+        while (machines.containsKey(prefix + n) || queues.containsKey(prefix + n)) {
+            n++;
+        }
+        return prefix + n;
+    }
+
+    public synchronized int machineCount() {
+        return machines.size();
+    }
+
+    public synchronized int queueCount() {
+        return queues.size();
+    }
+}
@@ -0,0 +1,258 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Websocket;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Connection;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.EventPayload;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.MachineStatusPayload;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.ProductCreatedPayload;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.ProductMovedPayload;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.SimulationEvent;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.MachineState;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.ProductState;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.QueueState;
+import org.springframework.web.socket.BinaryMessage;
+import tools.jackson.databind.JsonNode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding for clients that negotiate {@code encoding: "binary"}.
+ *
+ * Integers are unsigned LEB128 varints (coordinates are zigzag). An id is
+ * one varint {@code n << 2 | tag}: tag 0/1/2 means "M"/"Q"/"P" followed by the
+ * number n, and tag 3 means n UTF-8 bytes follow (n = 0 for none). Statuses,
+ * colors and event types are indices into the tables sent in the SUBSCRIBED
+ * reply. Index 255 means the raw value follows: a status string, or three RGB
+ * bytes for a color. A color of 254 means there is none.
+ *
+ * <pre>
+ * EVENT (1): type, timestamp, payload
+ *   machine status: machineId, status, color, productId, simTime
+ *   product moved:  productId, machineId, queueId, queueSize, simTime
+ *   created:        productId, queueId, priority, color, simTime
+ * STATE (2): version, running(0/1),
+ *   machines: count, [id, x, y, status, color, productId, processedCount]
+ *   queues:   count, [id, x, y, capacity, size, [productId, color, priority] * size]
+ *   connections: count, [from, to]
+ *   products: count, [id, color, priority, status]
+ * </pre>
+ *
+ * A STATE frame is always the full state; binary sessions never receive deltas.
+ * It is encoded from the same captured frame the text frames are written
+ * from, straight from its fingerprints, so both encodings describe the same
+ * version and a binary-only version is never turned into JSON. Statistics are not part of it and
+ * stay on their own JSON topic.
+ *
+ * Not thread-safe: the buffer is reused across calls.
+ */
+public class BinaryFrameEncoder {
+    public static final byte KIND_EVENT = 1;
+    public static final byte KIND_STATE = 2;
+
+    public static final List<String> EVENT_TYPES = List.of("MACHINE_IDLE", "MACHINE_PROCESSING",
+            "MACHINE_BREAKDOWN", "MACHINE_FLASH", "MACHINE_BLOCKED", "PRODUCT_MOVED", "PRODUCT_CREATED");
+    public static final List<String> STATUSES = List.of("idle", "processing", "maintenance", "flashing",
+            "blocked", "waiting", "completed");
+    public static final List<String> PALETTE = List.of("#94a3b8", "#ef4444", "#3b82f6", "#10b981",
+            "#f59e0b", "#8b5cf6");
+
+    private static final int RAW = 255;
+    private static final int NO_COLOR = 254;
+    private static final String ID_PREFIXES = "MQP";
+
+    private byte[] buffer = new byte[256];
+    private int length;
+
+    public BinaryMessage encodeEvent(SimulationEvent event) {
+        length = 0;
+        writeByte(KIND_EVENT);
+        writeCode(EVENT_TYPES.indexOf(event.getType()), event.getType());
+        writeVarint(event.getTimestamp());
+        EventPayload payload = event.getData();
+        switch (payload) {
+            case null -> { }
+            case MachineStatusPayload p -> {
+                writeId(p.machineId());
+                writeCode(STATUSES.indexOf(p.status()), p.status());
+                writeColor(p.color());
+                writeId(p.productId());
+                writeVarint(p.simTime());
+            }
+            case ProductMovedPayload p -> {
+                writeId(p.productId());
+                writeId(p.machineId());
+                writeId(p.queueId());
+                writeVarint(p.queueSize());
+                writeVarint(p.simTime());
+            }
+            case ProductCreatedPayload p -> {
+                writeId(p.productId());
+                writeId(p.queueId());
+                writeVarint(p.priority());
+                writeColor(p.color());
+                writeVarint(p.simTime());
+            }
+        }
+        return message();
+    }
+
+    public BinaryMessage encodeState(StateFrameCache.StateFrame frame) {
+        length = 0;
+        writeByte(KIND_STATE);
+        writeVarint(frame.version());
+        JsonNode running = frame.field("isRunning");
+        writeByte(running != null && running.asBoolean() ? 1 : 0);
+
+        List<StateFrameCache.Entity> machines = frame.entities("machines");
+        writeVarint(machines.size());
+        for (StateFrameCache.Entity entity : machines) {
+            MachineState machine = (MachineState) entity.fingerprint();
+            writeId(machine.id());
+            writeZigzag(Math.round(machine.x()));
+            writeZigzag(Math.round(machine.y()));
+            writeCode(STATUSES.indexOf(machine.status()), machine.status());
+            writeColor(machine.color());
+            writeId(machine.currentProduct() == null ? null : machine.currentProduct().id());
+            writeVarint(machine.processedCount());
+        }
+
+        List<StateFrameCache.Entity> queues = frame.entities("queues");
+        writeVarint(queues.size());
+        for (StateFrameCache.Entity entity : queues) {
+            QueueState queue = ((StateFrameCache.QueueFingerprint) entity.fingerprint()).queue();
+            writeId(queue.id());
+            writeZigzag(Math.round(queue.x()));
+            writeZigzag(Math.round(queue.y()));
+            writeVarint(queue.capacity());
+            writeVarint(queue.products().size());
+            for (ProductState product : queue.products()) {
+                writeId(product.id());
+                writeColor(product.color());
+                writeVarint(product.priority());
+            }
+        }
+
+        List<StateFrameCache.Entity> connections = frame.entities("connections");
+        writeVarint(connections.size());
+        for (StateFrameCache.Entity entity : connections) {
+            Connection connection = (Connection) entity.fingerprint();
+            writeId(connection.getFrom());
+            writeId(connection.getTo());
+        }
+
+        List<StateFrameCache.Entity> products = frame.entities("products");
+        writeVarint(products.size());
+        for (StateFrameCache.Entity entity : products) {
+            ProductState product = (ProductState) entity.fingerprint();
+            writeId(product.id());
+            writeColor(product.color());
+            writeVarint(product.priority());
+            writeCode(STATUSES.indexOf(product.status()), product.status());
+        }
+        return message();
+    }
+
+    private BinaryMessage message() {
+        return new BinaryMessage(Arrays.copyOf(buffer, length));
+    }
+
+    private void writeId(String id) {
+        if (id == null) {
+            writeVarint(3);
+            return;
+        }
+        int tag = id.length() > 1 ? ID_PREFIXES.indexOf(id.charAt(0)) : -1;
+        if (tag >= 0) {
+            long number = parseNumber(id);
+            if (number >= 0) {
+                writeVarint(number << 2 | tag);
+                return;
+            }
+        }
+        byte[] raw = id.getBytes(StandardCharsets.UTF_8);
+        writeVarint((long) raw.length << 2 | 3);
+        writeBytes(raw);
+    }
+
+    // Digits after the one-letter prefix, or -1 if the id has any other shape (e.g. "M1#2", "Q01")
+    private static long parseNumber(String id) {
+        if (id.length() > 2 && id.charAt(1) == '0') {
+            return -1;
+        }
+        long number = 0;
+        for (int i = 1; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9' || i > 18) {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    private void writeCode(int index, String raw) {
+        if (index >= 0) {
+            writeByte(index);
+        } else {
+            writeByte(RAW);
+            byte[] bytes = raw == null ? new byte[0] : raw.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes);
+        }
+    }
+
+    private void writeColor(String color) {
+        if (color == null) {
+            writeByte(NO_COLOR);
+            return;
+        }
+        int index = PALETTE.indexOf(color);
+        if (index >= 0) {
+            writeByte(index);
+            return;
+        }
+        writeByte(RAW);
+        int rgb = 0;
+        if (color.length() >= 7 && color.charAt(0) == '#') {
+            try {
+                rgb = Integer.parseInt(color.substring(1, 7), 16);
+            } catch (NumberFormatException ignored) {
+                // Not a hex color; sent as black
+            }
+        }
+        writeByte(rgb >>> 16);
+        writeByte(rgb >>> 8);
+        writeByte(rgb);
+    }
+
+    private void writeZigzag(long value) {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarint(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    private void writeByte(int value) {
+        ensure(1);
+        buffer[length++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+}
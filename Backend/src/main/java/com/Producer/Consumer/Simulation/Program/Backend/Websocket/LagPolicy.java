@@ -0,0 +1,17 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Websocket;
+
+// What to do with a session whose outbound queue is full
+public enum LagPolicy {
+    DROP,       // discard the oldest queued frame to make room
+    KEYFRAME,   // discard the queued state frames and send one fresh full state instead
+    DISCONNECT; // close the session; the client reconnects and starts from a keyframe
+
+    public static LagPolicy from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown lag policy: " + value
+                    + " (expected drop, keyframe or disconnect)");
+        }
+    }
+}
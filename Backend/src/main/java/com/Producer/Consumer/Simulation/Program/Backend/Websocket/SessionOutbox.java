@@ -0,0 +1,170 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Websocket;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded outbound queue for one WebSocket session, drained by the session's
+ * own writer thread. Broadcasters only enqueue, so a slow browser delays
+ * nobody but itself. When the queue is full the {@link LagPolicy} decides.
+ */
+public class SessionOutbox {
+    // A null message is a placeholder the writer resolves into a fresh keyframe at send time.
+    // Only state frames may be replaced by a keyframe; the rest must all arrive.
+    private record Frame(WebSocketMessage<?> message, boolean state, long enqueuedNanos) {
+    }
+
+    private final WebSocketSession session;
+    private final LagPolicy policy;
+    private final int capacity;
+    private final ArrayBlockingQueue<Frame> queue;
+    private final Function<WebSocketSession, WebSocketMessage<?>> keyframeSource;
+    // Serializes producers so the full-queue handling is atomic; the writer never takes it
+    private final ReentrantLock enqueueLock = new ReentrantLock();
+    private final Thread writer;
+    private volatile boolean closing;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder keyframes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile int maxDepth;
+
+    public SessionOutbox(WebSocketSession session, int capacity, LagPolicy policy,
+                         Function<WebSocketSession, WebSocketMessage<?>> keyframeSource) {
+        this.session = session;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.keyframeSource = keyframeSource;
+        this.writer = Thread.ofVirtual().name("ws-writer-" + session.getId()).start(this::drain);
+    }
+
+    // Messages are immutable, so one instance can sit in every session's queue
+    public void enqueue(WebSocketMessage<?> message) {
+        enqueue(new Frame(message, false, System.nanoTime()));
+    }
+
+    // A full or delta state frame, which a later keyframe makes redundant
+    public void enqueueState(WebSocketMessage<?> message) {
+        enqueue(new Frame(message, true, System.nanoTime()));
+    }
+
+    private void enqueue(Frame frame) {
+        if (closing) {
+            return;
+        }
+        enqueueLock.lock();
+        try {
+            if (!queue.offer(frame)) {
+                switch (policy) {
+                    case DROP -> {
+                        if (queue.poll() != null) {
+                            dropped.increment();
+                        }
+                        queue.offer(frame);
+                    }
+                    case KEYFRAME -> replaceStateWithKeyframe(frame);
+                    case DISCONNECT -> disconnect();
+                }
+            }
+            maxDepth = Math.max(maxDepth, queue.size());
+        } finally {
+            enqueueLock.unlock();
+        }
+    }
+
+    // Drops the queued state frames for one keyframe placeholder; events and control messages stay in order
+    private void replaceStateWithKeyframe(Frame frame) {
+        int before = queue.size();
+        queue.removeIf(Frame::state);
+        dropped.add(before - queue.size());
+        if (!queue.offer(new Frame(null, true, frame.enqueuedNanos()))) {
+            // Nothing but messages that must arrive is queued: the client can't keep up at all
+            disconnect();
+            return;
+        }
+        if (frame.state()) {
+            dropped.increment();
+        } else if (!queue.offer(frame)) {
+            disconnect();
+        }
+    }
+
+    private void disconnect() {
+        dropped.add(queue.size() + 1);
+        System.out.println("⚠️ WebSocket " + session.getId() + " fell "
+                + capacity + " frames behind, disconnecting");
+        close();
+    }
+
+    private void drain() {
+        try {
+            while (!closing) {
+                Frame frame = queue.take();
+                WebSocketMessage<?> message = frame.message();
+                if (message == null) {
+                    message = keyframeSource.apply(session);
+                    keyframes.increment();
+                    if (message == null) {
+                        continue;
+                    }
+                }
+                try {
+                    session.sendMessage(message);
+                    sent.increment();
+                } catch (Exception e) {
+                    errors.increment();
+                    System.err.println("❌ Error sending to session " + session.getId() + ": " + e.getMessage());
+                    if (!session.isOpen()) {
+                        break;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (closing && session.isOpen()) {
+                try {
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (Exception ignored) {
+                    // Already gone
+                }
+            }
+        }
+    }
+
+    // Stops the writer; the session is closed if it is still open
+    public void close() {
+        closing = true;
+        queue.clear();
+        writer.interrupt();
+    }
+
+    public Map<String, Object> metrics() {
+        Frame head = queue.peek();
+        long lagMillis = head == null ? 0
+                : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - head.enqueuedNanos());
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("sessionId", session.getId());
+        metrics.put("queueDepth", queue.size());
+        metrics.put("maxQueueDepth", maxDepth);
+        metrics.put("capacity", capacity);
+        metrics.put("lagMillis", lagMillis);
+        metrics.put("sent", sent.sum());
+        metrics.put("dropped", dropped.sum());
+        metrics.put("keyframes", keyframes.sum());
+        metrics.put("errors", errors.sum());
+        metrics.put("policy", policy.name().toLowerCase());
+        return metrics;
+    }
+}
@@ -1,47 +1,122 @@
 package com.Producer.Consumer.Simulation.Program.Backend.Websocket;
 
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ObjectNode;
 //import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 @Component
 public class SimulationWebSocketHandler extends TextWebSocketHandler {
 
     private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    // Per-session bounded queue and writer; broadcasting only enqueues
+    private final Map<String, SessionOutbox> outboxes = new ConcurrentHashMap<>();
+    // Who wants what; nothing is serialized for a topic without subscribers
+    private final TopicRegistry topics = new TopicRegistry();
+    private final int outboundQueueSize;
+    private final LagPolicy lagPolicy;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // Delta clients opt in with SUBSCRIBE {delta: true}; the rest keep receiving full state
+    private static final String DELTA_ATTR = "delta";
+    private static final String ACK_ATTR = "ackVersion";
+    private final StateDeltaTracker stateTracker;
+    private volatile Supplier<StateFrameCache.StateFrame> frameSupplier;
+
+    // Binary clients opt in with SUBSCRIBE {encoding: "binary"} and get BinaryMessage events and full state
+    // frames; a delta request from them only subscribes the state topic
+    private static final String ENCODING_ATTR = "encoding";
+    private static final String BINARY = "binary";
+    private final BinaryFrameEncoder stateEncoder = new BinaryFrameEncoder();
+    private long binaryStateVersion = -1;
+    private BinaryMessage binaryState;
+
+    public SimulationWebSocketHandler(@Value("${simulation.websocket.delta-history:128}") int deltaHistory,
+                                      @Value("${simulation.websocket.outbound-queue:256}") int outboundQueueSize,
+                                      @Value("${simulation.websocket.lag-policy:keyframe}") String lagPolicy) {
+        this.stateTracker = new StateDeltaTracker(objectMapper, deltaHistory);
+        this.outboundQueueSize = outboundQueueSize;
+        this.lagPolicy = LagPolicy.from(lagPolicy);
+    }
+
+    // Source of the current state frame for keyframes requested between broadcasts
+    public void setFrameSupplier(Supplier<StateFrameCache.StateFrame> frameSupplier) {
+        this.frameSupplier = frameSupplier;
+    }
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        sessions.put(session.getId(), session);
         System.out.println("✅ WebSocket connected: " + session.getId());
 
         Map<String, Object> message = new HashMap<>();
         message.put("type", "CONNECTED");
         message.put("sessionId", session.getId());
+        message.put("encodings", List.of("json", BINARY));
         session.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
+        // Register only after the greeting so a concurrent broadcast can't interleave with it
+        outboxes.put(session.getId(), new SessionOutbox(session, outboundQueueSize, lagPolicy, this::keyframeFor));
+        topics.subscribe(session.getId(), TopicRegistry.DEFAULT_TOPICS);
+        sessions.put(session.getId(), session);
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         String payload = message.getPayload();
-        System.out.println("📨 Received: " + payload);
 
         @SuppressWarnings("unchecked")
         Map<String, Object> data = objectMapper.readValue(payload, Map.class);
-        if ("SUBSCRIBE".equals(data.get("type"))) {
-            session.getAttributes().put("topics", data.get("topics"));
-            System.out.println("📌 Client subscribed to topics");
+        Object type = data.get("type");
+        if ("SUBSCRIBE".equals(type)) {
+            List<String> requested = topicList(data.get("topics"), TopicRegistry.DEFAULT_TOPICS);
+            if (Boolean.TRUE.equals(data.get("delta")) && !requested.contains(TopicRegistry.STATE_DELTA)) {
+                requested.add(TopicRegistry.STATE_DELTA);
+            }
+            topics.subscribe(session.getId(), requested);
+            System.out.println("📌 Client subscribed to topics " + topics.topicsOf(session.getId()));
+            if (BINARY.equals(data.get(ENCODING_ATTR))) {
+                // The lookup tables must be queued before the first binary frame can be
+                sendBinaryHandshake(session);
+                session.getAttributes().put(ENCODING_ATTR, BINARY);
+                sendKeyframe(session);
+            } else if (Boolean.TRUE.equals(data.get("delta"))) {
+                session.getAttributes().put(DELTA_ATTR, true);
+                sendKeyframe(session);
+            }
+        } else if ("ACK".equals(type) && data.get("version") instanceof Number acked) {
+            session.getAttributes().merge(ACK_ATTR, acked.longValue(),
+                    (current, next) -> Math.max((Long) current, (Long) next));
+        } else if ("KEYFRAME_REQUEST".equals(type)) {
+            sendKeyframe(session);
+        } else if ("UNSUBSCRIBE".equals(type)) {
+            topics.unsubscribe(session.getId(), topicList(data.get("topics"), List.of()));
         }
     }
 
+    private static List<String> topicList(Object value, List<String> fallback) {
+        List<String> list = new ArrayList<>();
+        if (value instanceof Collection<?> items) {
+            items.forEach(item -> list.add(String.valueOf(item)));
+        } else {
+            list.addAll(fallback);
+        }
+        return list;
+    }
+
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         sessions.remove(session.getId());
+        topics.unsubscribeAll(session.getId());
+        SessionOutbox outbox = outboxes.remove(session.getId());
+        if (outbox != null) {
+            outbox.close();
+        }
         System.out.println("🔌 WebSocket disconnected: " + session.getId());
     }
 
@@ -62,33 +137,207 @@ public class SimulationWebSocketHandler extends TextWebSocketHandler {
 //    }
 // Replace the broadcast method in SimulationWebSocketHandler.java with this:
 
-    public synchronized void broadcast(String topic, Object data) {
+    public void broadcast(String topic, Object data) {
+        String canonical = TopicRegistry.canonical(topic);
+        Set<String> subscribers = topics.subscribers(canonical);
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        TextMessage message = message(canonical, data);
+        if (message == null) {
+            return;
+        }
+        for (String sessionId : subscribers) {
+            WebSocketSession session = sessions.get(sessionId);
+            if (session != null) {
+                send(session, message);
+            }
+        }
+    }
+
+    public boolean hasSubscribers(String topic) {
+        return topics.hasSubscribers(TopicRegistry.canonical(topic));
+    }
+
+    // True if anyone follows full state or deltas, i.e. a state frame is worth encoding
+    public boolean wantsState() {
+        return topics.hasSubscribers(TopicRegistry.STATE_UPDATE) || topics.hasSubscribers(TopicRegistry.STATE_DELTA);
+    }
+
+    /**
+     * An event goes to every session subscribed to any of its topics (the
+     * event stream, or one machine or queue), once per session. Each encoding
+     * is produced at most once, and only if some recipient uses it.
+     */
+    public void broadcastEvent(Collection<String> eventTopics, Supplier<String> jsonMessage,
+                               Supplier<BinaryMessage> binaryMessage) {
+        Set<String> recipients = new HashSet<>();
+        for (String topic : eventTopics) {
+            recipients.addAll(topics.subscribers(topic));
+        }
+        TextMessage text = null;
+        BinaryMessage binary = null;
+        for (String sessionId : recipients) {
+            WebSocketSession session = sessions.get(sessionId);
+            if (session == null) {
+                continue;
+            }
+            if (isBinarySession(session)) {
+                if (binary == null) {
+                    binary = binaryMessage.get();
+                }
+                send(session, binary);
+            } else {
+                if (text == null) {
+                    text = new TextMessage(jsonMessage.get());
+                }
+                send(session, text);
+            }
+        }
+    }
+
+    /**
+     * Full state on /topic/state-update for legacy clients; for delta clients,
+     * a diff from each one's last acknowledged version on /topic/state-delta.
+     * Legacy sessions share the frame's cached encoding; delta sessions
+     * acknowledging the same version share one serialized delta.
+     */
+    public void broadcastState(StateFrameCache.StateFrame stateFrame) {
+        boolean hasDeltaSessions = false;
+        for (WebSocketSession session : sessions.values()) {
+            boolean wantsUpdate = topics.isSubscribed(session.getId(), TopicRegistry.STATE_UPDATE);
+            boolean wantsDelta = topics.isSubscribed(session.getId(), TopicRegistry.STATE_DELTA);
+            if (!wantsUpdate && !wantsDelta) {
+                continue;
+            }
+            if (isBinarySession(session)) {
+                sendState(session, binaryStateFor(stateFrame));
+            } else if (isDeltaSession(session) && wantsDelta) {
+                hasDeltaSessions = true;
+            } else if (wantsUpdate) {
+                sendState(session, stateFrame.updateMessage());
+            }
+        }
+        if (!hasDeltaSessions) {
+            return;
+        }
+
+        long version = stateTracker.commit(stateFrame);
+        Map<Long, TextMessage> framesByBase = new HashMap<>();
+        for (WebSocketSession session : sessions.values()) {
+            if (!isDeltaSession(session) || isBinarySession(session)
+                    || !topics.isSubscribed(session.getId(), TopicRegistry.STATE_DELTA)) {
+                continue;
+            }
+            long acked = (Long) session.getAttributes().getOrDefault(ACK_ATTR, -1L);
+            if (acked >= version) {
+                continue;
+            }
+            TextMessage frame = framesByBase.computeIfAbsent(acked, base -> {
+                Object delta = stateTracker.deltaSince(base);
+                return message("/topic/state-delta", delta != null ? delta : stateTracker.keyframe());
+            });
+            if (frame != null) {
+                sendState(session, frame);
+            }
+        }
+    }
+
+    private void sendKeyframe(WebSocketSession session) {
+        WebSocketMessage<?> frame = keyframeFor(session);
+        if (frame != null) {
+            sendState(session, frame);
+        }
+    }
+
+    // Full current state in the session's own format: a delta keyframe, or a plain state update
+    private WebSocketMessage<?> keyframeFor(WebSocketSession session) {
+        StateFrameCache.StateFrame stateFrame = frameSupplier.get();
+        if (isBinarySession(session)) {
+            return binaryStateFor(stateFrame);
+        }
+        if (!isDeltaSession(session)) {
+            return stateFrame.updateMessage();
+        }
+        stateTracker.commit(stateFrame);
+        ObjectNode keyframe = stateTracker.keyframe();
+        // The socket is ordered and reliable, so the keyframe becomes the session's new baseline
+        session.getAttributes().put(ACK_ATTR, keyframe.get("version").asLong());
+        return message("/topic/state-delta", keyframe);
+    }
+
+    // Lookup tables the client needs to decode status, color and event type indices
+    private void sendBinaryHandshake(WebSocketSession session) {
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("type", "SUBSCRIBED");
+        reply.put(ENCODING_ATTR, BINARY);
+        reply.put("eventTypes", BinaryFrameEncoder.EVENT_TYPES);
+        reply.put("statuses", BinaryFrameEncoder.STATUSES);
+        reply.put("palette", BinaryFrameEncoder.PALETTE);
+        try {
+            send(session, new TextMessage(objectMapper.writeValueAsString(reply)));
+        } catch (Exception e) {
+            System.err.println("❌ Error serializing message: " + e.getMessage());
+        }
+    }
+
+    // One binary encoding per state version, shared by all binary sessions
+    private synchronized BinaryMessage binaryStateFor(StateFrameCache.StateFrame stateFrame) {
+        if (binaryState == null || binaryStateVersion != stateFrame.version()) {
+            binaryState = stateEncoder.encodeState(stateFrame);
+            binaryStateVersion = stateFrame.version();
+        }
+        return binaryState;
+    }
+
+    private boolean isBinarySession(WebSocketSession session) {
+        return BINARY.equals(session.getAttributes().get(ENCODING_ATTR));
+    }
+
+    private boolean isDeltaSession(WebSocketSession session) {
+        return Boolean.TRUE.equals(session.getAttributes().get(DELTA_ATTR));
+    }
+
+    private String envelope(String topic, Object data) {
         Map<String, Object> message = new HashMap<>();
         message.put("topic", topic);
         message.put("data", data);
-
-        String jsonMessage;
         try {
-            jsonMessage = objectMapper.writeValueAsString(message);
+            return objectMapper.writeValueAsString(message);
         } catch (Exception e) {
             System.err.println("❌ Error serializing message: " + e.getMessage());
-            return;
+            return null;
         }
+    }
 
-        sessions.values().forEach(session -> {
-            if (session.isOpen()) {
-                try {
-                    synchronized (session) {
-                        session.sendMessage(new TextMessage(jsonMessage));
-                    }
-                } catch (Exception e) {
-                    // Only log if it's NOT the TEXT_PARTIAL_WRITING error
-                    if (e.getMessage() == null || !e.getMessage().contains("TEXT_PARTIAL_WRITING")) {
-                        System.err.println("❌ Error broadcasting to session: " + e.getMessage());
-                    }
-                    // Otherwise silently skip - next update will arrive soon
-                }
-            }
+    private TextMessage message(String topic, Object data) {
+        String json = envelope(topic, data);
+        return json != null ? new TextMessage(json) : null;
+    }
+
+    private void send(WebSocketSession session, WebSocketMessage<?> message) {
+        SessionOutbox outbox = outboxes.get(session.getId());
+        if (outbox != null && session.isOpen()) {
+            outbox.enqueue(message);
+        }
+    }
+
+    // State frames may be dropped for a keyframe when the session lags
+    private void sendState(WebSocketSession session, WebSocketMessage<?> message) {
+        SessionOutbox outbox = outboxes.get(session.getId());
+        if (outbox != null && session.isOpen()) {
+            outbox.enqueueState(message);
+        }
+    }
+
+    // Queue depth, lag and drop counters for every connected session
+    public List<Map<String, Object>> getSessionMetrics() {
+        List<Map<String, Object>> metrics = new ArrayList<>();
+        outboxes.forEach((id, outbox) -> {
+            Map<String, Object> entry = outbox.metrics();
+            entry.put("topics", topics.topicsOf(id));
+            metrics.add(entry);
         });
+        return metrics;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,270 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Websocket;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Server-Sent Events for passive watchers (dashboards, curl, CLI tools) that
+ * don't speak the WebSocket protocol.
+ *
+ * The state stream carries a keyframe and then deltas, with the state version
+ * as the event id, so a reconnect with Last-Event-ID resumes from where the
+ * client left off (ids are "epoch-version", so ids from before a restart
+ * get a keyframe). The statistics stream carries the latest statistics.
+ *
+ * Nothing is queued per client: a publish only marks the client pending. Its
+ * writer sends whatever is current when it gets to run, so a slow reader
+ * skips intermediate versions instead of growing a buffer on the server.
+ */
+@Component
+public class SseStreamHub {
+    private static final String STATISTICS = "statistics";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Own version space, independent of what the WebSocket sessions acknowledge
+    private final StateDeltaTracker stateTracker;
+    private final Set<Client> stateClients = ConcurrentHashMap.newKeySet();
+    private final Set<Client> statisticsClients = ConcurrentHashMap.newKeySet();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeat;
+    private final long reconnectMillis;
+    private final long epoch = System.currentTimeMillis();
+
+    private volatile Supplier<StateFrameCache.StateFrame> frameSupplier;
+    private volatile Supplier<Object> statisticsSupplier = () -> null;
+
+    // Encoded once per version and shared by every client at the same base
+    private volatile EncodedState encodedState = new EncodedState(-1);
+    private volatile EncodedStatistics encodedStatistics = new EncodedStatistics(-1, null);
+    private long statisticsVersion;
+
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder updatesCoalesced = new LongAdder();
+
+    private record Payload(String name, String json) {
+    }
+
+    private record EncodedState(long version, Map<Long, Payload> byBase) {
+        EncodedState(long version) {
+            this(version, new ConcurrentHashMap<>());
+        }
+    }
+
+    private record EncodedStatistics(long version, String json) {
+    }
+
+    private final class Client {
+        final SseEmitter emitter;
+        final Set<Client> stream;
+        final AtomicBoolean pending = new AtomicBoolean(true);
+        final AtomicBoolean writing = new AtomicBoolean();
+        volatile long sentVersion;
+
+        Client(SseEmitter emitter, Set<Client> stream, long sentVersion) {
+            this.emitter = emitter;
+            this.stream = stream;
+            this.sentVersion = sentVersion;
+        }
+    }
+
+    public SseStreamHub(@Value("${simulation.websocket.delta-history:128}") int deltaHistory,
+                        @Value("${simulation.sse.heartbeat-seconds:15}") int heartbeatSeconds,
+                        @Value("${simulation.sse.reconnect-ms:2000}") long reconnectMillis) {
+        this.stateTracker = new StateDeltaTracker(objectMapper, deltaHistory);
+        this.reconnectMillis = reconnectMillis;
+        // Comments keep idle connections open through proxies and reveal clients that went away
+        heartbeat = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("sse-heartbeat").daemon(true).factory());
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    public void setSources(Supplier<StateFrameCache.StateFrame> frameSupplier, Supplier<Object> statisticsSupplier) {
+        this.frameSupplier = frameSupplier;
+        this.statisticsSupplier = statisticsSupplier;
+    }
+
+    // A Last-Event-ID still covered by the delta history resumes with a delta; anything else starts with a keyframe
+    public SseEmitter openStateStream(String lastEventId) {
+        stateTracker.commit(frameSupplier.get());
+        return open(stateClients, parseVersion(lastEventId));
+    }
+
+    public SseEmitter openStatisticsStream() {
+        publishStatistics(statisticsSupplier.get());
+        return open(statisticsClients, -1);
+    }
+
+    private SseEmitter open(Set<Client> stream, long sentVersion) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Client client = new Client(emitter, stream, sentVersion);
+        emitter.onCompletion(() -> stream.remove(client));
+        emitter.onTimeout(() -> stream.remove(client));
+        emitter.onError(error -> stream.remove(client));
+        stream.add(client);
+        schedule(client);
+        return emitter;
+    }
+
+    public boolean hasStateClients() {
+        return !stateClients.isEmpty();
+    }
+
+    public boolean hasStatisticsClients() {
+        return !statisticsClients.isEmpty();
+    }
+
+    public void publishState(StateFrameCache.StateFrame stateFrame) {
+        stateTracker.commit(stateFrame);
+        stateClients.forEach(this::wake);
+    }
+
+    public void publishStatistics(Object statistics) {
+        synchronized (this) {
+            statisticsVersion++;
+            encodedStatistics = new EncodedStatistics(statisticsVersion, json(statistics));
+        }
+        statisticsClients.forEach(this::wake);
+    }
+
+    private void wake(Client client) {
+        if (client.pending.getAndSet(true)) {
+            updatesCoalesced.increment();
+        }
+        schedule(client);
+    }
+
+    private void schedule(Client client) {
+        if (client.writing.compareAndSet(false, true)) {
+            writers.execute(() -> drain(client));
+        }
+    }
+
+    // Runs until nothing is pending; a publish during a slow send just sets the flag again
+    private void drain(Client client) {
+        while (true) {
+            if (!client.pending.getAndSet(false)) {
+                client.writing.set(false);
+                if (!client.pending.get() || !client.writing.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                if (client.stream == stateClients) {
+                    sendState(client);
+                } else {
+                    sendStatistics(client);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; Spring completes the emitter and the callback would remove it too
+                client.stream.remove(client);
+                client.writing.set(false);
+                return;
+            }
+        }
+    }
+
+    private void sendState(Client client) throws IOException {
+        long version = stateTracker.getVersion();
+        if (client.sentVersion == version) {
+            return;
+        }
+        EncodedState encoded = encodedState;
+        if (encoded.version() != version) {
+            encoded = new EncodedState(version);
+            encodedState = encoded;
+        }
+        Payload payload = encoded.byBase().computeIfAbsent(client.sentVersion, base -> {
+            ObjectNode delta = base >= 0 && base < version ? stateTracker.deltaSince(base) : null;
+            return delta != null ? new Payload("delta", json(delta)) : new Payload("keyframe", json(stateTracker.keyframe()));
+        });
+        if (payload.json() != null) {
+            send(client, payload.name(), version, payload.json());
+        }
+    }
+
+    private void sendStatistics(Client client) throws IOException {
+        EncodedStatistics encoded = encodedStatistics;
+        if (encoded.json() == null || client.sentVersion == encoded.version()) {
+            return;
+        }
+        send(client, STATISTICS, encoded.version(), encoded.json());
+    }
+
+    private void send(Client client, String name, long version, String data) throws IOException {
+        SseEmitter.SseEventBuilder event = SseEmitter.event().id(epoch + "-" + version).name(name).data(data);
+        if (client.sentVersion < 0) {
+            event.reconnectTime(reconnectMillis);
+        }
+        client.emitter.send(event);
+        client.sentVersion = version;
+        eventsSent.increment();
+    }
+
+    private void sendHeartbeats() {
+        for (Set<Client> stream : List.of(stateClients, statisticsClients)) {
+            for (Client client : stream) {
+                try {
+                    client.emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    stream.remove(client);
+                }
+            }
+        }
+    }
+
+    // "<epoch>-<version>"; an id from before a restart names a different version space
+    private long parseVersion(String lastEventId) {
+        String prefix = epoch + "-";
+        if (lastEventId == null || !lastEventId.trim().startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim().substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            System.err.println("❌ Error serializing SSE payload: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        return Map.of(
+                "sseStateClients", stateClients.size(),
+                "sseStatisticsClients", statisticsClients.size(),
+                "sseEventsSent", eventsSent.sum(),
+                "sseUpdatesCoalesced", updatesCoalesced.sum());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        writers.shutdownNow();
+        stateClients.forEach(client -> client.emitter.complete());
+        statisticsClients.forEach(client -> client.emitter.complete());
+    }
+}
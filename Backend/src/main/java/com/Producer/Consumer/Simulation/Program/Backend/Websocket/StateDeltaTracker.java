@@ -0,0 +1,207 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Websocket;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Versioned copy of the simulation state for delta-encoded broadcasts.
+ *
+ * Each commit takes a state frame's tree apart into one node per entity
+ * (machines, queues, products and connections, keyed by id) plus one node
+ * per scalar field. It compares them with the previous version and records
+ * what was added, changed or removed. Recent per-version deltas are kept, so
+ * a client can be brought from any recent acknowledged version to the
+ * current one in a single message. Older clients get a keyframe.
+ *
+ * Nothing is serialized here. The frame cache keeps an unchanged entity's
+ * node from one frame to the next, so most entities are told unchanged by
+ * identity, without comparing their contents.
+ */
+public class StateDeltaTracker {
+    static final List<String> COLLECTIONS = StateFrameCache.COLLECTIONS;
+
+    private final ObjectMapper objectMapper;
+    private final int historySize;
+
+    private long version;
+    private StateFrameCache.StateFrame lastFrame;
+    private Map<String, Map<String, JsonNode>> entities = emptyCollections();
+    private Map<String, JsonNode> fields = new LinkedHashMap<>();
+    private final ArrayDeque<Delta> history = new ArrayDeque<>();
+
+    // Changes that turn version - 1 into version
+    private record Delta(long version, Map<String, Map<String, JsonNode>> changed,
+                         Map<String, Set<String>> removed, Map<String, JsonNode> fields) {
+    }
+
+    public StateDeltaTracker(ObjectMapper objectMapper, int historySize) {
+        this.objectMapper = objectMapper;
+        this.historySize = historySize;
+    }
+
+    // Records the frame as a new version if anything differs; returns the current version
+    public synchronized long commit(StateFrameCache.StateFrame frame) {
+        // Keyframe requests commit the frame that was just broadcast again
+        if (frame == lastFrame) {
+            return version;
+        }
+        lastFrame = frame;
+        Map<String, Map<String, JsonNode>> nextEntities = emptyCollections();
+        Map<String, JsonNode> nextFields = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> entry : frame.tree().properties()) {
+            if (COLLECTIONS.contains(entry.getKey()) && entry.getValue().isArray()) {
+                Map<String, JsonNode> byId = nextEntities.get(entry.getKey());
+                for (JsonNode node : entry.getValue()) {
+                    byId.put(idOf(node), node);
+                }
+            } else {
+                nextFields.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        Map<String, Map<String, JsonNode>> changed = emptyCollections();
+        Map<String, Set<String>> removed = new HashMap<>();
+        boolean dirty = false;
+        for (String collection : COLLECTIONS) {
+            Map<String, JsonNode> before = entities.get(collection);
+            Map<String, JsonNode> after = nextEntities.get(collection);
+            for (Map.Entry<String, JsonNode> entry : after.entrySet()) {
+                JsonNode old = before.get(entry.getKey());
+                JsonNode node = entry.getValue();
+                if (old == null || (old != node && !node.equals(old))) {
+                    changed.get(collection).put(entry.getKey(), node);
+                    dirty = true;
+                }
+            }
+            for (String id : before.keySet()) {
+                if (!after.containsKey(id)) {
+                    removed.computeIfAbsent(collection, c -> new HashSet<>()).add(id);
+                    dirty = true;
+                }
+            }
+        }
+        Map<String, JsonNode> changedFields = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> entry : nextFields.entrySet()) {
+            if (!entry.getValue().equals(fields.get(entry.getKey()))) {
+                changedFields.put(entry.getKey(), entry.getValue());
+                dirty = true;
+            }
+        }
+
+        entities = nextEntities;
+        fields = nextFields;
+        if (dirty) {
+            version++;
+            history.addLast(new Delta(version, changed, removed, changedFields));
+            while (history.size() > historySize) {
+                history.removeFirst();
+            }
+        }
+        return version;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    // {"kind":"KEYFRAME","version":v,"state":{...}}
+    public synchronized ObjectNode keyframe() {
+        ObjectNode frame = objectMapper.createObjectNode();
+        frame.put("kind", "KEYFRAME");
+        frame.put("version", version);
+        ObjectNode state = frame.putObject("state");
+        fields.forEach(state::set);
+        for (String collection : COLLECTIONS) {
+            ArrayNode items = state.putArray(collection);
+            entities.get(collection).values().forEach(items::add);
+        }
+        return frame;
+    }
+
+    /**
+     * Everything that changed after baseVersion, merged into one
+     * {"kind":"DELTA","baseVersion":b,"version":v,"changed":{...},"removed":{...},"fields":{...}}.
+     * Returns null if the base is already current, or if it is older than the
+     * retained history (the caller sends a keyframe instead).
+     */
+    public synchronized ObjectNode deltaSince(long baseVersion) {
+        if (baseVersion >= version || !covers(baseVersion)) {
+            return null;
+        }
+        Map<String, Map<String, JsonNode>> changed = emptyCollections();
+        Map<String, Set<String>> removed = new HashMap<>();
+        Map<String, JsonNode> changedFields = new LinkedHashMap<>();
+        for (Delta delta : history) {
+            if (delta.version() <= baseVersion) {
+                continue;
+            }
+            for (String collection : COLLECTIONS) {
+                Set<String> gone = removed.computeIfAbsent(collection, c -> new HashSet<>());
+                for (Map.Entry<String, JsonNode> entry : delta.changed().get(collection).entrySet()) {
+                    changed.get(collection).put(entry.getKey(), entry.getValue());
+                    gone.remove(entry.getKey());
+                }
+                for (String id : delta.removed().getOrDefault(collection, Set.of())) {
+                    changed.get(collection).remove(id);
+                    gone.add(id);
+                }
+            }
+            changedFields.putAll(delta.fields());
+        }
+
+        ObjectNode frame = objectMapper.createObjectNode();
+        frame.put("kind", "DELTA");
+        frame.put("baseVersion", baseVersion);
+        frame.put("version", version);
+        ObjectNode changedNode = frame.putObject("changed");
+        ObjectNode removedNode = frame.putObject("removed");
+        for (String collection : COLLECTIONS) {
+            if (!changed.get(collection).isEmpty()) {
+                ObjectNode byId = changedNode.putObject(collection);
+                changed.get(collection).forEach(byId::set);
+            }
+            Set<String> gone = removed.get(collection);
+            if (gone != null && !gone.isEmpty()) {
+                ArrayNode ids = removedNode.putArray(collection);
+                gone.forEach(ids::add);
+            }
+        }
+        ObjectNode fieldsNode = frame.putObject("fields");
+        changedFields.forEach(fieldsNode::set);
+        return frame;
+    }
+
+    // True if every version after baseVersion is still in the history
+    private boolean covers(long baseVersion) {
+        Iterator<Delta> it = history.iterator();
+        return baseVersion >= 0 && it.hasNext() && it.next().version() <= baseVersion + 1;
+    }
+
+    private static String idOf(JsonNode node) {
+        JsonNode id = node.get("id");
+        if (id != null && !id.isNull()) {
+            return id.asString();
+        }
+        // Connections have no id of their own
+        return node.path("from").asString() + "->" + node.path("to").asString();
+    }
+
+    private static <T> Map<String, Map<String, T>> emptyCollections() {
+        Map<String, Map<String, T>> byCollection = new HashMap<>();
+        for (String collection : COLLECTIONS) {
+            byCollection.put(collection, new LinkedHashMap<>());
+        }
+        return byCollection;
+    }
+}
@@ -0,0 +1,258 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Websocket;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Connection;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.MachineState;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.ProductState;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.QueueState;
+import org.springframework.web.socket.TextMessage;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Capture-once cache for the full simulation state.
+ *
+ * Every change bumps a monotonically increasing version. The first reader of
+ * a version captures the state once, and all WebSocket sessions, SSE streams
+ * and REST pollers share that frame until the next change, so everyone sees
+ * the same state for a version. The ETag combines a per-boot epoch with the
+ * version, so it stays unique across restarts.
+ *
+ * Capturing only reduces machines, queues, products and connections to
+ * fingerprints: immutable records of the fields their JSON is made of. The
+ * JSON tree and its text are built the first time a JSON or delta consumer
+ * asks for them; a frame nobody reads as JSON is never serialized. An
+ * entity whose fingerprint is unchanged keeps the previous frame's entry,
+ * node included, so only what changed is converted, and the delta tracker
+ * can tell an unchanged entity by its node's identity.
+ */
+public class StateFrameCache {
+    static final List<String> COLLECTIONS = List.of("machines", "queues", "products", "connections");
+
+    // A queue's JSON is its state plus the machines waiting on it
+    record QueueFingerprint(QueueState queue, List<String> waitingMachines) {
+    }
+
+    /**
+     * One machine, queue, product or connection of a frame. Its node is built
+     * on first use; a race only builds an equal node twice.
+     */
+    static final class Entity {
+        private final Object fingerprint;
+        private volatile JsonNode node;
+
+        private Entity(Object fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        Object fingerprint() { return fingerprint; }
+
+        JsonNode node(ObjectMapper objectMapper) {
+            JsonNode built = node;
+            if (built == null) {
+                built = nodeOf(objectMapper, fingerprint);
+                node = built;
+            }
+            return built;
+        }
+    }
+
+    /**
+     * One captured version of the state. Nothing in it changes after capture;
+     * the tree, the JSON text and the update envelope are derived from it on
+     * first use and then shared.
+     */
+    public static final class StateFrame {
+        private final long version;
+        private final String etag;
+        private final ObjectMapper objectMapper;
+        private final Map<String, List<Entity>> entities;
+        private final Map<String, JsonNode> fields;
+        private volatile ObjectNode tree;
+        private volatile String json;
+        private volatile TextMessage updateMessage;
+
+        private StateFrame(long version, String etag, ObjectMapper objectMapper,
+                           Map<String, List<Entity>> entities, Map<String, JsonNode> fields) {
+            this.version = version;
+            this.etag = etag;
+            this.objectMapper = objectMapper;
+            this.entities = entities;
+            this.fields = fields;
+        }
+
+        public long version() { return version; }
+        public String etag() { return etag; }
+
+        public String json() {
+            String text = json;
+            if (text == null) {
+                text = objectMapper.writeValueAsString(tree());
+                json = text;
+            }
+            return text;
+        }
+
+        // The same JSON wrapped in a state-update envelope
+        public TextMessage updateMessage() {
+            TextMessage message = updateMessage;
+            if (message == null) {
+                message = new TextMessage("{\"topic\":\"/topic/state-update\",\"data\":" + json() + "}");
+                updateMessage = message;
+            }
+            return message;
+        }
+
+        // Shared by every consumer, so it must not be modified
+        ObjectNode tree() {
+            ObjectNode built = tree;
+            if (built == null) {
+                built = objectMapper.createObjectNode();
+                fields.forEach(built::set);
+                for (Map.Entry<String, List<Entity>> entry : entities.entrySet()) {
+                    ArrayNode items = built.putArray(entry.getKey());
+                    entry.getValue().forEach(entity -> items.add(entity.node(objectMapper)));
+                }
+                tree = built;
+            }
+            return built;
+        }
+
+        List<Entity> entities(String collection) {
+            return entities.getOrDefault(collection, List.of());
+        }
+
+        JsonNode field(String name) {
+            return fields.get(name);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private volatile StateFrame current;
+    private Map<String, Map<String, Entity>> previous = new HashMap<>(); // guarded by this
+
+    public StateFrameCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public long markChanged() {
+        return version.incrementAndGet();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public String etagFor(long stateVersion) {
+        return "\"" + epoch + "-" + stateVersion + "\"";
+    }
+
+    // The frame for the current version, capturing it if no one has yet
+    public StateFrame current(Supplier<Map<String, Object>> stateSupplier) {
+        long wanted = version.get();
+        StateFrame frame = current;
+        if (frame != null && frame.version() >= wanted) {
+            return frame;
+        }
+        synchronized (this) {
+            frame = current;
+            if (frame != null && frame.version() >= wanted) {
+                return frame;
+            }
+            // Read the version before the state: a change racing with capture only forces a later one
+            long capturedVersion = version.get();
+            frame = capture(capturedVersion, stateSupplier.get());
+            current = frame;
+            return frame;
+        }
+    }
+
+    private StateFrame capture(long capturedVersion, Map<String, Object> state) {
+        Map<String, Map<String, Entity>> next = new HashMap<>();
+        Map<String, List<Entity>> entities = new LinkedHashMap<>();
+        Map<String, JsonNode> fields = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : state.entrySet()) {
+            if (COLLECTIONS.contains(entry.getKey()) && entry.getValue() instanceof Collection<?> items) {
+                Map<String, Entity> before = previous.getOrDefault(entry.getKey(), Map.of());
+                Map<String, Entity> after = next.computeIfAbsent(entry.getKey(), k -> new HashMap<>());
+                List<Entity> list = new ArrayList<>(items.size());
+                for (Object item : items) {
+                    list.add(entityOf(item, before, after));
+                }
+                entities.put(entry.getKey(), list);
+            } else {
+                // Statistics and flags are small and mutable, so they are converted right away
+                fields.put(entry.getKey(), objectMapper.valueToTree(entry.getValue()));
+            }
+        }
+        previous = next;
+        return new StateFrame(capturedVersion, etagFor(capturedVersion), objectMapper, entities, fields);
+    }
+
+    private static Entity entityOf(Object item, Map<String, Entity> before, Map<String, Entity> after) {
+        Object fingerprint = fingerprintOf(item);
+        String id = idOf(fingerprint);
+        Entity entity = before.get(id);
+        if (entity == null || !fingerprint.equals(entity.fingerprint())) {
+            entity = new Entity(fingerprint);
+        }
+        after.put(id, entity);
+        return entity;
+    }
+
+    // Everything the entity's JSON is made of
+    static Object fingerprintOf(Object item) {
+        return switch (item) {
+            case Product product -> ProductState.of(product);
+            case Machine machine -> new MachineState(machine.getId(), machine.getX(), machine.getY(),
+                    machine.getMinServiceTime(), machine.getMaxServiceTime(), machine.getStatus(),
+                    machine.getCurrentProduct() == null ? null : ProductState.of(machine.getCurrentProduct()),
+                    machine.getColor(), machine.getProcessedCount(), machine.getTotalProcessingTime(),
+                    machine.getReliability());
+            case ProductionQueue queue -> {
+                List<ProductState> contents = new ArrayList<>();
+                queue.getProducts().forEach(product -> contents.add(ProductState.of(product)));
+                List<String> waiting = queue.getWaitingMachines() == null
+                        ? null : List.copyOf(queue.getWaitingMachines());
+                yield new QueueFingerprint(new QueueState(queue.getId(), queue.getX(), queue.getY(),
+                        queue.getCapacity(), queue.getMode(), contents), waiting);
+            }
+            case Connection connection -> new Connection(connection.getFrom(), connection.getTo());
+            default -> throw new IllegalArgumentException("No fingerprint for " + item.getClass().getSimpleName());
+        };
+    }
+
+    private static JsonNode nodeOf(ObjectMapper objectMapper, Object fingerprint) {
+        if (fingerprint instanceof QueueFingerprint queue) {
+            ObjectNode node = objectMapper.valueToTree(queue.queue());
+            node.set("waitingMachines", objectMapper.valueToTree(queue.waitingMachines()));
+            return node;
+        }
+        return objectMapper.valueToTree(fingerprint);
+    }
+
+    private static String idOf(Object fingerprint) {
+        return switch (fingerprint) {
+            case ProductState product -> product.id();
+            case MachineState machine -> machine.id();
+            case QueueFingerprint queue -> queue.queue().id();
+            case Connection connection -> connection.getFrom() + "->" + connection.getTo();
+            default -> throw new IllegalArgumentException("No id for " + fingerprint.getClass().getSimpleName());
+        };
+    }
+}
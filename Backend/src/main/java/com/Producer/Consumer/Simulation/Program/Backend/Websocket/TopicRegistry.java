@@ -0,0 +1,105 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Websocket;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Subscription index from topic to session ids, with the reverse map kept
+ * for cleanup. Broadcasters ask it who wants a topic before encoding
+ * anything, so a topic nobody follows costs a map lookup.
+ *
+ * Topic names are canonical {@code /topic/...}; the legacy short names
+ * ("simulation-events", "statistics", ...) are accepted and normalized.
+ */
+public class TopicRegistry {
+    public static final String EVENTS = "/topic/simulation-events";
+    public static final String STATE_UPDATE = "/topic/state-update";
+    public static final String STATE_DELTA = "/topic/state-delta";
+    public static final String STATISTICS = "/topic/statistics";
+    public static final String MACHINE_PREFIX = "/topic/machines/";
+    public static final String QUEUE_PREFIX = "/topic/queues/";
+
+    // What a session gets until it sends its own SUBSCRIBE
+    public static final List<String> DEFAULT_TOPICS = List.of(EVENTS, STATE_UPDATE, STATISTICS);
+
+    private final Map<String, Set<String>> sessionsByTopic = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> topicsBySession = new ConcurrentHashMap<>();
+
+    public static String canonical(String topic) {
+        String trimmed = topic.trim();
+        if (trimmed.startsWith("/topic/")) {
+            return trimmed;
+        }
+        return "/topic/" + (trimmed.startsWith("/") ? trimmed.substring(1) : trimmed);
+    }
+
+    public static String machineTopic(String machineId) {
+        return MACHINE_PREFIX + machineId;
+    }
+
+    public static String queueTopic(String queueId) {
+        return QUEUE_PREFIX + queueId;
+    }
+
+    // Replaces the session's subscriptions
+    public synchronized void subscribe(String sessionId, Collection<String> topics) {
+        unsubscribeAll(sessionId);
+        Set<String> canonical = new LinkedHashSet<>();
+        for (String topic : topics) {
+            canonical.add(canonical(topic));
+        }
+        topicsBySession.put(sessionId, canonical);
+        for (String topic : canonical) {
+            sessionsByTopic.computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet()).add(sessionId);
+        }
+    }
+
+    public synchronized void unsubscribe(String sessionId, Collection<String> topics) {
+        Set<String> current = topicsBySession.get(sessionId);
+        if (current == null) {
+            return;
+        }
+        for (String topic : topics) {
+            String canonical = canonical(topic);
+            current.remove(canonical);
+            removeFromTopic(canonical, sessionId);
+        }
+    }
+
+    public synchronized void unsubscribeAll(String sessionId) {
+        Set<String> current = topicsBySession.remove(sessionId);
+        if (current != null) {
+            current.forEach(topic -> removeFromTopic(topic, sessionId));
+        }
+    }
+
+    private void removeFromTopic(String topic, String sessionId) {
+        Set<String> sessions = sessionsByTopic.get(topic);
+        if (sessions != null) {
+            sessions.remove(sessionId);
+            if (sessions.isEmpty()) {
+                sessionsByTopic.remove(topic);
+            }
+        }
+    }
+
+    public Set<String> subscribers(String topic) {
+        return sessionsByTopic.getOrDefault(topic, Set.of());
+    }
+
+    public boolean hasSubscribers(String topic) {
+        return !subscribers(topic).isEmpty();
+    }
+
+    public boolean isSubscribed(String sessionId, String topic) {
+        return subscribers(topic).contains(sessionId);
+    }
+
+    public Set<String> topicsOf(String sessionId) {
+        return topicsBySession.getOrDefault(sessionId, Set.of());
+    }
+}
@@ -1,32 +1,167 @@
 package com.Producer.Consumer.Simulation.Program.Backend.Websocket;
 
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.EventJsonEncoder;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.MachineStatusPayload;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.ProductCreatedPayload;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.ProductMovedPayload;
 import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.SimulationEvent;
 import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.SimulationObserver;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 @Component
 public class WebSocketBroadcaster implements SimulationObserver {
 
     private final SimulationWebSocketHandler webSocketHandler;
+    // SSE watchers ride the same frame clock
+    private final SseStreamHub sseStreamHub;
+    // update() only runs on this observer's channel thread, so one encoder is enough
+    private final EventJsonEncoder eventEncoder = new EventJsonEncoder();
+    private final BinaryFrameEncoder binaryEncoder = new BinaryFrameEncoder();
+
+    // Frame clock: changes only mark the state dirty; at most frameRate frames per second go out,
+    // each carrying everything that changed since the last one. 0 pushes every change inline.
+    private final int frameRate;
+    private final AtomicBoolean stateDirty = new AtomicBoolean();
+    private final ScheduledExecutorService frameClock;
+    private volatile Supplier<Map<String, Object>> stateSupplier = Map::of;
+    private volatile Supplier<Object> statisticsSupplier = () -> null;
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder changesCoalesced = new LongAdder();
+    // Each state version is encoded once and shared by every session and REST poller
+    private final StateFrameCache frameCache = new StateFrameCache(new ObjectMapper());
 
     // اعتمدنا على SimulationWebSocketHandler بدل SimpMessagingTemplate
-    public WebSocketBroadcaster(SimulationWebSocketHandler webSocketHandler) {
+    public WebSocketBroadcaster(SimulationWebSocketHandler webSocketHandler,
+                                SseStreamHub sseStreamHub,
+                                @Value("${simulation.websocket.frame-rate:20}") int frameRate) {
         this.webSocketHandler = webSocketHandler;
+        this.sseStreamHub = sseStreamHub;
+        sseStreamHub.setSources(this::currentFrame, () -> statisticsSupplier.get());
+        this.frameRate = Math.max(0, frameRate);
+        if (this.frameRate > 0) {
+            frameClock = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("frame-clock").daemon(true).factory());
+            long periodMicros = 1_000_000L / this.frameRate;
+            frameClock.scheduleAtFixedRate(this::publishFrame, periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+            System.out.println("🎞️ State frame clock at " + this.frameRate + " fps");
+        } else {
+            frameClock = null;
+        }
     }
 
     @Override
     public void update(SimulationEvent event) {
         // ارسال الحدث لكل العملاء المتصلين
-        System.out.println("👂 " + getClass().getSimpleName()
-                + " received event: " + event.getType());
-        webSocketHandler.broadcast("simulation-events", event);
+        webSocketHandler.broadcastEvent(topicsOf(event),
+                () -> eventEncoder.encode(TopicRegistry.EVENTS, event),
+                () -> binaryEncoder.encodeEvent(event));
+        // Machine activity changes the state too; with the frame clock it costs only a flag
+        if (frameClock != null) {
+            markStateDirty();
+        } else {
+            frameCache.markChanged();
+        }
+    }
+
+    public void setStateSupplier(Supplier<Map<String, Object>> stateSupplier) {
+        this.stateSupplier = stateSupplier;
+    }
+
+    public void setStatisticsSupplier(Supplier<Object> statisticsSupplier) {
+        this.statisticsSupplier = statisticsSupplier;
+    }
+
+    // The event stream plus the machine and queue the event is about
+    private static List<String> topicsOf(SimulationEvent event) {
+        return switch (event.getData()) {
+            case MachineStatusPayload p -> List.of(TopicRegistry.EVENTS, TopicRegistry.machineTopic(p.machineId()));
+            case ProductMovedPayload p -> List.of(TopicRegistry.EVENTS,
+                    TopicRegistry.machineTopic(p.machineId()), TopicRegistry.queueTopic(p.queueId()));
+            case ProductCreatedPayload p -> List.of(TopicRegistry.EVENTS, TopicRegistry.queueTopic(p.queueId()));
+            case null -> List.of(TopicRegistry.EVENTS);
+        };
+    }
+
+    // Something in the simulation state changed; the next frame will carry it
+    public void markStateDirty() {
+        frameCache.markChanged();
+        if (frameClock == null) {
+            sendFrame();
+        } else if (!stateDirty.compareAndSet(false, true)) {
+            changesCoalesced.increment();
+        }
+    }
+
+    private void publishFrame() {
+        if (!stateDirty.getAndSet(false)) {
+            return; // idle: nothing changed, nothing sent
+        }
+        try {
+            sendFrame();
+        } catch (Exception e) {
+            // Keep the clock alive; the next change schedules another frame
+            System.err.println("❌ Error publishing state frame: " + e.getMessage());
+        }
+    }
+
+    // State and statistics go out only to topics someone follows; a KPI-only dashboard never costs a state encode
+    private void sendFrame() {
+        framesSent.increment();
+        if (webSocketHandler.wantsState()) {
+            webSocketHandler.broadcastState(currentFrame());
+        }
+        if (sseStreamHub.hasStateClients()) {
+            sseStreamHub.publishState(currentFrame());
+        }
+        boolean socketStatistics = webSocketHandler.hasSubscribers(TopicRegistry.STATISTICS);
+        if (socketStatistics || sseStreamHub.hasStatisticsClients()) {
+            Object statistics = statisticsSupplier.get();
+            if (socketStatistics) {
+                webSocketHandler.broadcast(TopicRegistry.STATISTICS, statistics);
+            }
+            if (sseStreamHub.hasStatisticsClients()) {
+                sseStreamHub.publishStatistics(statistics);
+            }
+        }
+    }
+
+    public StateFrameCache.StateFrame currentFrame() {
+        return frameCache.current(stateSupplier);
+    }
+
+    // ETag of the latest state version, available without encoding anything
+    public String currentEtag() {
+        return frameCache.etagFor(frameCache.getVersion());
     }
 
     public void broadcastStateUpdate(Object state) {
-        webSocketHandler.broadcast("state-update", state);
+        webSocketHandler.broadcast(TopicRegistry.STATE_UPDATE, state);
     }
 
     public void broadcastStatistics(Object statistics) {
-        webSocketHandler.broadcast("statistics", statistics);
+        webSocketHandler.broadcast(TopicRegistry.STATISTICS, statistics);
+    }
+
+    public int getFrameRate() { return frameRate; }
+    public long getFramesSent() { return framesSent.sum(); }
+    public long getChangesCoalesced() { return changesCoalesced.sum(); }
+
+    @PreDestroy
+    public void shutdown() {
+        if (frameClock != null) {
+            frameClock.shutdownNow();
+        }
     }
 }
@@ -0,0 +1,16 @@
+package com.Producer.Consumer.Simulation.Program.Backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchRunRequestDTO {
+    private SimulationConfigDTO topology;  // null = current topology
+    private Integer productionRate;        // null = topology's rate, else 2000
+    private Long maxProducts;              // stop after this many completed products
+    private Double maxSimulatedMinutes;    // stop at this simulated time
+    private Long seed;                     // null = random
+}
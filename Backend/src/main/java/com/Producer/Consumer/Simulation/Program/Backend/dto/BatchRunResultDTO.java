@@ -0,0 +1,29 @@
+package com.Producer.Consumer.Simulation.Program.Backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchRunResultDTO {
+    private long seed;
+    private String stopReason;            // products, time or horizon
+    private long simulatedMillis;
+    private long wallClockMillis;
+    private long eventsProcessed;
+    private long productsCreated;
+    private long productsCompleted;
+    private long productsRejected;
+    private long productsInSystem;
+    private long breakdowns;
+    private double throughput;            // completed products per simulated second
+    private DistributionDTO waitTime;     // per queue visit, ms
+    private DistributionDTO processingTime;
+    private DistributionDTO cycleTime;    // creation to completion, ms
+    private Map<String, Double> machineUtilization;
+    private Map<String, Integer> machineProcessedCount;
+}
@@ -0,0 +1,18 @@
+package com.Producer.Consumer.Simulation.Program.Backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConfidenceIntervalDTO {
+    private int samples;
+    private double mean;
+    private double stdDev;
+    private double halfWidth;          // 95% confidence
+    private double lower;
+    private double upper;
+    private double relativePrecision;  // halfWidth / |mean|
+}
@@ -0,0 +1,20 @@
+package com.Producer.Consumer.Simulation.Program.Backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DistributionDTO {
+    private long count;
+    private double mean;
+    private double stdDev;
+    private long min;
+    private long p50;
+    private long p90;
+    private long p95;
+    private long p99;
+    private long max;
+}
@@ -12,4 +12,5 @@ public class QueueDTO {
     private double x;
     private double y;
     private int capacity;
+    private String mode;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.Producer.Consumer.Simulation.Program.Backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReplicationRequestDTO {
+    private SimulationConfigDTO topology;       // null = current topology
+    private Integer productionRate;             // null = topology's rate
+    private Long maxProducts;                   // per replication stopping condition
+    private Double maxSimulatedMinutes;
+    private Long seed;                          // base seed for the independent streams
+    private Integer initialReplications;        // default 10
+    private Integer maxReplications;            // default 200
+    private Double targetRelativePrecision;     // CI half-width / mean for throughput and wait time; null = no target
+}
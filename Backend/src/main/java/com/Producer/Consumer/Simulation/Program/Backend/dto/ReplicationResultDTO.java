@@ -0,0 +1,18 @@
+package com.Producer.Consumer.Simulation.Program.Backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReplicationResultDTO {
+    private int replications;
+    private boolean precisionReached;
+    private long seed;
+    private long wallClockMillis;
+    private Map<String, ConfidenceIntervalDTO> metrics; // throughput, averageWaitTime, ..., utilization.<machineId>
+}
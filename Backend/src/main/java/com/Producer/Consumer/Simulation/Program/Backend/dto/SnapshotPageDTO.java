@@ -0,0 +1,19 @@
+package com.Producer.Consumer.Simulation.Program.Backend.dto;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.SnapshotInfo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SnapshotPageDTO {
+    private int total;
+    private int offset;
+    private int limit;
+    private boolean newestFirst;
+    private List<SnapshotInfo> items;
+}
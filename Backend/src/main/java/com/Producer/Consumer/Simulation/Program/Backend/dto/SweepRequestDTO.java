@@ -0,0 +1,20 @@
+package com.Producer.Consumer.Simulation.Program.Backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SweepRequestDTO {
+    private SimulationConfigDTO topology;      // null = current topology
+    private List<Integer> productionRates;     // null/empty = topology's rate
+    private List<Integer> queueCapacities;     // applied to every queue; null/empty = as in topology
+    private List<Integer> machinesPerStation;  // parallel copies of every machine; null/empty = 1
+    private Long maxProducts;
+    private Double maxSimulatedMinutes;
+    private Long seed;                         // base seed; each run gets its own derived stream
+}
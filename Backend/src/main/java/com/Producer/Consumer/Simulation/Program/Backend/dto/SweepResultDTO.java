@@ -0,0 +1,17 @@
+package com.Producer.Consumer.Simulation.Program.Backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SweepResultDTO {
+    private int runIndex;
+    private int totalRuns;
+    private int productionRate;
+    private Integer queueCapacity;
+    private int machinesPerStation;
+    private BatchRunResultDTO result;
+}
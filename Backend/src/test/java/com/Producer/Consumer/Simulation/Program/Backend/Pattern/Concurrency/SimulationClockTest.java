@@ -0,0 +1,40 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SimulationClockTest {
+
+    @Test
+    void speedingUpWakesSleepersEarly() throws Exception {
+        SimulationClock clock = new SimulationClock(1.0);
+        long started = System.nanoTime();
+        CompletableFuture<Void> sleeper = CompletableFuture.runAsync(() -> {
+            try {
+                clock.sleep(10_000);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+
+        clock.setSpeed(1_000);
+
+        sleeper.get(5, TimeUnit.SECONDS);
+        assertThat(System.nanoTime() - started).isLessThan(TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void interruptEndsTheSleep() {
+        SimulationClock clock = new SimulationClock(1.0);
+        Thread.currentThread().interrupt();
+
+        assertThatThrownBy(() -> clock.sleep(10_000)).isInstanceOf(InterruptedException.class);
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
+}
@@ -0,0 +1,69 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StateVersionTest {
+
+    private final StateVersion stateVersion = new StateVersion();
+    private final int[] counters = new int[2];
+
+    @Test
+    void readerThatKeepsLosingPausesTheWritersInsteadOfTearing() {
+        AtomicInteger calls = new AtomicInteger();
+
+        int[] read = stateVersion.readConsistent(() -> {
+            int first = counters[0];
+            // A step lands in the middle of every optimistic read
+            if (calls.incrementAndGet() <= 50) {
+                step();
+            }
+            return new int[]{first, counters[1]};
+        });
+
+        assertThat(read[0]).isEqualTo(read[1]);
+        assertThat(calls).hasValue(51);
+        assertThat(stateVersion.getMetrics()).containsEntry("pausedReads", 1L);
+    }
+
+    @Test
+    void stepsWaitWhileTheWritersArePaused() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicBoolean stepDuringPause = new AtomicBoolean();
+        Thread writer = new Thread(this::step);
+
+        stateVersion.readConsistent(() -> {
+            if (calls.incrementAndGet() <= 50) {
+                step();
+                return null;
+            }
+            writer.start();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            stepDuringPause.set(counters[0] != 50);
+            return null;
+        });
+        writer.join(5_000);
+
+        assertThat(stepDuringPause).isFalse();
+        assertThat(counters[0]).isEqualTo(51);
+        assertThat(stateVersion.version()).isEqualTo(51);
+    }
+
+    private void step() {
+        stateVersion.beginStep();
+        try {
+            counters[0]++;
+            counters[1]++;
+        } finally {
+            stateVersion.endStep();
+        }
+    }
+}
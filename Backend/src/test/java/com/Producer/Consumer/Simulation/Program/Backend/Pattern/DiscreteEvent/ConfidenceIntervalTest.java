@@ -0,0 +1,53 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.DiscreteEvent;
+
+import com.Producer.Consumer.Simulation.Program.Backend.dto.ConfidenceIntervalDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ConfidenceIntervalTest {
+
+    @Test
+    void usesStudentTForFewReplications() {
+        ConfidenceIntervalDTO ci = ConfidenceInterval.of(List.of(2.0, 4.0, 4.0, 4.0, 5.0, 5.0, 7.0, 9.0));
+
+        double stdDev = Math.sqrt(32.0 / 7);
+        assertThat(ci.getSamples()).isEqualTo(8);
+        assertThat(ci.getMean()).isEqualTo(5.0);
+        assertThat(ci.getStdDev()).isCloseTo(stdDev, within(1e-9));
+        assertThat(ci.getHalfWidth()).isCloseTo(2.365 * stdDev / Math.sqrt(8), within(1e-9));
+        assertThat(ci.getLower()).isCloseTo(5.0 - ci.getHalfWidth(), within(1e-12));
+        assertThat(ci.getUpper()).isCloseTo(5.0 + ci.getHalfWidth(), within(1e-12));
+        assertThat(ci.getRelativePrecision()).isCloseTo(ci.getHalfWidth() / 5.0, within(1e-12));
+    }
+
+    @Test
+    void approachesTheNormalQuantileForManyReplications() {
+        List<Double> samples = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            samples.add(i % 2 == 0 ? 9.0 : 11.0);
+        }
+        ConfidenceIntervalDTO ci = ConfidenceInterval.of(samples);
+
+        double expected = 1.962 * ci.getStdDev() / Math.sqrt(1000);
+        assertThat(ci.getHalfWidth()).isCloseTo(expected, within(expected * 1e-3));
+    }
+
+    @Test
+    void degenerateInputs() {
+        assertThat(ConfidenceInterval.of(List.of()).getSamples()).isZero();
+
+        ConfidenceIntervalDTO single = ConfidenceInterval.of(List.of(3.0));
+        assertThat(single.getMean()).isEqualTo(3.0);
+        assertThat(single.getHalfWidth()).isInfinite();
+
+        ConfidenceIntervalDTO constant = ConfidenceInterval.of(Collections.nCopies(5, 0.0));
+        assertThat(constant.getHalfWidth()).isZero();
+        assertThat(constant.getRelativePrecision()).isZero();
+    }
+}
@@ -0,0 +1,96 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.DiscreteEvent;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Connection;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+import com.Producer.Consumer.Simulation.Program.Backend.Service.SimulationStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiscreteEventEngineTest {
+
+    private static final int SERVICE_TIME = 100;
+    private static final long RATE = 1000;
+
+    @Test
+    void finishedProductsLeaveTheSink() {
+        ProductionQueue source = new ProductionQueue("Q0", 0, 0, 10);
+        ProductionQueue sink = new ProductionQueue("Q1", 0, 0, 100);
+        DiscreteEventEngine engine = line(source, sink, reliableMachine("M1", SERVICE_TIME), 1);
+
+        // Arrivals at 0, 1000, ..., 10000; each leaves the machine SERVICE_TIME + FLASH_TIME later
+        engine.runUntil(10_000);
+
+        assertThat(engine.getProductsCreated()).isEqualTo(11);
+        assertThat(engine.getProductsCompleted()).isEqualTo(10);
+        assertThat(sink.size()).isZero();
+        assertThat(engine.getCycleTimes().mean()).isEqualTo(SERVICE_TIME + DiscreteEventEngine.FLASH_TIME);
+        assertThat(engine.getNow()).isEqualTo(10_000);
+    }
+
+    @Test
+    void steadyStateThroughputIsSetByTheBottleneckNotTheSink() {
+        ProductionQueue source = new ProductionQueue("Q0", 0, 0, 3);
+        ProductionQueue sink = new ProductionQueue("Q1", 0, 0, 2);
+        // One product every 1500 + FLASH_TIME ms, slower than the 1000 ms arrivals
+        Machine machine = reliableMachine("M1", 1500);
+        DiscreteEventEngine engine = line(source, sink, machine, 1);
+
+        engine.runUntil(180_000);
+
+        assertThat(engine.getProductsCompleted()).isEqualTo(100);
+        assertThat(machine.getStatus()).isNotEqualTo("blocked");
+        assertThat(source.size()).isEqualTo(3);
+        assertThat(engine.getProductsRejected()).isPositive();
+        assertThat(engine.getProductsInSystem()).isEqualTo(source.size() + 1);
+    }
+
+    @Test
+    void machineWithoutOutputCompletesProducts() {
+        ProductionQueue source = new ProductionQueue("Q0", 0, 0, 10);
+        Machine machine = reliableMachine("M1", SERVICE_TIME);
+        DiscreteEventEngine engine = new DiscreteEventEngine(List.of(machine), List.of(source),
+                List.of(new Connection("Q0", "M1")), RATE, 1, new SimulationStatistics());
+
+        engine.runUntil(5_000);
+
+        assertThat(engine.getProductsCompleted()).isEqualTo(5);
+        assertThat(engine.getProductsInSystem()).isEqualTo(1);
+        assertThat(machine.getProcessedCount()).isEqualTo(5);
+    }
+
+    @Test
+    void sameSeedGivesTheSameRun() {
+        long[] first = randomRun(42);
+        long[] second = randomRun(42);
+        long[] other = randomRun(7);
+
+        assertThat(second).containsExactly(first);
+        assertThat(other).isNotEqualTo(first);
+    }
+
+    private static long[] randomRun(long seed) {
+        ProductionQueue source = new ProductionQueue("Q0", 0, 0, 50);
+        ProductionQueue sink = new ProductionQueue("Q1", 0, 0, 10_000);
+        Machine machine = new Machine("M1", 0, 0, 200, 1500);
+        DiscreteEventEngine engine = line(source, sink, machine, seed);
+        engine.runUntil(500_000);
+        return new long[]{engine.getProductsCompleted(), engine.getBreakdowns(),
+                engine.getEventsProcessed(), Math.round(engine.getWaitTimes().mean())};
+    }
+
+    private static DiscreteEventEngine line(ProductionQueue source, ProductionQueue sink, Machine machine, long seed) {
+        return new DiscreteEventEngine(List.of(machine), List.of(source, sink),
+                List.of(new Connection("Q0", machine.getId()), new Connection(machine.getId(), "Q1")),
+                RATE, seed, new SimulationStatistics());
+    }
+
+    private static Machine reliableMachine(String id, int serviceTime) {
+        Machine machine = new Machine(id, 0, 0, serviceTime, serviceTime);
+        machine.setReliability(1.0);
+        return machine;
+    }
+}
@@ -0,0 +1,58 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventCoalescerTest {
+
+    private final List<SimulationEvent> delivered = new CopyOnWriteArrayList<>();
+    private final EventCoalescer coalescer = new EventCoalescer(200, delivered::add);
+
+    @AfterEach
+    void shutdown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    void movesOfDifferentProductsIntoOneQueueAreAllDelivered() {
+        coalescer.submit(moved("P1", "Q1"));
+        coalescer.submit(moved("P2", "Q1"));
+
+        assertThat(delivered).extracting(event -> ((ProductMovedPayload) event.getData()).productId())
+                .containsExactly("P1", "P2");
+    }
+
+    @Test
+    void burstForOneProductEndsWithItsLatestMove() throws InterruptedException {
+        coalescer.submit(moved("P1", "Q1"));
+        coalescer.submit(moved("P1", "Q2"));
+        coalescer.submit(moved("P1", "Q3"));
+        Thread.sleep(400);
+
+        assertThat(delivered).extracting(event -> ((ProductMovedPayload) event.getData()).queueId())
+                .containsExactly("Q1", "Q3");
+        assertThat(coalescer.getSuppressedCoalesced()).isEqualTo(1);
+    }
+
+    @Test
+    void forgottenMachineDeliversItsNextStatus() {
+        coalescer.submit(status("M1", "idle"));
+        coalescer.forget("machine:M1");
+        coalescer.submit(status("M1", "idle"));
+
+        assertThat(coalescer.getSuppressedUnchanged()).isZero();
+    }
+
+    private static SimulationEvent moved(String productId, String queueId) {
+        return new SimulationEvent("PRODUCT_MOVED", new ProductMovedPayload(productId, "M1", queueId, 1, 0), 0);
+    }
+
+    private static SimulationEvent status(String machineId, String status) {
+        return new SimulationEvent("MACHINE_IDLE", new MachineStatusPayload(machineId, status, null, null, 0), 0);
+    }
+}
@@ -0,0 +1,54 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriorityProductBufferTest {
+
+    @Test
+    void servesHighestPriorityFirstAndEqualPrioritiesInArrivalOrder() {
+        PriorityProductBuffer buffer = new PriorityProductBuffer();
+        buffer.offer(product("P1", 2));
+        buffer.offer(product("P2", 5));
+        buffer.offer(product("P3", 2));
+        buffer.offer(product("P4", 5));
+        buffer.offer(product("P5", 1));
+
+        assertThat(drain(buffer)).containsExactly("P2", "P4", "P1", "P3", "P5");
+        assertThat(buffer.isEmpty()).isTrue();
+        assertThat(buffer.poll()).isNull();
+    }
+
+    @Test
+    void orderedViewMatchesServiceOrderAndIsRebuiltAfterChanges() {
+        PriorityProductBuffer buffer = new PriorityProductBuffer();
+        buffer.offer(product("P1", 1));
+        buffer.offer(product("P2", 3));
+
+        List<Product> view = buffer.orderedView();
+        assertThat(view).extracting(Product::getId).containsExactly("P2", "P1");
+        assertThat(buffer.orderedView()).isSameAs(view);
+
+        buffer.offer(product("P3", 2));
+        assertThat(buffer.orderedView()).extracting(Product::getId).containsExactly("P2", "P3", "P1");
+        assertThat(view).hasSize(2);
+    }
+
+    static Product product(String id, int priority) {
+        return new Product(id, "#ef4444", priority, 0, 0, "waiting", "TypeA");
+    }
+
+    static List<String> drain(ProductBuffer buffer) {
+        List<String> ids = new ArrayList<>();
+        Product product;
+        while ((product = buffer.poll()) != null) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+}
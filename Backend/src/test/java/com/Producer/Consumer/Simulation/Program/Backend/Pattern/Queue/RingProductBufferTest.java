@@ -0,0 +1,128 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue.PriorityProductBufferTest.drain;
+import static com.Producer.Consumer.Simulation.Program.Backend.Pattern.Queue.PriorityProductBufferTest.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RingProductBufferTest {
+
+    @Test
+    void isFifoAndBounded() {
+        RingProductBuffer buffer = new RingProductBuffer(3);
+        assertThat(buffer.offer(product("P1", 1))).isTrue();
+        assertThat(buffer.offer(product("P2", 5))).isTrue();
+        assertThat(buffer.offer(product("P3", 3))).isTrue();
+        assertThat(buffer.offer(product("P4", 5))).isFalse();
+        assertThat(buffer.size()).isEqualTo(3);
+        assertThat(buffer.orderedView()).extracting(Product::getId).containsExactly("P1", "P2", "P3");
+
+        assertThat(buffer.poll().getId()).isEqualTo("P1");
+        assertThat(buffer.offer(product("P4", 5))).isTrue();
+        assertThat(drain(buffer)).containsExactly("P2", "P3", "P4");
+        assertThat(buffer.poll()).isNull();
+    }
+
+    @Test
+    void manyProducersAndConsumersLoseAndDuplicateNothing() throws InterruptedException {
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 10_000;
+        RingProductBuffer buffer = new RingProductBuffer(64);
+        ConcurrentLinkedQueue<List<Product>> taken = new ConcurrentLinkedQueue<>();
+        AtomicInteger remaining = new AtomicInteger(producers * perProducer);
+        CountDownLatch done = new CountDownLatch(producers + consumers);
+
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    // Priority carries the producer, the id its sequence number
+                    Product product = new Product(String.valueOf(i), "#ef4444", producer, 0, 0, "waiting", "TypeA");
+                    while (!buffer.offer(product)) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        for (int c = 0; c < consumers; c++) {
+            Thread.ofPlatform().start(() -> {
+                List<Product> mine = new ArrayList<>();
+                while (remaining.get() > 0) {
+                    Product product = buffer.poll();
+                    if (product != null) {
+                        mine.add(product);
+                        remaining.decrementAndGet();
+                    } else {
+                        Thread.yield();
+                    }
+                }
+                taken.add(mine);
+                done.countDown();
+            });
+        }
+        done.await();
+
+        Set<String> seen = new HashSet<>();
+        for (List<Product> mine : taken) {
+            int[] last = new int[producers];
+            Arrays.fill(last, -1);
+            for (Product product : mine) {
+                assertThat(seen.add(product.getPriority() + ":" + product.getId())).isTrue();
+                // Each consumer sees every producer's products in the order they were offered
+                int sequence = Integer.parseInt(product.getId());
+                assertThat(sequence).isGreaterThan(last[product.getPriority()]);
+                last[product.getPriority()] = sequence;
+            }
+        }
+        assertThat(seen).hasSize(producers * perProducer);
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test
+    void queueKeepsItsContentsAcrossModeSwitches() {
+        ProductionQueue queue = new ProductionQueue("Q0", 0, 0, 5);
+        queue.addProduct(product("P1", 1), 0);
+        queue.addProduct(product("P2", 4), 0);
+        queue.addProduct(product("P3", 2), 0);
+        assertThat(queue.getProducts()).extracting(Product::getId).containsExactly("P2", "P3", "P1");
+
+        queue.setMode(ProductionQueue.MODE_RING);
+        assertThat(queue.getProducts()).extracting(Product::getId).containsExactly("P2", "P3", "P1");
+        assertThat(queue.addProduct(product("P4", 5), 0)).isTrue();
+        assertThat(queue.addProduct(product("P5", 5), 0)).isTrue();
+        assertThat(queue.addProduct(product("P6", 5), 0)).isFalse();
+
+        queue.setMode(ProductionQueue.MODE_PRIORITY);
+        assertThat(queue.removeProduct().getId()).isEqualTo("P4");
+        assertThat(queue.size()).isEqualTo(4);
+    }
+
+    @Test
+    void capacityChangeResizesTheRing() {
+        ProductionQueue queue = new ProductionQueue("Q0", 0, 0, 2, ProductionQueue.MODE_RING);
+        queue.addProduct(product("P1", 1), 0);
+        queue.addProduct(product("P2", 1), 0);
+
+        assertThatThrownBy(() -> queue.setCapacity(1)).isInstanceOf(IllegalArgumentException.class);
+        queue.setCapacity(4);
+        assertThat(queue.addProduct(product("P3", 1), 0)).isTrue();
+        assertThat(queue.addProduct(product("P4", 1), 0)).isTrue();
+        assertThat(queue.addProduct(product("P5", 1), 0)).isFalse();
+        assertThat(queue.getProducts()).extracting(Product::getId).containsExactly("P1", "P2", "P3", "P4");
+    }
+}
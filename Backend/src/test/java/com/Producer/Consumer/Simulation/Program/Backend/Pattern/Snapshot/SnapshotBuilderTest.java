@@ -0,0 +1,120 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Connection;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+import com.Producer.Consumer.Simulation.Program.Backend.Service.SimulationStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotBuilderTest {
+
+    private final ProductionQueue queue = new ProductionQueue("Q0", 0, 0, 1000);
+    private final Machine machine = new Machine("M1", 0, 0, 100, 200);
+    private final List<Product> products = new ArrayList<>();
+    private final List<Connection> connections = List.of(new Connection("Q0", "M1"));
+    private final SimulationStatistics statistics = new SimulationStatistics();
+
+    @Test
+    void incrementalCapturesMatchAFullCapture() {
+        SnapshotBuilder builder = new SnapshotBuilder();
+        Random random = new Random(1);
+        int created = 0;
+        for (int round = 0; round < 200; round++) {
+            for (int i = random.nextInt(4); i > 0; i--) {
+                Product product = new Product("P" + (++created), "#ef4444", 1 + random.nextInt(5), round, round,
+                        "waiting", "TypeA");
+                queue.addProduct(product, round);
+                products.add(product);
+            }
+            // The machine finishes what it holds and takes the next product
+            if (machine.getCurrentProduct() != null) {
+                machine.getCurrentProduct().setStatus("completed");
+                machine.setCurrentProduct(null);
+                machine.setProcessedCount(machine.getProcessedCount() + 1);
+            }
+            Product next = queue.removeProduct();
+            if (next != null) {
+                next.setStatus("processing");
+                machine.setCurrentProduct(next);
+            }
+
+            SimulationSnapshot incremental = builder.commit(capture(builder));
+            SimulationSnapshot full = capture(new SnapshotBuilder()).snapshot();
+            assertThat(incremental.getProducts()).containsExactlyElementsOf(full.getProducts());
+            assertThat(incremental.getQueues()).containsExactlyElementsOf(full.getQueues());
+            assertThat(incremental.getMachines()).containsExactlyElementsOf(full.getMachines());
+        }
+        assertThat(products).hasSizeGreaterThan(ChunkedList.CHUNK_SIZE * 3);
+    }
+
+    @Test
+    void productsThatLeftTheLineShareTheirChunks() {
+        SnapshotBuilder builder = new SnapshotBuilder();
+        for (int i = 0; i < ChunkedList.CHUNK_SIZE * 2; i++) {
+            products.add(new Product("P" + i, "#ef4444", 1, 0, 0, "completed", "TypeA"));
+        }
+        SimulationSnapshot first = builder.commit(capture(builder));
+
+        Product waiting = new Product("P-new", "#ef4444", 1, 0, 0, "waiting", "TypeA");
+        queue.addProduct(waiting, 0);
+        products.add(waiting);
+        SimulationSnapshot second = builder.commit(capture(builder));
+
+        assertThat(second.getProducts()).hasSize(first.getProducts().size() + 1);
+        assertThat(second.getProducts().chunk(0)).isSameAs(first.getProducts().chunk(0));
+        assertThat(second.getProducts().chunk(1)).isSameAs(first.getProducts().chunk(1));
+        assertThat(second.getQueues().get(0).products()).containsExactly(second.getProducts().get(128));
+
+        // Nothing changed: the whole list is shared
+        SimulationSnapshot third = builder.commit(capture(builder));
+        assertThat(third.getProducts()).isSameAs(second.getProducts());
+    }
+
+    @Test
+    void uncommittedCaptureLeavesTheBaselineAlone() {
+        SnapshotBuilder builder = new SnapshotBuilder();
+        Product product = new Product("P1", "#ef4444", 1, 0, 0, "waiting", "TypeA");
+        queue.addProduct(product, 0);
+        products.add(product);
+        SimulationSnapshot committed = builder.commit(capture(builder));
+
+        // A torn read sees the product nowhere; it is discarded, so the product stays tracked
+        queue.removeProduct();
+        capture(builder);
+        machine.setCurrentProduct(product);
+        product.setStatus("processing");
+
+        SimulationSnapshot next = builder.commit(capture(builder));
+        assertThat(next.getProducts().get(0).status()).isEqualTo("processing");
+        assertThat(committed.getProducts().get(0).status()).isEqualTo("waiting");
+    }
+
+    @Test
+    void replacedProductListIsCapturedFromScratch() {
+        SnapshotBuilder builder = new SnapshotBuilder();
+        products.add(new Product("P1", "#ef4444", 1, 0, 0, "completed", "TypeA"));
+        products.add(new Product("P2", "#ef4444", 1, 0, 0, "completed", "TypeA"));
+        builder.commit(capture(builder));
+
+        // A restore swaps in new instances without resetting the builder first
+        products.clear();
+        products.add(new Product("P1", "#3b82f6", 1, 0, 0, "completed", "TypeA"));
+        products.add(new Product("P2", "#3b82f6", 1, 0, 0, "completed", "TypeA"));
+        products.add(new Product("P3", "#3b82f6", 1, 0, 0, "completed", "TypeA"));
+        SimulationSnapshot next = builder.commit(capture(builder));
+
+        assertThat(next.getProducts()).extracting(ProductState::color).containsOnly("#3b82f6");
+        assertThat(next.getProducts()).hasSize(3);
+    }
+
+    private SnapshotBuilder.Capture capture(SnapshotBuilder builder) {
+        return builder.capture(List.of(machine), List.of(queue), products, connections, statistics);
+    }
+}
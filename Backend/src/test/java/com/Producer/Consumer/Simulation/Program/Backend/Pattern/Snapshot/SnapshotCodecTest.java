@@ -0,0 +1,125 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Connection;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+import com.Producer.Consumer.Simulation.Program.Backend.Service.SimulationStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotCodecTest {
+
+    private ProductionQueue queue = new ProductionQueue("Q0", 0, 0, 1000);
+    private final Machine machine = new Machine("M1", 0, 0, 100, 200);
+    private final List<Product> products = new ArrayList<>();
+    private final List<Connection> connections = new ArrayList<>(List.of(new Connection("Q0", "M1")));
+    private final SimulationStatistics statistics = new SimulationStatistics();
+
+    @Test
+    void keyframeRoundTrips() {
+        add(new Product("P1", "#ef4444", 1, 5, 6, "waiting", "TypeA"));
+        Product held = new Product("P2", null, 3, 7, 8, "processing", null);
+        products.add(held);
+        machine.setCurrentProduct(held);
+        machine.setStatus("processing");
+        statistics.recordWait(40);
+        statistics.recordProcessing("M1", 120);
+        statistics.recordCompletion();
+        SimulationSnapshot snapshot = capture();
+
+        SnapshotCodec.Replay replay = new SnapshotCodec.Replay();
+        replay.apply(ByteBuffer.wrap(SnapshotCodec.encodeKeyframe(snapshot)));
+
+        assertReplayed(replay.snapshot(), snapshot);
+    }
+
+    @Test
+    void deltasReplayEveryStep() {
+        SnapshotBuilder builder = new SnapshotBuilder();
+        SnapshotCodec.Replay replay = new SnapshotCodec.Replay();
+        Random random = new Random(3);
+        SimulationSnapshot previous = null;
+        int created = 0;
+        for (int round = 0; round < 150; round++) {
+            for (int i = random.nextInt(4); i > 0; i--) {
+                add(new Product("P" + (++created), "#3b82f6", 1 + random.nextInt(5), round, round, "waiting",
+                        "TypeA"));
+            }
+            if (machine.getCurrentProduct() != null) {
+                machine.getCurrentProduct().setStatus("completed");
+                machine.setCurrentProduct(null);
+                statistics.recordCompletion();
+            }
+            Product next = random.nextBoolean() ? queue.removeProduct() : null;
+            if (next != null) {
+                next.setStatus("processing");
+                machine.setCurrentProduct(next);
+            }
+            if (round % 40 == 20) {
+                queue.setCapacity(queue.getCapacity() + 1);
+                connections.add(new Connection("M1", "Q" + round));
+            }
+
+            SimulationSnapshot snapshot = builder.commit(builder.capture(List.of(machine), List.of(queue), products,
+                    connections, statistics));
+            byte[] encoded = previous == null || round % 50 == 0
+                    ? SnapshotCodec.encodeKeyframe(snapshot)
+                    : SnapshotCodec.encodeDelta(previous, snapshot);
+            replay.apply(ByteBuffer.wrap(encoded));
+            assertReplayed(replay.snapshot(), snapshot);
+            previous = snapshot;
+        }
+        assertThat(products).hasSizeGreaterThan(ChunkedList.CHUNK_SIZE * 2);
+    }
+
+    @Test
+    void replayForgetsProductsThatAreGone() {
+        for (int i = 0; i < 10; i++) {
+            add(new Product("P" + i, "#ef4444", 1, 0, 0, "waiting", "TypeA"));
+        }
+        SimulationSnapshot full = capture();
+
+        // A restore to an earlier point: fewer products, and a new one where P2 used to be
+        queue = new ProductionQueue("Q0", 0, 0, 1000);
+        products.clear();
+        add(new Product("P0", "#ef4444", 1, 0, 0, "waiting", "TypeA"));
+        add(new Product("P1", "#ef4444", 1, 0, 0, "waiting", "TypeA"));
+        add(new Product("P10", "#3b82f6", 2, 0, 0, "waiting", "TypeB"));
+        SimulationSnapshot restored = capture();
+
+        SnapshotCodec.Replay replay = new SnapshotCodec.Replay();
+        replay.apply(ByteBuffer.wrap(SnapshotCodec.encodeKeyframe(full)));
+        assertThat(replay.indexedProducts()).isEqualTo(10);
+        replay.apply(ByteBuffer.wrap(SnapshotCodec.encodeDelta(full, restored)));
+
+        assertThat(replay.indexedProducts()).isEqualTo(3);
+        assertThat(replay.snapshot().getQueues()).containsExactlyElementsOf(restored.getQueues());
+    }
+
+    private static void assertReplayed(SimulationSnapshot replayed, SimulationSnapshot original) {
+        assertThat(replayed.getTimestamp()).isEqualTo(original.getTimestamp());
+        assertThat(replayed.getProducts()).containsExactlyElementsOf(original.getProducts());
+        assertThat(replayed.getMachines()).containsExactlyElementsOf(original.getMachines());
+        assertThat(replayed.getQueues()).containsExactlyElementsOf(original.getQueues());
+        assertThat(replayed.getConnections()).containsExactlyElementsOf(original.getConnections());
+        assertThat(replayed.getStatistics()).isEqualTo(original.getStatistics());
+    }
+
+    private void add(Product product) {
+        queue.addProduct(product, 0);
+        products.add(product);
+    }
+
+    private SimulationSnapshot capture() {
+        SnapshotBuilder builder = new SnapshotBuilder();
+        return builder.commit(builder.capture(List.of(machine), List.of(queue), products,
+                connections, statistics));
+    }
+}
@@ -0,0 +1,132 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotJournalTest {
+
+    private static final int SEGMENT_BYTES = SnapshotJournal.HEADER_BYTES * 16;
+    private static final int PAYLOAD_BYTES = 100;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsSurviveAReopen() throws IOException {
+        SnapshotJournal journal = open();
+        appendAll(journal, 0, 20);
+        journal.flush();
+
+        SnapshotJournal reopened = open();
+        List<SnapshotJournal.Record> records = reopened.takeRecoveredRecords();
+
+        assertThat(logs()).hasSizeGreaterThan(1);
+        assertIds(records, 0, 20);
+        assertThat(reopened.firstId()).isZero();
+        assertThat(reopened.append(info(20), 20, payload(20)).info().id()).isEqualTo(20);
+    }
+
+    @Test
+    void tornRecordAtTheTailIsDropped() throws IOException {
+        SnapshotJournal journal = open();
+        appendAll(journal, 0, 5);
+        journal.flush();
+        // The last record's payload was only half written when the process died
+        int lastPayloadByte = 5 * (SnapshotJournal.HEADER_BYTES + PAYLOAD_BYTES) - 1;
+        overwrite(logs().get(0), lastPayloadByte, (byte) 0x7f);
+
+        SnapshotJournal reopened = open();
+
+        assertIds(reopened.takeRecoveredRecords(), 0, 4);
+        assertThat(reopened.append(info(4), 4, payload(4)).info().id()).isEqualTo(4);
+    }
+
+    @Test
+    void recordsPastAStaleIndexAreRecovered() throws IOException {
+        SnapshotJournal journal = open();
+        appendAll(journal, 0, 5);
+        journal.flush();
+        // The index had only been written up to the second record
+        Path index = Path.of(logs().get(0).toString().replace(".log", ".idx"));
+        for (int i = 2; i < 5; i++) {
+            overwrite(index, i * Integer.BYTES, new byte[Integer.BYTES]);
+        }
+
+        assertIds(open().takeRecoveredRecords(), 0, 5);
+    }
+
+    @Test
+    void missingSegmentKeepsOnlyTheNewerRun() throws IOException {
+        SnapshotJournal journal = open();
+        appendAll(journal, 0, 20);
+        journal.flush();
+        List<Path> logs = logs();
+        assertThat(logs).hasSizeGreaterThanOrEqualTo(3);
+        Files.delete(logs.get(1));
+
+        SnapshotJournal reopened = open();
+
+        // Segment files are named after their first record's id
+        long afterGap = Long.parseLong(logs.get(2).getFileName().toString().replace(".log", ""));
+        assertIds(reopened.takeRecoveredRecords(), afterGap, 20);
+        assertThat(reopened.firstId()).isEqualTo(afterGap);
+        assertThat(logs()).doesNotContain(logs.get(0));
+    }
+
+    private SnapshotJournal open() throws IOException {
+        return new SnapshotJournal(directory, SEGMENT_BYTES, Long.MAX_VALUE, 0);
+    }
+
+    private static void appendAll(SnapshotJournal journal, long from, long to) throws IOException {
+        for (long id = from; id < to; id++) {
+            journal.append(info(id), id, payload(id));
+        }
+    }
+
+    private static void assertIds(List<SnapshotJournal.Record> records, long from, long to) {
+        assertThat(records).hasSize((int) (to - from));
+        for (int i = 0; i < records.size(); i++) {
+            SnapshotJournal.Record record = records.get(i);
+            long id = from + i;
+            assertThat(record.info()).isEqualTo(info(id));
+            assertThat(record.keyframeId()).isEqualTo(id);
+            byte[] data = new byte[record.data().remaining()];
+            record.data().get(data);
+            assertThat(data).isEqualTo(payload(id));
+        }
+    }
+
+    private static SnapshotInfo info(long id) {
+        return new SnapshotInfo(id, 1_000 + id, id % 7 == 0, PAYLOAD_BYTES, 1, 2, (int) id, 3, 4, 5, 0.5, false);
+    }
+
+    private static byte[] payload(long id) {
+        byte[] data = new byte[PAYLOAD_BYTES];
+        Arrays.fill(data, (byte) id);
+        return data;
+    }
+
+    private List<Path> logs() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private static void overwrite(Path file, int position, byte... bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+}
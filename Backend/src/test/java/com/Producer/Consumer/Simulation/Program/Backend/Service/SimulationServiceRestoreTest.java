@@ -0,0 +1,74 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Service;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Snapshot.SimulationSnapshot;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// History stays in memory, so the test leaves no journal behind
+@SpringBootTest(properties = "simulation.snapshots.journal.directory=")
+class SimulationServiceRestoreTest {
+
+    @Autowired
+    private SimulationService service;
+
+    @Test
+    void restoredStateMatchesTheSnapshot() throws InterruptedException {
+        ProductionQueue source = service.addQueue(0, 0, 50);
+        Machine machine = service.addMachine(100, 0, 30, 60);
+        ProductionQueue sink = service.addQueue(200, 0, 1000);
+        service.addConnection(source.getId(), machine.getId());
+        service.addConnection(machine.getId(), sink.getId());
+
+        service.startSimulation(20);
+        Thread.sleep(400);
+        service.stopSimulation();
+        long savedId = latestSnapshotId();
+        SimulationSnapshot saved = service.getSnapshot(savedId);
+
+        service.startSimulation(20);
+        Thread.sleep(300);
+        service.stopSimulation();
+        assertThat(service.getProducts()).hasSizeGreaterThan(saved.getProducts().size());
+
+        service.restoreSnapshot(savedId);
+
+        assertThat(service.isRunning()).isFalse();
+        // Queues, machines and the product list share one instance per product
+        Map<String, Product> productsById = new HashMap<>();
+        service.getProducts().forEach(product -> productsById.put(product.getId(), product));
+        for (ProductionQueue queue : service.getQueues()) {
+            for (Product product : queue.getProducts()) {
+                assertThat(product).isSameAs(productsById.get(product.getId()));
+            }
+        }
+        for (Machine restored : service.getMachines()) {
+            if (restored.getCurrentProduct() != null) {
+                assertThat(restored.getCurrentProduct())
+                        .isSameAs(productsById.get(restored.getCurrentProduct().getId()));
+            }
+        }
+
+        // Capturing the restored objects gives back the state that was saved
+        service.createSnapshot();
+        SimulationSnapshot recaptured = service.getSnapshot(latestSnapshotId());
+        assertThat(recaptured.getProducts()).containsExactlyElementsOf(saved.getProducts());
+        assertThat(recaptured.getQueues()).containsExactlyElementsOf(saved.getQueues());
+        assertThat(recaptured.getMachines()).containsExactlyElementsOf(saved.getMachines());
+        assertThat(recaptured.getConnections()).containsExactlyElementsOf(saved.getConnections());
+        assertThat(recaptured.getStatistics().totalProductsProcessed())
+                .isEqualTo(saved.getStatistics().totalProductsProcessed());
+    }
+
+    private long latestSnapshotId() {
+        return service.getSnapshotPage(0, 1, true).getItems().get(0).id();
+    }
+}
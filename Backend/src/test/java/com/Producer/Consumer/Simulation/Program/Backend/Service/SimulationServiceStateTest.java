@@ -0,0 +1,72 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Service;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "simulation.snapshots.journal.directory=")
+class SimulationServiceStateTest {
+
+    @Autowired
+    private SimulationService service;
+
+    // The context, and with it the topology, is shared with other test classes
+    @BeforeEach
+    @AfterEach
+    void emptyTopology() {
+        service.getMachines().forEach(machine -> service.removeMachine(machine.getId()));
+        service.getQueues().forEach(queue -> service.removeQueue(queue.getId()));
+    }
+
+    @Test
+    void stateListsOnlyProductsStillInTheLine() throws InterruptedException {
+        ProductionQueue source = service.addQueue(0, 0, 50);
+        Machine machine = service.addMachine(100, 0, 10, 20);
+        service.addConnection(source.getId(), machine.getId());
+
+        service.startSimulation(20);
+        Thread.sleep(400);
+        service.stopSimulation();
+
+        @SuppressWarnings("unchecked")
+        List<Product> listed = (List<Product>) service.getCurrentState().get("products");
+        List<Product> inLine = new ArrayList<>(source.getProducts());
+        if (machine.getCurrentProduct() != null) {
+            inLine.add(machine.getCurrentProduct());
+        }
+        assertThat(listed).containsExactlyInAnyOrderElementsOf(inLine);
+        // Finished products are still kept for the snapshot history
+        assertThat(service.getProducts()).hasSizeGreaterThan(listed.size());
+    }
+
+    @Test
+    void queueBufferIsOnlyReplacedWhileStopped() {
+        ProductionQueue source = service.addQueue(0, 0, 50, ProductionQueue.MODE_RING);
+        Machine machine = service.addMachine(100, 0, 10, 20);
+        service.addConnection(source.getId(), machine.getId());
+
+        service.startSimulation(20);
+        try {
+            assertThatThrownBy(() -> service.setQueueCapacity(source.getId(), 10))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> service.setQueueMode(source.getId(), ProductionQueue.MODE_PRIORITY))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            service.stopSimulation();
+        }
+
+        assertThat(service.setQueueCapacity(source.getId(), 60).getCapacity()).isEqualTo(60);
+        assertThat(source.getMode()).isEqualTo(ProductionQueue.MODE_RING);
+    }
+}
@@ -0,0 +1,104 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Service;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TopologyIndexTest {
+
+    private TopologyIndex topology;
+
+    @BeforeEach
+    void setUp() {
+        // Q0 -> M1 -> Q1 -> M2 -> Q2
+        topology = new TopologyIndex();
+        topology.addQueue(queue("Q0"));
+        topology.addQueue(queue("Q1"));
+        topology.addQueue(queue("Q2"));
+        topology.addMachine(machine("M1"));
+        topology.addMachine(machine("M2"));
+        topology.addConnection("Q0", "M1");
+        topology.addConnection("M1", "Q1");
+        topology.addConnection("Q1", "M2");
+        topology.addConnection("M2", "Q2");
+    }
+
+    @Test
+    void resolvesMachineQueuesAndStartQueue() {
+        assertThat(topology.inputQueueOf("M1").getId()).isEqualTo("Q0");
+        assertThat(topology.outputQueueOf("M1").getId()).isEqualTo("Q1");
+        assertThat(topology.outputQueueOf("M2").getId()).isEqualTo("Q2");
+        assertThat(topology.getStartQueue().getId()).isEqualTo("Q0");
+        assertThat(topology.hasOutgoing("Q2")).isFalse();
+    }
+
+    @Test
+    void firstConnectionWins() {
+        topology.addQueue(queue("Q3"));
+        topology.addConnection("M1", "Q3");
+
+        assertThat(topology.outputQueueOf("M1").getId()).isEqualTo("Q1");
+        assertThat(topology.addConnection("M1", "Q3")).isFalse();
+    }
+
+    @Test
+    void startQueueFollowsIncomingConnections() {
+        topology.addConnection("M2", "Q0");
+        // Every queue is fed now, so the earliest added one is the start
+        assertThat(topology.getStartQueue().getId()).isEqualTo("Q0");
+
+        topology.removeConnection("M2", "Q0");
+        topology.addQueue(queue("Q3"));
+        topology.addConnection("Q3", "M2");
+        assertThat(topology.getStartQueue().getId()).isEqualTo("Q0");
+        topology.addConnection("M1", "Q0");
+        // Q3 was added after Q0 but is now the only queue without a feeder
+        assertThat(topology.getStartQueue().getId()).isEqualTo("Q3");
+    }
+
+    @Test
+    void removingANodeDropsItsConnections() {
+        topology.removeMachine("M1");
+
+        assertThat(topology.getConnections()).noneMatch(c -> c.getFrom().equals("M1") || c.getTo().equals("M1"));
+        assertThat(topology.hasOutgoing("Q0")).isFalse();
+        // Q1 lost its only feeder, but Q0 was added first
+        assertThat(topology.getStartQueue().getId()).isEqualTo("Q0");
+        topology.removeQueue("Q0");
+        assertThat(topology.getStartQueue().getId()).isEqualTo("Q1");
+    }
+
+    @Test
+    void rejectsDuplicateIds() {
+        assertThatThrownBy(() -> topology.addQueue(queue("Q1"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> topology.addMachine(machine("Q1"))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(topology.queueCount()).isEqualTo(3);
+    }
+
+    @Test
+    void nextIdsSkipIdsStillInUse() {
+        assertThat(topology.nextQueueId()).isEqualTo("Q3");
+        assertThat(topology.nextMachineId()).isEqualTo("M3");
+
+        topology.removeQueue("Q0");
+        topology.removeMachine("M1");
+        // The counts dropped, but Q2 and M2 are still taken
+        assertThat(topology.nextQueueId()).isEqualTo("Q3");
+        assertThat(topology.nextMachineId()).isEqualTo("M3");
+
+        topology.addQueue(queue(topology.nextQueueId()));
+        assertThat(topology.getQueues()).extracting(ProductionQueue::getId).containsExactly("Q1", "Q2", "Q3");
+    }
+
+    private static ProductionQueue queue(String id) {
+        return new ProductionQueue(id, 0, 0, 10);
+    }
+
+    private static Machine machine(String id) {
+        return new Machine(id, 0, 0, 100, 200);
+    }
+}
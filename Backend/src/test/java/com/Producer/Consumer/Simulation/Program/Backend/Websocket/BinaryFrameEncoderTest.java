@@ -0,0 +1,53 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Websocket;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.MachineStatusPayload;
+import com.Producer.Consumer.Simulation.Program.Backend.Pattern.Observer.SimulationEvent;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinaryFrameEncoderTest {
+
+    private final BinaryFrameEncoder encoder = new BinaryFrameEncoder();
+
+    @Test
+    void missingColorIsNotSentAsBlack() {
+        SimulationEvent event = new SimulationEvent("MACHINE_IDLE",
+                new MachineStatusPayload("M1", "idle", null, null, 0), 0);
+
+        // kind, type, timestamp, machine id, status, then the color
+        assertThat(bytesOf(encoder.encodeEvent(event).getPayload())[5] & 0xFF).isEqualTo(254);
+    }
+
+    @Test
+    void stateIsEncodedFromTheCapturedFrame() {
+        Machine machine = new Machine("M1", 10, 20, 100, 200);
+        machine.setStatus("processing");
+        machine.setColor("#ef4444");
+        machine.setProcessedCount(3);
+        StateFrameCache cache = new StateFrameCache(new ObjectMapper());
+        cache.markChanged();
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("machines", List.of(machine));
+        state.put("isRunning", true);
+
+        byte[] bytes = bytesOf(encoder.encodeState(cache.current(() -> state)).getPayload());
+
+        // kind, version, running, 1 machine: M1, x 10, y 20, processing, red, no product, 3 processed;
+        // then no queues, connections or products
+        assertThat(bytes).containsExactly(2, 1, 1, 1, 1 << 2, 20, 40, 1, 1, 3, 3, 0, 0, 0);
+    }
+
+    private static byte[] bytesOf(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.duplicate().get(bytes);
+        return bytes;
+    }
+}
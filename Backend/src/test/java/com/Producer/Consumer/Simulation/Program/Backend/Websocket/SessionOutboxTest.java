@@ -0,0 +1,82 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SessionOutboxTest {
+
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstSendStarted = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void keyframePolicyDropsOnlyStateFrames() throws Exception {
+        SessionOutbox outbox = new SessionOutbox(blockingSession(), 3, LagPolicy.KEYFRAME,
+                session -> new TextMessage("keyframe"));
+
+        outbox.enqueue(new TextMessage("subscribed"));
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        outbox.enqueueState(new TextMessage("state 1"));
+        outbox.enqueue(new TextMessage("event 1"));
+        outbox.enqueueState(new TextMessage("state 2"));
+        outbox.enqueueState(new TextMessage("state 3"));
+        outbox.enqueue(new TextMessage("event 2"));
+        release.countDown();
+
+        awaitSent(4);
+        assertThat(sent).containsExactly("subscribed", "event 1", "keyframe", "event 2");
+        assertThat(outbox.metrics().get("dropped")).isEqualTo(3L);
+        outbox.close();
+    }
+
+    @Test
+    void keyframePolicyDisconnectsWhenOnlyMessagesThatMustArriveAreQueued() throws Exception {
+        SessionOutbox outbox = new SessionOutbox(blockingSession(), 2, LagPolicy.KEYFRAME,
+                session -> new TextMessage("keyframe"));
+
+        outbox.enqueue(new TextMessage("subscribed"));
+        assertThat(firstSendStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        outbox.enqueue(new TextMessage("event 1"));
+        outbox.enqueue(new TextMessage("event 2"));
+        outbox.enqueueState(new TextMessage("state 1"));
+        outbox.enqueue(new TextMessage("event 3"));
+        release.countDown();
+
+        assertThat(outbox.metrics().get("queueDepth")).isEqualTo(0);
+        assertThat(sent).doesNotContain("event 3");
+    }
+
+    private WebSocketSession blockingSession() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s1");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            firstSendStarted.countDown();
+            release.await();
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            sent.add(String.valueOf(message.getPayload()));
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sent.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
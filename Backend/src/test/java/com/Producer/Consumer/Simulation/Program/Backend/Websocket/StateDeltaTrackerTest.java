@@ -0,0 +1,110 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Websocket;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Connection;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StateDeltaTrackerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StateDeltaTracker tracker = new StateDeltaTracker(objectMapper, 4);
+    private final StateFrameCache cache = new StateFrameCache(objectMapper);
+
+    private final Machine machine = new Machine("M1", 10, 20, 100, 200);
+    private final ProductionQueue queue = new ProductionQueue("Q0", 0, 0, 10);
+    private final List<Product> products = new ArrayList<>();
+
+    @Test
+    void recordsOnlyWhatChanged() {
+        long first = tracker.commit(frame(false));
+        assertThat(tracker.commit(frame(false))).isEqualTo(first);
+
+        Product product = product("P1");
+        queue.addProduct(product, 0);
+        products.add(product);
+        long second = tracker.commit(frame(false));
+
+        ObjectNode delta = tracker.deltaSince(first);
+        assertThat(second).isEqualTo(first + 1);
+        assertThat(delta.get("changed").get("products").propertyNames()).containsExactly("P1");
+        assertThat(delta.get("changed").get("queues").has("Q0")).isTrue();
+        assertThat(delta.get("changed").has("machines")).isFalse();
+        assertThat(delta.get("fields").isEmpty()).isTrue();
+    }
+
+    @Test
+    void mergesDeltasAndReportsRemovals() {
+        Product product = product("P1");
+        products.add(product);
+        long base = tracker.commit(frame(false));
+
+        product.setStatus("processing");
+        machine.setCurrentProduct(product);
+        tracker.commit(frame(false));
+        products.clear();
+        machine.setCurrentProduct(null);
+        long current = tracker.commit(frame(true));
+
+        ObjectNode delta = tracker.deltaSince(base);
+        assertThat(delta.get("version").asLong()).isEqualTo(current);
+        assertThat(delta.get("changed").has("products")).isFalse();
+        assertThat(delta.get("removed").get("products").get(0).asString()).isEqualTo("P1");
+        assertThat(delta.get("changed").get("machines").get("M1").get("currentProduct").isNull()).isTrue();
+        assertThat(delta.get("fields").get("isRunning").asBoolean()).isTrue();
+        assertThat(tracker.deltaSince(current)).isNull();
+    }
+
+    @Test
+    void oldBaseFallsOutOfHistory() {
+        long base = tracker.commit(frame(false));
+        for (int i = 0; i < 5; i++) {
+            machine.setProcessedCount(i + 1);
+            tracker.commit(frame(false));
+        }
+        assertThat(tracker.deltaSince(base)).isNull();
+
+        ObjectNode keyframe = tracker.keyframe();
+        assertThat(keyframe.get("version").asLong()).isEqualTo(tracker.getVersion());
+        assertThat(keyframe.get("state").get("machines").get(0).get("processedCount").asInt()).isEqualTo(5);
+    }
+
+    @Test
+    void committingTheSameFrameAgainChangesNothing() {
+        StateFrameCache.StateFrame frame = frame(false);
+        long version = tracker.commit(frame);
+        machine.setProcessedCount(1);
+
+        assertThat(tracker.commit(frame)).isEqualTo(version);
+        assertThat(tracker.keyframe().get("state").get("machines").get(0).get("processedCount").asInt()).isZero();
+    }
+
+    private StateFrameCache.StateFrame frame(boolean running) {
+        cache.markChanged();
+        return cache.current(() -> state(running));
+    }
+
+    private Map<String, Object> state(boolean running) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("machines", List.of(machine));
+        state.put("queues", List.of(queue));
+        state.put("products", new ArrayList<>(products));
+        state.put("connections", List.of(new Connection("Q0", "M1")));
+        state.put("isRunning", running);
+        return state;
+    }
+
+    private static Product product(String id) {
+        return new Product(id, "#3b82f6", 2, 0, 0, "waiting", "TypeA");
+    }
+}
@@ -0,0 +1,135 @@
+package com.Producer.Consumer.Simulation.Program.Backend.Websocket;
+
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Connection;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Machine;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.Product;
+import com.Producer.Consumer.Simulation.Program.Backend.Models.ProductionQueue;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StateFrameCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StateFrameCache cache = new StateFrameCache(objectMapper);
+
+    private final Machine machine = new Machine("M1", 10, 20, 100, 200);
+    private final ProductionQueue queue = new ProductionQueue("Q0", 0, 0, 10);
+
+    @Test
+    void frameIsTheSameJsonAsTheState() {
+        Product product = product("P1");
+        queue.addProduct(product, 7);
+        machine.setStatus("processing");
+        StateFrameCache.StateFrame frame = frame();
+
+        assertThat(objectMapper.readTree(frame.json()))
+                .isEqualTo(objectMapper.readTree(objectMapper.writeValueAsString(state())));
+    }
+
+    @Test
+    void jsonIsEncodedOnceAndShared() {
+        StateFrameCache.StateFrame frame = frame();
+
+        assertThat(frame.json()).isSameAs(frame.json());
+        assertThat(frame.updateMessage().getPayload()).endsWith(",\"data\":" + frame.json() + "}");
+    }
+
+    @Test
+    void lateEncodingStillShowsTheCapturedState() {
+        StateFrameCache.StateFrame frame = frame();
+        machine.setProcessedCount(5);
+        queue.addProduct(product("P1"), 1);
+
+        JsonNode json = objectMapper.readTree(frame.json());
+        assertThat(json.get("machines").get(0).get("processedCount").asInt()).isZero();
+        assertThat(json.get("queues").get(0).get("products")).isEmpty();
+    }
+
+    @Test
+    void unchangedEntitiesKeepTheirNodes() {
+        StateFrameCache.StateFrame first = frame();
+        machine.setProcessedCount(1);
+        StateFrameCache.StateFrame second = frame();
+
+        assertThat(second.tree().get("queues").get(0)).isSameAs(first.tree().get("queues").get(0));
+        assertThat(second.tree().get("connections").get(0)).isSameAs(first.tree().get("connections").get(0));
+        assertThat(second.tree().get("machines").get(0)).isNotSameAs(first.tree().get("machines").get(0));
+        assertThat(second.tree().get("machines").get(0).get("processedCount").asInt()).isEqualTo(1);
+    }
+
+    @Test
+    void fingerprintChangesWheneverTheJsonDoes() {
+        Product product = product("P1");
+        List<Runnable> mutations = List.of(
+                () -> machine.setStatus("processing"),
+                () -> machine.setColor("#ef4444"),
+                () -> machine.setCurrentProduct(product),
+                () -> product.setStatus("processing"),
+                () -> machine.setProcessedCount(3),
+                () -> machine.setTotalProcessingTime(1234),
+                () -> machine.setX(99),
+                () -> machine.setReliability(0.5),
+                () -> queue.addProduct(product("P2"), 5),
+                () -> queue.getWaitingMachines().add("M1"),
+                () -> queue.setCapacity(20),
+                () -> queue.setMode(ProductionQueue.MODE_RING),
+                () -> product.setEnteredQueueAt(42));
+        for (Object entity : List.of(machine, queue)) {
+            Object fingerprint = StateFrameCache.fingerprintOf(entity);
+            JsonNode tree = objectMapper.valueToTree(entity);
+            for (Runnable mutation : mutations) {
+                mutation.run();
+                Object nextFingerprint = StateFrameCache.fingerprintOf(entity);
+                JsonNode nextTree = objectMapper.valueToTree(entity);
+                assertThat(nextFingerprint.equals(fingerprint)).isEqualTo(nextTree.equals(tree));
+                fingerprint = nextFingerprint;
+                tree = nextTree;
+            }
+        }
+    }
+
+    @Test
+    void fingerprintsCoverEveryJsonProperty() {
+        // A new property on a model must be added to StateFrameCache.fingerprintOf as well
+        assertThat(propertiesOf(machine)).containsExactlyInAnyOrder("id", "x", "y", "minServiceTime",
+                "maxServiceTime", "status", "currentProduct", "color", "processedCount", "totalProcessingTime",
+                "reliability");
+        assertThat(propertiesOf(queue)).containsExactlyInAnyOrder("id", "x", "y", "capacity", "mode", "products",
+                "waitingMachines");
+        assertThat(propertiesOf(product("P1"))).containsExactlyInAnyOrder("id", "color", "priority", "createdAt",
+                "enteredQueueAt", "status", "productType");
+        assertThat(propertiesOf(new Connection("Q0", "M1"))).containsExactlyInAnyOrder("from", "to");
+    }
+
+    private Set<String> propertiesOf(Object entity) {
+        return new HashSet<>(objectMapper.valueToTree(entity).propertyNames());
+    }
+
+    private StateFrameCache.StateFrame frame() {
+        cache.markChanged();
+        return cache.current(this::state);
+    }
+
+    private Map<String, Object> state() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("machines", List.of(machine));
+        state.put("queues", List.of(queue));
+        state.put("products", List.copyOf(queue.getProducts()));
+        state.put("connections", List.of(new Connection("Q0", "M1")));
+        state.put("isRunning", false);
+        return state;
+    }
+
+    private static Product product(String id) {
+        return new Product(id, "#3b82f6", 2, 0, 0, "waiting", "TypeA");
+    }
+}
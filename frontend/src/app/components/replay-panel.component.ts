@@ -1,6 +1,7 @@
 import { Component, OnInit, Output, EventEmitter } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { SimulationService } from '../services/simulation.service';
+import { SnapshotInfo } from '../models/simulation.models';
 
 export interface Snapshot {
   timestamp: number;
@@ -38,19 +39,19 @@ export interface Snapshot {
 
         <!-- Snapshots List -->
         <div class="snapshots-list">
-          <h4>Saved Snapshots ({{ snapshots.length }}/50)</h4>
+          <h4>Saved Snapshots ({{ total }})</h4>
           
           <div *ngIf="snapshots.length === 0" class="empty-state">
             <p>No snapshots available</p>
             <p class="hint">Snapshots are auto-saved every 5 seconds during simulation</p>
           </div>
 
-          <div *ngFor="let snapshot of displayedSnapshots; let i = index" 
+          <div *ngFor="let snapshot of snapshots" 
                class="snapshot-item"
-               [class.selected]="selectedIndex === getOriginalIndex(i)">
+               [class.selected]="selectedId === snapshot.id">
             <div class="snapshot-header">
               <div class="snapshot-time">
-                📸 <strong>Snapshot {{ getOriginalIndex(i) + 1 }}</strong> • 
+                📸 <strong>Snapshot {{ snapshot.id + 1 }}</strong> • 
                 {{ formatTime(snapshot.timestamp) }}
                 <span class="time-ago">({{ getTimeAgo(snapshot.timestamp) }})</span>
               </div>
@@ -63,7 +64,7 @@ export interface Snapshot {
               <div class="stat-card">
                 <div class="stat-icon">🔧</div>
                 <div class="stat-content">
-                  <div class="stat-value">{{ snapshot.machines?.length || 0 }}</div>
+                  <div class="stat-value">{{ snapshot.machineCount }}</div>
                   <div class="stat-label">Machines</div>
                 </div>
               </div>
@@ -71,7 +72,7 @@ export interface Snapshot {
               <div class="stat-card">
                 <div class="stat-icon">📦</div>
                 <div class="stat-content">
-                  <div class="stat-value">{{ getQueueProductsCount(snapshot) }}</div>
+                  <div class="stat-value">{{ snapshot.queuedProducts }}</div>
                   <div class="stat-label">Queue Items</div>
                 </div>
               </div>
@@ -79,7 +80,7 @@ export interface Snapshot {
               <div class="stat-card">
                 <div class="stat-icon">✅</div>
                 <div class="stat-content">
-                  <div class="stat-value">{{ snapshot.statistics?.totalProductsProcessed || 0 }}</div>
+                  <div class="stat-value">{{ snapshot.totalProductsProcessed }}</div>
                   <div class="stat-label">Completed</div>
                 </div>
               </div>
@@ -87,66 +88,35 @@ export interface Snapshot {
               <div class="stat-card">
                 <div class="stat-icon">⏱️</div>
                 <div class="stat-content">
-                  <div class="stat-value">{{ (snapshot.statistics?.throughput || 0).toFixed(1) }}</div>
+                  <div class="stat-value">{{ snapshot.throughput.toFixed(1) }}</div>
                   <div class="stat-label">Throughput/s</div>
                 </div>
               </div>
             </div>
-
-            <!-- Machine Status Mini View -->
-            <div *ngIf="snapshot.machines?.length" class="machine-mini-view">
-              <div class="mini-view-title">Machine Status:</div>
-              <div class="machine-status-list">
-                <div *ngFor="let machine of snapshot.machines.slice(0, 3)" 
-                     class="machine-status-item"
-                     [title]="machine.status + ' - Processed: ' + (machine.processedCount || 0)">
-                  <div class="machine-dot" [ngClass]="machine.status"></div>
-                  <span class="machine-id">{{ machine.id }}</span>
-                  <span class="machine-count">{{ machine.processedCount || 0 }}</span>
-                </div>
-                <div *ngIf="snapshot.machines.length > 3" class="more-machines">
-                  +{{ snapshot.machines.length - 3 }} more
-                </div>
-              </div>
-            </div>
-
-            <!-- Queue Distribution -->
-            <div *ngIf="snapshot.queues?.length" class="queue-distribution">
-              <div class="queue-dist-title">Queue Load:</div>
-              <div class="queue-bars">
-                <div *ngFor="let queue of snapshot.queues" 
-                     class="queue-bar-container"
-                     [title]="queue.id + ': ' + (queue.products?.length || 0) + ' products'">
-                  <div class="queue-label">{{ queue.id }}</div>
-                  <div class="queue-bar-bg">
-                    <div class="queue-bar-fill" 
-                         [style.width.%]="getQueueFillPercentage(queue)">
-                      <span class="queue-count">{{ queue.products?.length || 0 }}</span>
-                    </div>
-                  </div>
-                </div>
-              </div>
-            </div>
             
             <div class="snapshot-actions">
-              <button (click)="restoreSnapshot(getOriginalIndex(i))" 
+              <button (click)="restoreSnapshot(snapshot)" 
                       class="btn-restore"
                       [disabled]="isRestoring">
-                {{ isRestoring && selectedIndex === getOriginalIndex(i) ? '⏳ Restoring...' : '▶️ Restore' }}
+                {{ isRestoring && selectedId === snapshot.id ? '⏳ Restoring...' : '▶️ Restore' }}
               </button>
-              <button (click)="previewSnapshotDetails(getOriginalIndex(i))" 
+              <button (click)="previewSnapshotDetails(snapshot)" 
                       class="btn-preview">
-                👁️ Details
+                {{ isLoadingDetails && selectedId === snapshot.id ? '⏳ Loading...' : '👁️ Details' }}
               </button>
             </div>
           </div>
+
+          <button *ngIf="snapshots.length < total" (click)="loadMore()" class="btn-sort btn-load-more">
+            Load more ({{ total - snapshots.length }} remaining)
+          </button>
         </div>
 
         <!-- Enhanced Preview Section -->
         <div *ngIf="selectedSnapshot !== null" class="preview-section">
           <div class="preview-header">
             <h4>Snapshot Details - {{ formatTime(selectedSnapshot.timestamp) }}</h4>
-            <button (click)="selectedSnapshot = null; selectedIndex = -1" class="btn-close-preview">
+            <button (click)="selectedSnapshot = null; selectedId = -1" class="btn-close-preview">
               ×
             </button>
           </div>
@@ -481,123 +451,16 @@ export interface Snapshot {
       margin-top: 2px;
     }
 
-    .machine-mini-view, .queue-distribution {
-      margin-top: 15px;
-      padding: 12px;
-      background: #1e293b;
-      border-radius: 6px;
-    }
-
-    .mini-view-title, .queue-dist-title {
-      color: #94a3b8;
-      font-size: 12px;
-      margin-bottom: 8px;
-      text-transform: uppercase;
-      letter-spacing: 0.5px;
-    }
-
-    .machine-status-list {
-      display: flex;
-      gap: 10px;
-      flex-wrap: wrap;
-    }
-
-    .machine-status-item {
-      display: flex;
-      align-items: center;
-      gap: 6px;
-      padding: 4px 8px;
-      background: #0f172a;
-      border-radius: 4px;
-      font-size: 12px;
-    }
-
-    .machine-dot {
-      width: 8px;
-      height: 8px;
-      border-radius: 50%;
-    }
-
-    .machine-dot.idle {
-      background: #94a3b8;
-    }
-
-    .machine-dot.processing {
-      background: #10b981;
-      animation: pulse 1s infinite;
-    }
-
-    .machine-dot.flashing {
-      background: #f59e0b;
-      animation: flash 0.5s infinite;
-    }
-
-    .machine-id {
-      color: white;
-      font-weight: bold;
-    }
-
-    .machine-count {
-      color: #3b82f6;
-      font-weight: bold;
-    }
-
-    .more-machines {
-      color: #64748b;
-      font-size: 11px;
-      font-style: italic;
-    }
-
-    .queue-bars {
-      display: flex;
-      flex-direction: column;
-      gap: 8px;
-    }
-
-    .queue-bar-container {
-      display: flex;
-      align-items: center;
-      gap: 10px;
-    }
-
-    .queue-label {
-      color: white;
-      font-weight: bold;
-      width: 30px;
-      font-size: 12px;
-    }
-
-    .queue-bar-bg {
-      flex: 1;
-      height: 20px;
-      background: #0f172a;
-      border-radius: 10px;
-      overflow: hidden;
-    }
-
-    .queue-bar-fill {
-      height: 100%;
-      background: linear-gradient(90deg, #3b82f6, #8b5cf6);
-      border-radius: 10px;
-      display: flex;
-      align-items: center;
-      justify-content: center;
-      transition: width 0.3s ease;
-      min-width: 24px;
-    }
-
-    .queue-count {
-      color: white;
-      font-size: 11px;
-      font-weight: bold;
-    }
-
     .snapshot-actions {
       display: flex;
       gap: 8px;
       margin-top: 15px;
     }
 
+    .btn-load-more {
+      width: 100%;
+    }
+
     .btn-restore, .btn-preview {
       flex: 1;
       padding: 8px 12px;
@@ -931,13 +794,17 @@ export class ReplayPanelComponent implements OnInit {
   @Output() close = new EventEmitter<void>();
   @Output() snapshotRestored = new EventEmitter<void>();
 
-  snapshots: Snapshot[] = [];
-  displayedSnapshots: Snapshot[] = [];
-  selectedIndex: number = -1;
+  // Only metadata is listed; a snapshot body is fetched when its details are opened
+  snapshots: SnapshotInfo[] = [];
+  total = 0;
+  selectedId: number = -1;
   selectedSnapshot: Snapshot | null = null;
   isRestoring = false;
+  isLoadingDetails = false;
   sortNewestFirst = true;
 
+  private readonly pageSize = 20;
+
   constructor(private simulationService: SimulationService) {}
 
   ngOnInit(): void {
@@ -945,55 +812,41 @@ export class ReplayPanelComponent implements OnInit {
   }
 
   loadSnapshots(): void {
-    this.simulationService.getSnapshots().subscribe({
-      next: (snapshots) => {
-        console.log('✅ Snapshots loaded:', snapshots);
-        this.snapshots = snapshots;
-        this.applySorting();
+    this.simulationService.getSnapshots(0, this.pageSize, this.sortNewestFirst).subscribe({
+      next: (page) => {
+        console.log('✅ Snapshots loaded:', page.items.length, 'of', page.total);
+        this.snapshots = page.items;
+        this.total = page.total;
       },
       error: (error) => console.error('❌ Error loading snapshots:', error)
     });
   }
 
-  toggleSort(): void {
-    this.sortNewestFirst = !this.sortNewestFirst;
-    this.applySorting();
-  }
-
-  applySorting(): void {
-    this.displayedSnapshots = [...this.snapshots];
-    if (this.sortNewestFirst) {
-      this.displayedSnapshots.sort((a, b) => b.timestamp - a.timestamp);
-    } else {
-      this.displayedSnapshots.sort((a, b) => a.timestamp - b.timestamp);
-    }
-  }
-
-  getOriginalIndex(displayIndex: number): number {
-    const snapshot = this.displayedSnapshots[displayIndex];
-    return this.snapshots.indexOf(snapshot);
+  loadMore(): void {
+    this.simulationService.getSnapshots(this.snapshots.length, this.pageSize, this.sortNewestFirst).subscribe({
+      next: (page) => {
+        // Snapshots taken since the first page shift offsets when listing newest first
+        const known = new Set(this.snapshots.map(s => s.id));
+        this.snapshots = [...this.snapshots, ...page.items.filter(s => !known.has(s.id))];
+        this.total = page.total;
+      },
+      error: (error) => console.error('❌ Error loading snapshots:', error)
+    });
   }
 
-  getQueueProductsCount(snapshot: Snapshot): number {
-    return snapshot.queues?.reduce((sum, queue) => sum + (queue.products?.length || 0), 0) || 0;
+  toggleSort(): void {
+    this.sortNewestFirst = !this.sortNewestFirst;
+    this.loadSnapshots();
   }
 
-  getSimulationStatus(snapshot: Snapshot): string {
-    // Check if any machine is processing
-    const isProcessing = snapshot.machines?.some(m => m.status === 'processing');
-    const hasProducts = (snapshot.statistics?.totalProductsInSystem || 0) > 0;
+  getSimulationStatus(snapshot: SnapshotInfo): string {
+    const hasProducts = snapshot.totalProductsInSystem > 0;
     
-    if (isProcessing && hasProducts) return 'running';
-    if (hasProducts && !isProcessing) return 'paused';
+    if (snapshot.processing && hasProducts) return 'running';
+    if (hasProducts && !snapshot.processing) return 'paused';
     return 'stopped';
   }
 
-  getQueueFillPercentage(queue: any): number {
-    const count = queue.products?.length || 0;
-    const capacity = queue.capacity || 100;
-    return Math.min((count / capacity) * 100, 100);
-  }
-
   getQueueCapacityPercentage(queue: any): number {
     const count = queue.products?.length || 0;
     const capacity = queue.capacity || 100;
@@ -1038,15 +891,13 @@ export class ReplayPanelComponent implements OnInit {
     });
   }
 
-  restoreSnapshot(index: number): void {
+  restoreSnapshot(snapshot: SnapshotInfo): void {
     if (confirm('Are you sure you want to restore this snapshot? Current state will be lost.')) {
       this.isRestoring = true;
-      this.simulationService.restoreSnapshot(index).subscribe({
+      this.selectedId = snapshot.id;
+      this.simulationService.restoreSnapshot(snapshot.id).subscribe({
         next: () => {
           console.log('✅ Snapshot restored on backend');
-          this.selectedIndex = index;
-          this.selectedSnapshot = this.snapshots[index];
-          
           this.snapshotRestored.emit();
           this.isRestoring = false;
           this.close.emit();
@@ -1054,15 +905,27 @@ export class ReplayPanelComponent implements OnInit {
         error: (error) => {
           console.error('❌ Error restoring snapshot:', error);
           this.isRestoring = false;
-          alert('Failed to restore snapshot');
+          alert(error.status === 404 ? 'Snapshot is no longer available' : 'Failed to restore snapshot');
         }
       });
     }
   }
 
-  previewSnapshotDetails(index: number): void {
-    this.selectedIndex = index;
-    this.selectedSnapshot = this.snapshots[index];
+  previewSnapshotDetails(snapshot: SnapshotInfo): void {
+    this.selectedId = snapshot.id;
+    this.isLoadingDetails = true;
+    this.simulationService.getSnapshot(snapshot.id).subscribe({
+      next: (body) => {
+        this.isLoadingDetails = false;
+        if (this.selectedId === snapshot.id) {
+          this.selectedSnapshot = body;
+        }
+      },
+      error: (error) => {
+        console.error('❌ Error loading snapshot details:', error);
+        this.isLoadingDetails = false;
+      }
+    });
   }
 
   clearAllSnapshots(): void {
@@ -1072,7 +935,7 @@ export class ReplayPanelComponent implements OnInit {
           console.log('✅ All snapshots cleared');
           this.loadSnapshots();
           this.selectedSnapshot = null;
-          this.selectedIndex = -1;
+          this.selectedId = -1;
         },
         error: (error) => console.error('❌ Error clearing snapshots:', error)
       });
@@ -8,7 +8,10 @@ import {
   ProductionQueue,
   Connection,
   SimulationStatistics,
-  SimulationEvent
+  SimulationEvent,
+  MachineStatusPayload,
+  ProductMovedPayload,
+  Product
 } from '../../models/simulation.models';
 import { Subscription } from 'rxjs';
 // ⚠️ IMPORTANT: Import the separate components
@@ -157,18 +160,20 @@ export class SimulationComponent implements OnInit, OnDestroy {
     console.log('Handling event type:', event.type);
 
     switch (event.type) {
-      case 'MACHINE_PROCESSING':
-        const { machine, product } = event.data;
-        const m = this.machines.find(m => m.id === machine.id);
+      case 'MACHINE_PROCESSING': {
+        const data = event.data as MachineStatusPayload;
+        const m = this.machines.find(m => m.id === data.machineId);
         if (m) {
-          m.status = 'processing';
-          m.color = product.color;
-          m.currentProduct = product;
+          m.status = data.status;
+          m.color = data.color;
+          m.currentProduct = data.productId ? this.takeQueuedProduct(data.productId) : null;
         }
         break;
+      }
 
-      case 'MACHINE_FLASH':
-        const flashMachine = this.machines.find(m => m.id === event.data.id);
+      case 'MACHINE_FLASH': {
+        const data = event.data as MachineStatusPayload;
+        const flashMachine = this.machines.find(m => m.id === data.machineId);
         if (flashMachine) {
           flashMachine.status = 'flashing';
           setTimeout(() => {
@@ -177,15 +182,30 @@ export class SimulationComponent implements OnInit, OnDestroy {
           }, 300);
         }
         break;
+      }
 
-      case 'PRODUCT_MOVED':
-        const { queueId, product: movedProduct } = event.data;
-        const queue = this.queues.find(q => q.id === queueId);
-        if (queue) {
-          queue.products.push(movedProduct);
+      case 'PRODUCT_MOVED': {
+        const data = event.data as ProductMovedPayload;
+        const queue = this.queues.find(q => q.id === data.queueId);
+        const source = this.machines.find(m => m.id === data.machineId);
+        if (queue && source?.currentProduct?.id === data.productId) {
+          queue.products.push(source.currentProduct);
+          source.currentProduct = null;
         }
         break;
+      }
+    }
+  }
+
+  // Events carry ids only; the product itself is already in some queue from the last state update
+  private takeQueuedProduct(productId: string): Product | null {
+    for (const queue of this.queues) {
+      const index = queue.products.findIndex(p => p.id === productId);
+      if (index >= 0) {
+        return queue.products.splice(index, 1)[0];
+      }
     }
+    return null;
   }
 
   private startRenderLoop(): void {
@@ -52,12 +52,61 @@ export interface SimulationState {
   machines: Machine[];
   queues: ProductionQueue[];
   products: Product[];
+  connections: Connection[];
   statistics: SimulationStatistics;
   isRunning: boolean;
 }
 
+export interface MachineStatusPayload {
+  machineId: string;
+  status: string;
+  productId: string | null;
+  color: string;
+  simTime: number;
+}
+
+export interface ProductMovedPayload {
+  productId: string;
+  machineId: string;
+  queueId: string;
+  queueSize: number;
+  simTime: number;
+}
+
+export interface ProductCreatedPayload {
+  productId: string;
+  queueId: string;
+  priority: number;
+  color: string;
+  simTime: number;
+}
+
 export interface SimulationEvent {
   type: string;
-  data: any;
+  data: MachineStatusPayload | ProductMovedPayload | ProductCreatedPayload;
   timestamp: number;
-}
\ No newline at end of file
+}
+
+// Replay list entry: recorded when the snapshot is saved, so listing never loads bodies
+export interface SnapshotInfo {
+  id: number;
+  timestamp: number;
+  keyframe: boolean;
+  sizeBytes: number;
+  machineCount: number;
+  queueCount: number;
+  productCount: number;
+  queuedProducts: number;
+  totalProductsProcessed: number;
+  totalProductsInSystem: number;
+  throughput: number;
+  processing: boolean;
+}
+
+export interface SnapshotPage {
+  total: number;
+  offset: number;
+  limit: number;
+  newestFirst: boolean;
+  items: SnapshotInfo[];
+}
@@ -1,69 +1,21 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable, BehaviorSubject, Subject } from 'rxjs';
+import {
+  Machine,
+  ProductionQueue,
+  Connection,
+  SimulationStatistics,
+  SimulationState,
+  SimulationEvent,
+  SnapshotPage
+} from '../models/simulation.models';
 
-export interface Product {
-  id: string;
-  color: string;
-  priority: number;
-  createdAt: number;
-  enteredQueueAt: number;
-  status: string;
-  productType: string;
-}
-
-export interface Machine {
-  id: string;
-  x: number;
-  y: number;
-  minServiceTime: number;
-  maxServiceTime: number;
-  status: string;
-  currentProduct: Product | null;
-  color: string;
-  processedCount: number;
-  totalProcessingTime: number;
-  reliability: number;
-}
-
-export interface ProductionQueue {
-  id: string;
-  x: number;
-  y: number;
-  capacity: number;
-  products: Product[];
-  waitingMachines: string[];
-}
-
-export interface Connection {
-  from: string;
-  to: string;
-}
+const STATE_COLLECTIONS = ['machines', 'queues', 'products', 'connections'];
 
-export interface SimulationStatistics {
-  totalProductsProcessed: number;
-  averageWaitTime: number;
-  averageProcessingTime: number;
-  machineUtilization: { [key: string]: number };
-  machineProcessedCount: { [key: string]: number };
-  throughput: number;
-  totalProductsInSystem: number;
-  simulationStartTime: number;
-}
-
-export interface SimulationState {
-  machines: Machine[];
-  queues: ProductionQueue[];
-  products: Product[];
-  connections: Connection[];
-  statistics: SimulationStatistics;
-  isRunning: boolean;
-}
-
-export interface SimulationEvent {
-  type: string;
-  data: any;
-  timestamp: number;
+// Same key the server uses: the entity id, or from->to for connections
+function entityId(entity: any): string {
+  return entity.id ?? `${entity.from}->${entity.to}`;
 }
 
 @Injectable({
@@ -86,6 +38,11 @@ export class SimulationService {
   public simulationEvents$ = new Subject<SimulationEvent>();
   public stateUpdate$ = new Subject<any>();
   public statisticsUpdate$ = new Subject<SimulationStatistics>();
+
+  // Client copy of the versioned state, rebuilt from keyframes and deltas
+  private stateVersion = -1;
+  private stateEntities: { [collection: string]: Map<string, any> } = {};
+  private stateFields: { [field: string]: any } = {};
   
   constructor(private http: HttpClient) {
     this.connectWebSocket();
@@ -107,7 +64,8 @@ export class SimulationService {
         // Subscribe to topics
         this.sendMessage({
           type: 'SUBSCRIBE',
-          topics: ['/topic/simulation-events', '/topic/state-update', '/topic/statistics']
+          topics: ['/topic/simulation-events', '/topic/state-delta', '/topic/statistics'],
+          delta: true
         });
       };
       
@@ -164,6 +122,9 @@ export class SimulationService {
         console.log('Received state update:', message.data);
         this.stateUpdate$.next(message.data);
         break;
+      case '/topic/state-delta':
+        this.applyStateFrame(message.data);
+        break;
       case '/topic/statistics':
         console.log('Received statistics update:', message.data);
         this.statisticsUpdate$.next(message.data as SimulationStatistics);
@@ -171,6 +132,51 @@ export class SimulationService {
     }
   }
   
+  // ===== Delta-encoded state =====
+  // A keyframe replaces everything; a delta applies on top of any version between its base and itself.
+  // Each applied frame is acknowledged so the server diffs from it next time.
+
+  private applyStateFrame(frame: any): void {
+    if (frame.kind === 'KEYFRAME') {
+      this.stateFields = {};
+      this.stateEntities = {};
+      for (const [key, value] of Object.entries<any>(frame.state)) {
+        if (STATE_COLLECTIONS.includes(key)) {
+          this.stateEntities[key] = new Map((value as any[]).map(entity => [entityId(entity), entity]));
+        } else {
+          this.stateFields[key] = value;
+        }
+      }
+    } else {
+      if (frame.version <= this.stateVersion) {
+        return;
+      }
+      if (frame.baseVersion > this.stateVersion) {
+        this.sendMessage({ type: 'KEYFRAME_REQUEST' });
+        return;
+      }
+      for (const [collection, byId] of Object.entries<any>(frame.changed)) {
+        const entities = this.stateEntities[collection] ??= new Map();
+        for (const [id, entity] of Object.entries(byId)) {
+          entities.set(id, entity);
+        }
+      }
+      for (const [collection, ids] of Object.entries<string[]>(frame.removed)) {
+        ids.forEach(id => this.stateEntities[collection]?.delete(id));
+      }
+      Object.assign(this.stateFields, frame.fields);
+    }
+
+    this.stateVersion = frame.version;
+    this.sendMessage({ type: 'ACK', version: frame.version });
+
+    const state: any = { ...this.stateFields };
+    for (const [collection, entities] of Object.entries(this.stateEntities)) {
+      state[collection] = Array.from(entities.values());
+    }
+    this.stateUpdate$.next(state);
+  }
+
   public isConnected(): Observable<boolean> {
     return this.connected.asObservable();
   }
@@ -243,8 +249,15 @@ export class SimulationService {
   
   // ===== Snapshot Management =====
   
-  getSnapshots(): Observable<any[]> {
-    return this.http.get<any[]>(`${this.apiUrl}/snapshots`);
+  // One page of metadata; a snapshot body is fetched only when it is opened
+  getSnapshots(offset = 0, limit = 50, newestFirst = true): Observable<SnapshotPage> {
+    return this.http.get<SnapshotPage>(`${this.apiUrl}/snapshots`, {
+      params: { offset, limit, newestFirst }
+    });
+  }
+
+  getSnapshot(id: number): Observable<any> {
+    return this.http.get<any>(`${this.apiUrl}/snapshots/${id}`);
   }
   
   // restoreSnapshot(index: number): Observable<string> {
@@ -257,9 +270,9 @@ export class SimulationService {
   // clearSnapshots(): Observable<string> {
   //   return this.http.delete<string>(`${this.apiUrl}/snapshots/clear`);
   // }
-  restoreSnapshot(index: number): Observable<string> {
+  restoreSnapshot(id: number): Observable<string> {
   return this.http.post(
-    `${this.apiUrl}/snapshots/restore/${index}`, 
+    `${this.apiUrl}/snapshots/restore/${id}`, 
     {},
     { responseType: 'text' }  // ✅ FIXED: Expect text response, not JSON
   );